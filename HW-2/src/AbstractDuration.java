@@ -32,7 +32,8 @@ abstract class AbstractDuration implements Duration {
 
   /**
    * Returns the sum of two durations. The result will have the same dynamic
-   * class as {@code this}.
+   * class as {@code this}, and so is rounded down to a whole second if the
+   * exact sum has a fraction.
    *
    * @param other the duration to add to {@code this}
    * @return the sum of the durations
@@ -40,6 +41,10 @@ abstract class AbstractDuration implements Duration {
   @Override
   public Duration plus(Duration other) {
     long result = inSeconds() + other.inSeconds();
+    if (getNanosComponent() + other.getNanosComponent()
+        >= NanoDuration.NANOS_IN_SEC) {
+      ++result;
+    }
 
     if (result < 0) {
       throw new RuntimeException("Duration overflow");
@@ -51,7 +56,8 @@ abstract class AbstractDuration implements Duration {
   /**
    * Returns the difference of two durations. Returns the zero duration rather
    * than negative. The result will have the same dynamic class as
-   * {@code this}.
+   * {@code this}, and so is rounded down to a whole second if the exact
+   * difference has a fraction.
    *
    * @param other the duration to subtract from {@code this}
    * @return the difference of the durations
@@ -59,23 +65,40 @@ abstract class AbstractDuration implements Duration {
   @Override
   public Duration minus(Duration other) {
     long result = inSeconds() - other.inSeconds();
+    if (getNanosComponent() < other.getNanosComponent()) {
+      --result;
+    }
     return fromSeconds(result < 0 ? 0 : result);
   }
 
+  /**
+   * Compares two durations by length, counting any fraction of a second,
+   * whatever their classes.
+   *
+   * @param other the duration to compare to {@code this}
+   * @return negative, zero or positive as {@code this} is shorter, the same
+   *   length or longer
+   */
   @Override
   public int compareTo(Duration other) {
-    return Long.compare(inSeconds(), other.inSeconds());
+    int result = Long.compare(inSeconds(), other.inSeconds());
+    if (result != 0) {
+      return result;
+    }
+    return Integer.compare(getNanosComponent(), other.getNanosComponent());
   }
 
   @Override
   public boolean equals(Object other) {
     if (!(other instanceof Duration)) return false;
-    return inSeconds() == ((Duration) other).inSeconds();
+    Duration that = (Duration) other;
+    return inSeconds() == that.inSeconds()
+        && getNanosComponent() == that.getNanosComponent();
   }
 
   @Override
   public int hashCode() {
-    return (int) (inSeconds() ^ (inSeconds() >>> 32));
+    return (int) (inSeconds() ^ (inSeconds() >>> 32)) ^ getNanosComponent();
   }
 
   @Override
@@ -111,6 +134,9 @@ abstract class AbstractDuration implements Duration {
       case 'M': result = addZero(getMinutesComponent()); break;
       case 's': result = Objects.toString(getSecondsComponent()); break;
       case 'S': result = addZero(getSecondsComponent()); break;
+      case 'L': result = fraction(getNanosComponent() / 1000000, 3); break;
+      case 'f': result = fraction(getNanosComponent() / 1000, 6); break;
+      case 'N': result = fraction(getNanosComponent(), 9); break;
       case '%': result = "%"; break;
     }
     return result;
@@ -128,4 +154,19 @@ abstract class AbstractDuration implements Duration {
     else return Integer.toString(component);
   }
 
+  /**
+   * Pads part of a fraction of a second with leading zeros.
+   *
+   * @param value the fraction, in units of 10<sup>-digits</sup> seconds
+   * @param digits the number of digits to pad to
+   * @return the padded digits
+   */
+  private static String fraction(int value, int digits) {
+    String result = Integer.toString(value);
+    while (result.length() < digits) {
+      result = "0" + result;
+    }
+    return result;
+  }
+
 }
@@ -1,5 +1,11 @@
 /**
- * Durations. Resolution is seconds. All durations are non-negative.
+ * Durations. Resolution is seconds, except that some implementations (such
+ * as {@link NanoDuration}) also carry a fraction of a second, which
+ * {@link #getNanosComponent()} reports. All durations are non-negative.
+ *
+ * <p>Durations of different resolutions compare and test equal by their
+ * exact lengths: a whole-second duration equals a nanosecond one only if
+ * the latter has no fraction.
  */
 public interface Duration extends Comparable<Duration> {
   /**
@@ -11,6 +17,9 @@ public interface Duration extends Comparable<Duration> {
    * representations of the indicated value for {@code this} duration,
    * and all other characters are copied into the result as-is.
    *
+   * <p>The fractional specifiers truncate rather than round, so that
+   * {@code "%s.%L"} never shows a second more than {@code %s} alone.
+   *
    * <p>In cases where multiple format specifiers overlap (<i>e.g.,</i>
    * {@code "%%t"}), the leftmost specifiers take precedence (so the
    * result would be {@code "%t"}).
@@ -40,6 +49,13 @@ public interface Duration extends Comparable<Duration> {
    *   <tr><td>{@code %S}</td><td>the seconds component of the decomposed
    *     duration, padded to 2 digits with leading zeros (<i>e.g.</i>,
    *     {@code 05} or {@code 56})</td></tr>
+   *   <tr><td>{@code %L}</td><td>the fraction of a second in
+   *     milliseconds, padded to 3 digits with leading zeros (<i>e.g.</i>,
+   *     {@code 005} or {@code 250})</td></tr>
+   *   <tr><td>{@code %f}</td><td>the fraction of a second in
+   *     microseconds, padded to 6 digits with leading zeros</td></tr>
+   *   <tr><td>{@code %N}</td><td>the fraction of a second in
+   *     nanoseconds, padded to 9 digits with leading zeros</td></tr>
    *   <tr><td>{@code %%}</td><td>a literal percent sign ({@code %})</td></tr>
    *   <caption>Format specifiers</caption>
    * </table>
@@ -50,7 +66,7 @@ public interface Duration extends Comparable<Duration> {
   String format(String template);
 
   /**
-   * Gets the total duration in seconds.
+   * Gets the total duration in seconds, rounded down to a whole second.
    *
    * @return the number of seconds (non-negative)
    */
@@ -88,6 +104,16 @@ public interface Duration extends Comparable<Duration> {
    */
   int getSecondsComponent();
 
+  /**
+   * Gets the fraction of a second left over beyond the seconds component,
+   * in nanoseconds. Durations of whole-second resolution have none.
+   *
+   * @return the number of nanoseconds (0 .. 999,999,999)
+   */
+  default int getNanosComponent() {
+    return 0;
+  }
+
   /**
    * Returns the sum of two durations.
    *
@@ -0,0 +1,372 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable sequence of durations stored as seconds in a primitive
+ * {@code long[]}, for holding many durations at once.
+ *
+ * <p>A {@link PackedDuration} costs about 16 bytes of object plus a 4-byte
+ * reference wherever it is stored, and a {@link WideDuration} more; here
+ * each duration costs 8 bytes and there is one object in all. The bulk
+ * operations ({@link #sum()}, {@link #meanSeconds()},
+ * {@link #histogram(long...)}, {@link #min()}, {@link #max()} and
+ * {@link #percentile(double)}) work on the seconds directly, using
+ * {@link Durations} for the arithmetic, so a
+ * {@code Duration} object is created only when one is asked for or
+ * returned.
+ */
+public final class DurationArray {
+  // The initial length of seconds when none is given:
+  private static final int DEFAULT_CAPACITY = 16;
+
+  // The durations in seconds; only the first size entries are used:
+  private long[] seconds;
+
+  // The number of durations:
+  private int size = 0;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - 0 <= size <= seconds.length
+   *  - seconds[0 .. size) are all non-negative
+   */
+
+  /**
+   * Creates an empty array.
+   */
+  public DurationArray() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty array with room for {@code capacity} durations before
+   * it needs to grow.
+   *
+   * @param capacity the initial capacity
+   * @throws IllegalArgumentException {@code capacity} is negative
+   */
+  public DurationArray(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must be non-negative");
+    }
+
+    seconds = new long[capacity];
+  }
+
+  /**
+   * Creates an array holding the given durations, in order.
+   *
+   * @param durations the durations
+   * @return the array
+   */
+  public static DurationArray of(Duration... durations) {
+    DurationArray result = new DurationArray(durations.length);
+    for (Duration duration : durations) {
+      result.add(duration);
+    }
+    return result;
+  }
+
+  /**
+   * Creates an array holding durations of the given lengths, in order.
+   *
+   * @param seconds the lengths in seconds (non-negative)
+   * @return the array
+   * @throws IllegalArgumentException if any length is negative
+   */
+  public static DurationArray ofSeconds(long... seconds) {
+    for (long s : seconds) {
+      checkSeconds(s);
+    }
+
+    DurationArray result = new DurationArray(0);
+    result.seconds = seconds.clone();
+    result.size    = seconds.length;
+    return result;
+  }
+
+  /**
+   * Returns the number of durations.
+   *
+   * @return the size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Appends a duration. The array holds whole seconds, so any fraction of a
+   * second is dropped; use {@link Durations#sum(Iterable)} and
+   * {@link Durations#mean(Iterable)} directly on durations to keep it.
+   *
+   * @param duration the duration
+   */
+  public void add(Duration duration) {
+    addSeconds(duration.inSeconds());
+  }
+
+  /**
+   * Appends a duration given in seconds.
+   *
+   * @param s the length of the duration in seconds (non-negative)
+   * @throws IllegalArgumentException {@code s} is negative
+   */
+  public void addSeconds(long s) {
+    checkSeconds(s);
+
+    if (size == seconds.length) {
+      seconds = Arrays.copyOf(seconds, Math.max(DEFAULT_CAPACITY,
+                                                grownLength(size)));
+    }
+    seconds[size++] = s;
+  }
+
+  /**
+   * Appends every duration in {@code durations}.
+   *
+   * @param durations the durations
+   */
+  public void addAll(Iterable<? extends Duration> durations) {
+    for (Duration duration : durations) {
+      add(duration);
+    }
+  }
+
+  /**
+   * Returns the duration at an index, as a {@link PackedDuration} from
+   * {@link Durations#ofSeconds(long)}.
+   *
+   * @param index the index
+   * @return the duration
+   * @throws IndexOutOfBoundsException if {@code index} is not in
+   *   {@code 0 .. size() - 1}
+   */
+  public Duration get(int index) {
+    return Durations.ofSeconds(secondsAt(index));
+  }
+
+  /**
+   * Returns the length in seconds of the duration at an index.
+   *
+   * @param index the index
+   * @return the length in seconds
+   * @throws IndexOutOfBoundsException if {@code index} is not in
+   *   {@code 0 .. size() - 1}
+   */
+  public long secondsAt(int index) {
+    checkIndex(index);
+    return seconds[index];
+  }
+
+  /**
+   * Replaces the duration at an index.
+   *
+   * @param index the index
+   * @param duration the new duration
+   * @throws IndexOutOfBoundsException if {@code index} is not in
+   *   {@code 0 .. size() - 1}
+   */
+  public void set(int index, Duration duration) {
+    checkIndex(index);
+    seconds[index] = duration.inSeconds();
+  }
+
+  /**
+   * Returns a copy of the lengths in seconds, in order.
+   *
+   * @return the lengths
+   */
+  public long[] toSecondsArray() {
+    return Arrays.copyOf(seconds, size);
+  }
+
+  /**
+   * Returns the sum of the durations.
+   *
+   * @return the sum
+   * @throws RuntimeException "Duration overflow" if the sum is too long to
+   *   represent, as for {@link Duration#plus(Duration)}
+   */
+  public Duration sum() {
+    return Durations.ofSeconds(Durations.sumSeconds(seconds, 0, size));
+  }
+
+  /**
+   * Returns the mean of the durations, in seconds.
+   *
+   * @return the mean
+   * @throws NoSuchElementException if the array is empty
+   * @throws RuntimeException "Duration overflow" if their sum is too long
+   *   to represent
+   */
+  public double meanSeconds() {
+    return Durations.meanSeconds(seconds, 0, size);
+  }
+
+  /**
+   * Counts how many durations fall between each pair of bounds, as
+   * {@link Durations#histogram(long[], long...)} does.
+   *
+   * @param bounds the bucket boundaries in seconds, in increasing order
+   * @return the counts
+   * @throws IllegalArgumentException if {@code bounds} is not strictly
+   *   increasing
+   */
+  public long[] histogram(long... bounds) {
+    return Durations.histogram(seconds, 0, size, bounds);
+  }
+
+  /**
+   * Returns the shortest duration.
+   *
+   * @return the minimum
+   * @throws NoSuchElementException if the array is empty
+   */
+  public Duration min() {
+    checkNotEmpty();
+
+    long result = seconds[0];
+    for (int i = 1; i < size; ++i) {
+      result = Math.min(result, seconds[i]);
+    }
+    return Durations.ofSeconds(result);
+  }
+
+  /**
+   * Returns the longest duration.
+   *
+   * @return the maximum
+   * @throws NoSuchElementException if the array is empty
+   */
+  public Duration max() {
+    checkNotEmpty();
+
+    long result = seconds[0];
+    for (int i = 1; i < size; ++i) {
+      result = Math.max(result, seconds[i]);
+    }
+    return Durations.ofSeconds(result);
+  }
+
+  /**
+   * Returns the {@code p}th percentile of the durations by the nearest-rank
+   * method: the shortest duration that is at least as long as {@code p}
+   * percent of them. Thus the 0th percentile is the minimum, the 50th the
+   * (lower) median and the 100th the maximum.
+   *
+   * <p>This typically runs in linear time, and never worse than
+   * <em>O</em>(<em>n</em> log <em>n</em>), using a scratch copy of the
+   * seconds.
+   *
+   * @param p the percentile (0 .. 100)
+   * @return the duration at that percentile
+   * @throws IllegalArgumentException if {@code p} is not in 0 .. 100
+   * @throws NoSuchElementException if the array is empty
+   */
+  public Duration percentile(double p) {
+    if (!(p >= 0 && p <= 100)) {
+      throw new IllegalArgumentException("percentile must be 0 to 100");
+    }
+    checkNotEmpty();
+
+    int rank = (int) Math.ceil(p / 100 * size);
+    return Durations.ofSeconds(select(Arrays.copyOf(seconds, size),
+                                      Math.max(rank, 1) - 1));
+  }
+
+  /**
+   * Finds the element that would be at index {@code k} if {@code a} were
+   * sorted, by quickselect. If that takes too many rounds, as on input built
+   * to defeat the median of three, it sorts what remains instead. The array
+   * is reordered in the process.
+   *
+   * @param a the array (non-empty)
+   * @param k the index (0 .. a.length - 1)
+   * @return the element
+   */
+  private static long select(long[] a, int k) {
+    int lo = 0;
+    int hi = a.length - 1;
+
+    // Good pivots would finish in about lg(n) rounds:
+    int rounds = 2 * (Integer.SIZE - Integer.numberOfLeadingZeros(a.length));
+
+    while (lo < hi) {
+      if (rounds-- == 0) {
+        Arrays.sort(a, lo, hi + 1);
+        break;
+      }
+
+      // Partition around the median of three, which avoids the quadratic
+      // case on sorted and reverse-sorted input:
+      int  mid   = (lo + hi) >>> 1;
+      long pivot = medianOf(a[lo], a[mid], a[hi]);
+      int  i     = lo;
+      int  j     = hi;
+
+      while (i <= j) {
+        while (a[i] < pivot) {
+          ++i;
+        }
+        while (a[j] > pivot) {
+          --j;
+        }
+        if (i <= j) {
+          long t = a[i];
+          a[i++] = a[j];
+          a[j--] = t;
+        }
+      }
+
+      // Now a[lo .. j] <= pivot <= a[i .. hi], and everything between
+      // equals pivot:
+      if (k <= j) {
+        hi = j;
+      } else if (k >= i) {
+        lo = i;
+      } else {
+        return pivot;
+      }
+    }
+
+    return a[k];
+  }
+
+  private static long medianOf(long a, long b, long c) {
+    return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+  }
+
+  /**
+   * Computes a larger array length, growing by half again.
+   *
+   * @param length the current length
+   * @return the new length
+   * @throws IllegalStateException if the array can't grow further
+   */
+  private static int grownLength(int length) {
+    if (length == Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("DurationArray is full");
+    }
+    return (int) Math.min((long) length + (length >> 1) + 1,
+                          Integer.MAX_VALUE - 8);
+  }
+
+  private static void checkSeconds(long s) {
+    if (s < 0) {
+      throw new IllegalArgumentException("duration must be non-negative");
+    }
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+    }
+  }
+
+  private void checkNotEmpty() {
+    if (size == 0) {
+      throw new NoSuchElementException("no durations");
+    }
+  }
+}
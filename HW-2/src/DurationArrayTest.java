@@ -0,0 +1,144 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/** Tests for {@link DurationArray}. */
+public class DurationArrayTest {
+  @Test
+  public void testAddAndGet() {
+    DurationArray array = new DurationArray(1);
+    array.add(new WideDuration(0, 1, 0, 0));
+    array.addSeconds(5);
+    array.add(new PackedDuration(7));
+
+    assertEquals(3, array.size());
+    assertEquals(new PackedDuration(3600), array.get(0));
+    assertEquals(5, array.secondsAt(1));
+    assertArrayEquals(new long[] { 3600, 5, 7 }, array.toSecondsArray());
+
+    array.set(1, new PackedDuration(6));
+    assertEquals(6, array.secondsAt(1));
+  }
+
+  @Test
+  public void testBulk() {
+    DurationArray array = DurationArray.ofSeconds(40, 10, 30, 20);
+    assertEquals(new PackedDuration(100), array.sum());
+    assertEquals(new PackedDuration(10), array.min());
+    assertEquals(new PackedDuration(40), array.max());
+    assertEquals(25, array.meanSeconds(), 0);
+    assertArrayEquals(new long[] { 1, 2, 1 }, array.histogram(20, 40));
+  }
+
+  @Test
+  public void testBulkIgnoresSpareCapacity() {
+    DurationArray array = new DurationArray(100);
+    array.addSeconds(10);
+    array.addSeconds(30);
+    assertEquals(20, array.meanSeconds(), 0);
+    assertArrayEquals(new long[] { 0, 2 }, array.histogram(0));
+  }
+
+  @Test
+  public void testEmptySum() {
+    assertEquals(new PackedDuration(0), new DurationArray().sum());
+  }
+
+  @Test
+  public void testPercentile() {
+    DurationArray array = DurationArray.ofSeconds(15, 20, 35, 40, 50);
+    assertEquals(new PackedDuration(15), array.percentile(0));
+    assertEquals(new PackedDuration(20), array.percentile(30));
+    assertEquals(new PackedDuration(20), array.percentile(40));
+    assertEquals(new PackedDuration(35), array.percentile(50));
+    assertEquals(new PackedDuration(50), array.percentile(100));
+
+    // The array itself isn't reordered:
+    assertArrayEquals(new long[] { 15, 20, 35, 40, 50 },
+                      array.toSecondsArray());
+  }
+
+  @Test
+  public void testSharedDurations() {
+    DurationArray array = DurationArray.ofSeconds(40, 15, 50);
+    assertSame(Durations.ofSeconds(15), array.get(1));
+    assertSame(Durations.ofSeconds(15), array.min());
+    assertSame(Durations.ofSeconds(50), array.max());
+    assertSame(Durations.ofSeconds(40), array.percentile(50));
+  }
+
+  @Test
+  public void testPercentileAgainstSort() {
+    Random random = new Random(2);
+
+    for (int n = 1; n < 200; n += 7) {
+      long[] seconds = new long[n];
+      for (int i = 0; i < n; ++i) {
+        seconds[i] = random.nextInt(20);
+      }
+      DurationArray array = DurationArray.ofSeconds(seconds);
+      Arrays.sort(seconds);
+
+      for (int p = 0; p <= 100; p += 5) {
+        int rank = Math.max(1, (int) Math.ceil(p / 100.0 * n));
+        assertEquals(seconds[rank - 1], array.percentile(p).inSeconds());
+      }
+    }
+  }
+
+  /*
+   * Interleaved input like this drives median-of-three quickselect toward
+   * its quadratic case, so percentile falls back to sorting.
+   */
+  @Test
+  public void testPercentileAdversarial() {
+    int n = 100000;
+    int half = n / 2;
+    long[] seconds = new long[n];
+    for (int i = 1; i <= half; ++i) {
+      if (i % 2 == 1) {
+        seconds[i - 1] = i;
+        seconds[i] = half + i;
+      }
+      seconds[half + i - 1] = 2 * i;
+    }
+    DurationArray array = DurationArray.ofSeconds(seconds);
+    Arrays.sort(seconds);
+
+    for (int p = 0; p <= 100; p += 25) {
+      int rank = Math.max(1, (int) Math.ceil(p / 100.0 * n));
+      assertEquals(seconds[rank - 1], array.percentile(p).inSeconds());
+    }
+  }
+
+  @Test (expected = RuntimeException.class)
+  public void testSumOverflow() {
+    DurationArray.ofSeconds(Long.MAX_VALUE, 1).sum();
+  }
+
+  @Test (expected = NoSuchElementException.class)
+  public void testEmptyMin() {
+    new DurationArray().min();
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegative() {
+    new DurationArray().addSeconds(-1);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadPercentile() {
+    DurationArray.ofSeconds(1).percentile(101);
+  }
+
+  @Test (expected = IndexOutOfBoundsException.class)
+  public void testBadIndex() {
+    DurationArray.ofSeconds(1).get(1);
+  }
+}
@@ -0,0 +1,88 @@
+import java.util.Random;
+
+/**
+ * Compares {@link Duration#format(String)} with a precompiled
+ * {@link DurationFormatter}. Run it with {@code java
+ * DurationFormatBenchmark}; each line reports the mean time per formatted
+ * duration for one template.
+ *
+ * <p>Three ways of formatting are measured: {@code format(String)}, which
+ * reparses the template and concatenates strings; the formatter's
+ * {@code format}, which returns a fresh string; and its {@code appendTo}
+ * into one reused {@code StringBuilder}, as a logger would use it.
+ */
+public final class DurationFormatBenchmark {
+  private static final String[] TEMPLATES = {
+      "%d %H:%M:%S",
+      "%h:%M:%S",
+      "%d days, %h hours, %m minutes, and %s seconds",
+  };
+  private static final int DURATIONS = 1 << 12;
+  private static final int ROUNDS    = 500;
+
+  private DurationFormatBenchmark() { }
+
+  public static void main(String[] args) {
+    Random random = new Random(16);
+    Duration[] durations = new Duration[DURATIONS];
+    for (int i = 0; i < DURATIONS; ++i) {
+      durations[i] = new PackedDuration(random.nextInt(10 * 86400));
+    }
+
+    for (String template : TEMPLATES) {
+      DurationFormatter formatter = DurationFormatter.compile(template);
+      StringBuilder     buffer    = new StringBuilder();
+
+      double concat = time(durations, d -> d.format(template).length());
+      double string = time(durations, d -> formatter.format(d).length());
+      double append = time(durations, d -> {
+        buffer.setLength(0);
+        return formatter.appendTo(buffer, d).length();
+      });
+
+      System.out.printf("%-48s format(String) %7.1f ns, "
+                            + "formatter %6.1f ns, appendTo %6.1f ns%n",
+                        '"' + template + '"', concat, string, append);
+    }
+  }
+
+  /**
+   * Formats with one method.
+   */
+  private interface Method {
+    /**
+     * Formats a duration.
+     *
+     * @param d the duration
+     * @return the length of the result, to keep the work from being
+     *   optimized away
+     */
+    int run(Duration d);
+  }
+
+  /**
+   * Times a method over all the durations, warming up first and keeping
+   * the fastest of several rounds.
+   *
+   * @param durations the durations
+   * @param method the method
+   * @return nanoseconds per duration
+   */
+  private static double time(Duration[] durations, Method method) {
+    long best = Long.MAX_VALUE;
+    long sink = 0;
+
+    for (int round = 0; round < ROUNDS; ++round) {
+      long start = System.nanoTime();
+      for (Duration d : durations) {
+        sink += method.run(d);
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+
+    if (sink == 42) {
+      System.out.println();
+    }
+    return (double) best / durations.length;
+  }
+}
@@ -0,0 +1,273 @@
+import java.io.IOException;
+
+/**
+ * A duration template compiled once for formatting many durations. The
+ * template language is that of {@link Duration#format(String)}, and
+ * {@code DurationFormatter.compile(template).format(d)} returns the same
+ * string as {@code d.format(template)}.
+ *
+ * <p>Compiling splits the template into literal text and specifiers, so
+ * formatting doesn't rescan it. The {@code appendTo} methods write straight
+ * into a caller's {@link StringBuilder} or {@link Appendable}, creating no
+ * intermediate strings, so a logger can reuse one buffer for every line.
+ *
+ * <p>Instances are immutable and may be shared between threads.
+ */
+public final class DurationFormatter {
+  // The template this was compiled from:
+  private final String template;
+
+  // The specifier letter of each segment, or LITERAL:
+  private final char[] codes;
+
+  // The text of each literal segment, or null for specifiers:
+  private final String[] literals;
+
+  // The code of a literal segment:
+  static final char LITERAL = 0;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - codes.length == literals.length
+   *  - for each i, codes[i] == LITERAL iff literals[i] != null, and
+   *    otherwise codes[i] is one of "tdhHmMsSLfN"
+   *  - no two literal segments are adjacent, and none is empty
+   */
+
+  private DurationFormatter(String template, char[] codes,
+                            String[] literals) {
+    this.template = template;
+    this.codes    = codes;
+    this.literals = literals;
+  }
+
+  /**
+   * Compiles a template. As in {@link Duration#format(String)}, {@code %%}
+   * stands for a literal percent sign, and a {@code %} followed by any
+   * character that isn't a specifier stands for nothing.
+   *
+   * @param template the template
+   * @return the formatter
+   * @throws IllegalArgumentException if {@code template} ends with an
+   *   unpaired {@code %}
+   */
+  public static DurationFormatter compile(String template) {
+    int      n        = template.length();
+    char[]   codes    = new char[n];
+    String[] literals = new String[n];
+    int      count    = 0;
+
+    StringBuilder text = new StringBuilder();
+
+    for (int i = 0; i < n; ++i) {
+      char c = template.charAt(i);
+      if (c != '%') {
+        text.append(c);
+        continue;
+      }
+
+      if (++i == n) {
+        throw new IllegalArgumentException("template ends with %");
+      }
+
+      char code = template.charAt(i);
+      if (code == '%') {
+        text.append('%');
+      } else if ("tdhHmMsSLfN".indexOf(code) >= 0) {
+        if (text.length() > 0) {
+          literals[count++] = text.toString();
+          text.setLength(0);
+        }
+        codes[count++] = code;
+      }
+    }
+
+    if (text.length() > 0) {
+      literals[count++] = text.toString();
+    }
+
+    char[]   trimmedCodes    = new char[count];
+    String[] trimmedLiterals = new String[count];
+    System.arraycopy(codes, 0, trimmedCodes, 0, count);
+    System.arraycopy(literals, 0, trimmedLiterals, 0, count);
+    return new DurationFormatter(template, trimmedCodes, trimmedLiterals);
+  }
+
+  /**
+   * Formats a duration.
+   *
+   * @param duration the duration
+   * @return the formatted string
+   */
+  public String format(Duration duration) {
+    return appendTo(new StringBuilder(template.length() + 16), duration)
+        .toString();
+  }
+
+  /**
+   * Formats a duration onto the end of a {@code StringBuilder}.
+   *
+   * @param out the builder to append to
+   * @param duration the duration
+   * @return {@code out}
+   */
+  public StringBuilder appendTo(StringBuilder out, Duration duration) {
+    try {
+      for (int i = 0; i < codes.length; ++i) {
+        switch (codes[i]) {
+          case LITERAL: out.append(literals[i]); break;
+          case 't': out.append(duration.inSeconds()); break;
+          case 'd': out.append(duration.getDaysComponent()); break;
+          case 'h': out.append(duration.getHoursComponent()); break;
+          case 'H': appendPadded(out, duration.getHoursComponent()); break;
+          case 'm': out.append(duration.getMinutesComponent()); break;
+          case 'M': appendPadded(out, duration.getMinutesComponent()); break;
+          case 's': out.append(duration.getSecondsComponent()); break;
+          case 'S': appendPadded(out, duration.getSecondsComponent()); break;
+          case 'L': appendFraction(out, duration, 3); break;
+          case 'f': appendFraction(out, duration, 6); break;
+          case 'N': appendFraction(out, duration, 9); break;
+          default: throw new AssertionError(codes[i]);
+        }
+      }
+    } catch (IOException e) {
+      // The helpers take any Appendable, but a StringBuilder never throws:
+      throw new AssertionError(e);
+    }
+
+    return out;
+  }
+
+  /**
+   * Formats a duration onto the end of any {@code Appendable}, such as a
+   * {@code Writer}, without creating a string for it first.
+   *
+   * @param out the destination
+   * @param duration the duration
+   * @param <A> the type of the destination
+   * @return {@code out}
+   * @throws IOException if {@code out} does
+   */
+  public <A extends Appendable> A appendTo(A out, Duration duration)
+      throws IOException
+  {
+    if (out instanceof StringBuilder) {
+      appendTo((StringBuilder) out, duration);
+      return out;
+    }
+
+    for (int i = 0; i < codes.length; ++i) {
+      switch (codes[i]) {
+        case LITERAL: out.append(literals[i]); break;
+        case 't': appendDigits(out, duration.inSeconds()); break;
+        case 'd': appendDigits(out, duration.getDaysComponent()); break;
+        case 'h': appendDigits(out, duration.getHoursComponent()); break;
+        case 'H': appendPadded(out, duration.getHoursComponent()); break;
+        case 'm': appendDigits(out, duration.getMinutesComponent()); break;
+        case 'M': appendPadded(out, duration.getMinutesComponent()); break;
+        case 's': appendDigits(out, duration.getSecondsComponent()); break;
+        case 'S': appendPadded(out, duration.getSecondsComponent()); break;
+        case 'L': appendFraction(out, duration, 3); break;
+        case 'f': appendFraction(out, duration, 6); break;
+        case 'N': appendFraction(out, duration, 9); break;
+        default: throw new AssertionError(codes[i]);
+      }
+    }
+
+    return out;
+  }
+
+  /**
+   * Returns a copy of the specifier letter of each segment, or
+   * {@link #LITERAL} for a literal segment. {@link DurationParser} compiles
+   * its templates through this class and reads them back this way.
+   *
+   * @return the codes
+   */
+  char[] codes() {
+    return codes.clone();
+  }
+
+  /**
+   * Returns a copy of the text of each literal segment, with {@code null}
+   * for each specifier.
+   *
+   * @return the literals
+   */
+  String[] literals() {
+    return literals.clone();
+  }
+
+  /**
+   * Returns the template this was compiled from.
+   *
+   * @return the template
+   */
+  @Override
+  public String toString() {
+    return template;
+  }
+
+  /**
+   * Appends a component padded to two digits with a leading zero, exactly
+   * as {@link AbstractDuration#codeReplacer(char)} does.
+   *
+   * @param out the destination
+   * @param component the component
+   * @throws IOException if {@code out} does
+   */
+  private static void appendPadded(Appendable out, int component)
+      throws IOException
+  {
+    if (component < 10) {
+      out.append('0');
+    }
+    appendDigits(out, component);
+  }
+
+  /**
+   * Appends the fraction of a second of a duration, truncated and padded
+   * to {@code digits} digits with leading zeros.
+   *
+   * @param out the destination
+   * @param duration the duration
+   * @param digits the number of digits (1 .. 9)
+   * @throws IOException if {@code out} does
+   */
+  private static void appendFraction(Appendable out, Duration duration,
+                                     int digits)
+      throws IOException
+  {
+    int nanos = duration.getNanosComponent();
+    for (int power = 100000000, i = 0; i < digits; power /= 10, ++i) {
+      out.append((char) ('0' + nanos / power % 10));
+    }
+  }
+
+  /**
+   * Appends a number in decimal, most significant digit first, one
+   * character at a time.
+   *
+   * @param out the destination
+   * @param value the number (not {@code Long.MIN_VALUE})
+   * @throws IOException if {@code out} does
+   */
+  private static void appendDigits(Appendable out, long value)
+      throws IOException
+  {
+    if (value < 0) {
+      out.append('-');
+      value = -value;
+    }
+
+    long power = 1;
+    while (power <= value / 10) {
+      power *= 10;
+    }
+
+    for (; power > 0; power /= 10) {
+      out.append((char) ('0' + value / power % 10));
+    }
+  }
+}
@@ -0,0 +1,71 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/** Tests for {@link DurationFormatter}. */
+public class DurationFormatterTest {
+  static final String[] TEMPLATES = {
+      "", "%t", "%d %H:%M:%S", "%h:%M:%S", "%%t is %t%%",
+      "%d days, %h hours, %m minutes, and %s seconds", "%x%d%q", "%%%%",
+      "no specifiers", "%t.%N", "%H:%M:%S.%L", "%s.%f",
+  };
+
+  @Test
+  public void testExamples() {
+    assertEquals("10 seconds",
+                 DurationFormatter.compile("%s seconds")
+                     .format(new PackedDuration(10)));
+    assertEquals("4:05:17",
+                 DurationFormatter.compile("%h:%M:%S")
+                     .format(new WideDuration(0, 4, 5, 17)));
+    assertEquals("%t", DurationFormatter.compile("%%t")
+                           .format(new PackedDuration(3)));
+  }
+
+  @Test
+  public void testAgreesWithFormat() throws IOException {
+    Random random = new Random(16);
+
+    for (String template : TEMPLATES) {
+      DurationFormatter formatter = DurationFormatter.compile(template);
+      assertEquals(template, formatter.toString());
+
+      for (int i = 0; i < 200; ++i) {
+        long seconds = i < 100 ? random.nextInt(200000)
+                               : random.nextLong() >>> 1;
+        Duration packed = new PackedDuration(seconds);
+        Duration wide   = new WideDuration(seconds);
+        Duration nano   = new NanoDuration(random.nextLong() >>> 1);
+
+        assertEquals(packed.format(template), formatter.format(packed));
+        assertEquals(wide.format(template), formatter.format(wide));
+        assertEquals(nano.format(template), formatter.format(nano));
+        assertEquals(nano.format(template),
+                     formatter.appendTo(new StringWriter(), nano)
+                              .toString());
+        assertEquals(packed.format(template),
+                     formatter.appendTo(new StringWriter(), packed)
+                              .toString());
+      }
+    }
+  }
+
+  @Test
+  public void testAppendTo() throws IOException {
+    DurationFormatter formatter = DurationFormatter.compile("[%H:%M]");
+    StringBuilder out = new StringBuilder("x");
+    assertSame(out, formatter.appendTo(out, new PackedDuration(3660)));
+    formatter.appendTo((Appendable) out, new PackedDuration(60));
+    assertEquals("x[01:01][00:01]", out.toString());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testTrailingPercent() {
+    DurationFormatter.compile("100%");
+  }
+}
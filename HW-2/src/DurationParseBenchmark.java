@@ -0,0 +1,80 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures how fast {@link DurationParser#parseLines} reads a file of
+ * formatted durations. Run it with {@code java DurationParseBenchmark
+ * [LINES]}; it writes a temporary file of {@code LINES} durations (eight
+ * million by default, about 100 MB) in the {@code "%d %H:%M:%S"} format,
+ * then reports the throughput of {@code parseLines} and, for comparison, of
+ * reading lines with a {@code BufferedReader} and parsing each string.
+ *
+ * <p>The file is read once before timing, so both runs come from the page
+ * cache and the numbers show the parsing cost rather than the disk's.
+ */
+public final class DurationParseBenchmark {
+  private static final String TEMPLATE = "%d %H:%M:%S";
+  private static final int    ROUNDS   = 3;
+
+  private DurationParseBenchmark() { }
+
+  public static void main(String[] args) throws IOException {
+    int lines = args.length > 0 ? Integer.parseInt(args[0]) : 8_000_000;
+
+    DurationFormatter formatter = DurationFormatter.compile(TEMPLATE);
+    DurationParser    parser    = DurationParser.compile(TEMPLATE);
+
+    Path file = Files.createTempFile("durations", ".txt");
+    try {
+      Random random = new Random(17);
+      try (BufferedWriter out =
+               Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < lines; ++i) {
+          line.setLength(0);
+          formatter.appendTo(line, new PackedDuration(random.nextInt(1 << 24)));
+          out.append(line).append('\n');
+        }
+      }
+
+      long   bytes = Files.size(file);
+      long[] sum   = new long[1];
+
+      for (int round = 0; round < ROUNDS; ++round) {
+        sum[0] = 0;
+        long start = System.nanoTime();
+        parser.parseLines(file, s -> sum[0] += s);
+        report("parseLines", bytes, lines, System.nanoTime() - start);
+
+        long check = sum[0];
+        sum[0] = 0;
+        start = System.nanoTime();
+        try (BufferedReader in =
+                 Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+          String text;
+          while ((text = in.readLine()) != null) {
+            sum[0] += parser.parseSeconds(text);
+          }
+        }
+        report("BufferedReader", bytes, lines, System.nanoTime() - start);
+
+        if (check != sum[0]) {
+          throw new AssertionError("sums differ");
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static void report(String name, long bytes, int lines,
+                             long nanos) {
+    System.out.printf("%-16s %8.1f MB/s %8.1f ns/line%n", name,
+                      bytes / 1e6 / (nanos / 1e9), (double) nanos / lines);
+  }
+}
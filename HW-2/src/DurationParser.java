@@ -0,0 +1,481 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * The inverse of {@link DurationFormatter}: a template compiled once for
+ * reading many durations back out of text.
+ *
+ * <p>The template language is that of {@link Duration#format(String)}.
+ * Literal text must match exactly. The unpadded specifiers ({@code %t},
+ * {@code %d}, {@code %h}, {@code %m} and {@code %s}) read one or more
+ * digits, as many as there are; the padded ones ({@code %H}, {@code %M} and
+ * {@code %S}) read exactly two, and the fractional ones ({@code %L},
+ * {@code %f} and {@code %N}) exactly three, six and nine. If the template
+ * has a {@code %t}, that is the whole seconds of the duration; otherwise
+ * they are the sum of the components read, so that, for example,
+ * {@code "%h:%M:%S"} reads {@code "49:00:00"} as two days and one hour.
+ * The fraction of a second is likewise the sum of the fractional
+ * components.
+ *
+ * <p>If the template has a fractional specifier, {@link #parse} returns a
+ * {@link NanoDuration}, and otherwise a {@link PackedDuration}.
+ * {@link #parseSeconds(CharSequence)} drops any fraction, and
+ * {@link #parseNanos(CharSequence)} keeps it.
+ *
+ * <p>Thus {@code parse(d.format(template))} equals {@code d} whenever the
+ * template determines the duration: it has {@code %t}, or it has
+ * {@code %d} together with the hours, minutes and seconds. An unpadded
+ * specifier leaves enough digits for any padded ones right after it, so
+ * even {@code "%d%H%M%S"} reads back, but one followed by literal digits
+ * can't be read back unambiguously.
+ *
+ * <p>Parsing creates no objects except for its result, if that's a
+ * {@code Duration}, and for the message of an exception.
+ * {@link #parseSeconds(CharSequence)} returns a primitive, and
+ * {@link #parseLines(Path, LongConsumer)} streams a file through a single
+ * reused heap buffer into a primitive sink such as
+ * {@code DurationArray::addSeconds}. Instances are immutable and may be
+ * shared between threads.
+ */
+public final class DurationParser {
+  // The size of the buffer for parseLines:
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  // The compiled template:
+  private final DurationFormatter template;
+
+  // The template's segments, as DurationFormatter#codes() and #literals()
+  // return them:
+  private final char[]   codes;
+  private final String[] literals;
+
+  // For each unpadded specifier, the number of digits that the fixed-width
+  // specifiers right after it will need:
+  private final int[] reserve;
+
+  // Whether the template has a fractional specifier:
+  private final boolean fractional;
+
+  private DurationParser(DurationFormatter template) {
+    this.template = template;
+    codes         = template.codes();
+    literals      = template.literals();
+
+    reserve = new int[codes.length];
+    for (int i = codes.length - 2; i >= 0; --i) {
+      if (width(codes[i + 1]) > 0) {
+        reserve[i] = reserve[i + 1] + width(codes[i + 1]);
+      }
+    }
+
+    boolean found = false;
+    for (char code : codes) {
+      found |= code == 'L' || code == 'f' || code == 'N';
+    }
+    fractional = found;
+  }
+
+  /**
+   * Compiles a template.
+   *
+   * @param template the template
+   * @return the parser
+   * @throws IllegalArgumentException if {@code template} ends with an
+   *   unpaired {@code %}
+   */
+  public static DurationParser compile(String template) {
+    return new DurationParser(DurationFormatter.compile(template));
+  }
+
+  /**
+   * Parses a duration.
+   *
+   * @param text the text, all of which must match the template
+   * @return the duration
+   * @throws IllegalArgumentException if {@code text} doesn't match or is
+   *   too long a duration to represent
+   */
+  public Duration parse(CharSequence text) {
+    if (fractional) {
+      return new NanoDuration(parseNanos(text));
+    }
+    return new PackedDuration(parseSeconds(text));
+  }
+
+  /**
+   * Parses a duration as a number of seconds.
+   *
+   * @param text the text, all of which must match the template
+   * @return the length of the duration in seconds
+   * @throws IllegalArgumentException if {@code text} doesn't match or is
+   *   too long a duration to represent
+   */
+  public long parseSeconds(CharSequence text) {
+    return parseSeconds(text, 0, text.length());
+  }
+
+  /**
+   * Parses a duration from part of a character sequence.
+   *
+   * @param text the text
+   * @param start the index of the first character to parse
+   * @param end the index after the last character to parse
+   * @return the length of the duration in seconds
+   * @throws IllegalArgumentException if {@code text[start .. end)}
+   *   doesn't match or is too long a duration to represent
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  public long parseSeconds(CharSequence text, int start, int end) {
+    if (start < 0 || start > end || end > text.length()) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    return parse(text, start, end, false);
+  }
+
+  /**
+   * Parses a duration as a number of nanoseconds, keeping any fraction of
+   * a second.
+   *
+   * @param text the text, all of which must match the template
+   * @return the length of the duration in nanoseconds
+   * @throws IllegalArgumentException if {@code text} doesn't match or is
+   *   too long a duration to represent in nanoseconds
+   */
+  public long parseNanos(CharSequence text) {
+    return parse(text, 0, text.length(), true);
+  }
+
+  /**
+   * Parses a duration from the remaining bytes of a buffer, which are read
+   * as ASCII. The buffer's position is advanced to its limit.
+   *
+   * @param buffer the buffer, all of whose remaining bytes must match
+   * @return the length of the duration in seconds
+   * @throws IllegalArgumentException if the bytes don't match or are too
+   *   long a duration to represent
+   */
+  public long parseSeconds(ByteBuffer buffer) {
+    long result = parse(new AsciiView(buffer), buffer.position(),
+                        buffer.limit(), false);
+    buffer.position(buffer.limit());
+    return result;
+  }
+
+  /**
+   * Parses a file with one duration per line, passing each to
+   * {@code sink} in seconds. Lines may end with {@code "\n"} or
+   * {@code "\r\n"}, and blank lines are skipped. The file is read through
+   * a single reused heap buffer, so the only limit on its size is the time
+   * it takes.
+   *
+   * @param file the file to read
+   * @param sink receives each duration in seconds
+   * @return the number of durations read
+   * @throws IOException if reading fails, or a line is longer than the
+   *   buffer
+   * @throws IllegalArgumentException if a line doesn't match; the message
+   *   gives its line number
+   */
+  public long parseLines(Path file, LongConsumer sink) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    AsciiView  view   = new AsciiView(buffer);
+    long       lines  = 0;
+    long       count  = 0;
+
+    try (FileChannel channel = FileChannel.open(file,
+                                                StandardOpenOption.READ)) {
+      boolean eof = false;
+
+      while (!eof) {
+        eof = channel.read(buffer) < 0;
+        buffer.flip();
+
+        int start = 0;
+        int limit = buffer.limit();
+
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < limit; ++i) {
+          if (bytes[i] == '\n') {
+            ++lines;
+            count += parseLine(view, start, i, lines, sink);
+            start = i + 1;
+          }
+        }
+
+        if (eof) {
+          if (start < limit) {
+            ++lines;
+            count += parseLine(view, start, limit, lines, sink);
+          }
+        } else {
+          if (start == 0 && limit == buffer.capacity()) {
+            throw new IOException("line " + (lines + 1) + " is too long");
+          }
+          buffer.position(start);
+          buffer.compact();
+        }
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Parses one line for {@link #parseLines}, unless it's blank.
+   *
+   * @param view the text
+   * @param start the index of the line's first character
+   * @param end the index of its newline, or of the end of the text
+   * @param line the line number, for error messages
+   * @param sink receives the duration
+   * @return the number of durations parsed, 0 or 1
+   */
+  private int parseLine(CharSequence view, int start, int end, long line,
+                        LongConsumer sink) {
+    if (end > start && view.charAt(end - 1) == '\r') {
+      --end;
+    }
+    if (end == start) {
+      return 0;
+    }
+
+    long seconds;
+    try {
+      seconds = parse(view, start, end, false);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("line " + line + ": "
+                                             + e.getMessage(), e);
+    }
+
+    sink.accept(seconds);
+    return 1;
+  }
+
+  /**
+   * Returns the template this was compiled from.
+   *
+   * @return the template
+   */
+  @Override
+  public String toString() {
+    return template.toString();
+  }
+
+  /**
+   * Does the work of parsing {@code text[start .. end)}.
+   *
+   * @param text the text
+   * @param start the index of the first character to parse
+   * @param end the index after the last character to parse
+   * @param nanos whether to return nanoseconds rather than seconds
+   * @return the length of the duration in seconds or nanoseconds
+   * @throws IllegalArgumentException if the text doesn't match
+   */
+  private long parse(CharSequence text, int start, int end, boolean nanos) {
+    int  pos      = start;
+    long total    = -1;
+    long sum      = 0;
+    long fraction = 0;
+
+    try {
+      for (int i = 0; i < codes.length; ++i) {
+        char code = codes[i];
+
+        if (code == DurationFormatter.LITERAL) {
+          String literal = literals[i];
+          int    n       = literal.length();
+          if (end - pos < n) {
+            throw fail(text, start, end);
+          }
+          for (int j = 0; j < n; ++j) {
+            if (text.charAt(pos + j) != literal.charAt(j)) {
+              throw fail(text, start, end);
+            }
+          }
+          pos += n;
+          continue;
+        }
+
+        long value;
+        int  width = width(code);
+        if (width > 0) {
+          if (end - pos < width) {
+            throw fail(text, start, end);
+          }
+          value = 0;
+          for (int stop = pos + width; pos < stop; ++pos) {
+            value = 10 * value + digit(text, pos, start, end);
+          }
+        } else {
+          int stop = pos;
+          while (stop < end && isDigit(text.charAt(stop))) {
+            ++stop;
+          }
+          stop -= reserve[i];
+          if (stop <= pos) {
+            throw fail(text, start, end);
+          }
+
+          value = 0;
+          for (; pos < stop; ++pos) {
+            value = Math.addExact(Math.multiplyExact(value, 10),
+                                  text.charAt(pos) - '0');
+          }
+        }
+
+        switch (code) {
+          case 't':
+            total = value;
+            break;
+          case 'd':
+            sum = Math.addExact(sum, Math.multiplyExact(
+                value, (long) AbstractDuration.SECS_IN_DAY));
+            break;
+          case 'h': case 'H':
+            sum = Math.addExact(sum, Math.multiplyExact(value, 3600L));
+            break;
+          case 'm': case 'M':
+            sum = Math.addExact(sum, Math.multiplyExact(value, 60L));
+            break;
+          case 'L':
+            fraction += value * 1000000;
+            break;
+          case 'f':
+            fraction += value * 1000;
+            break;
+          case 'N':
+            fraction += value;
+            break;
+          default:
+            sum = Math.addExact(sum, value);
+            break;
+        }
+      }
+
+      if (pos != end) {
+        throw fail(text, start, end);
+      }
+
+      long seconds = total >= 0 ? total : sum;
+      if (!nanos) {
+        return Math.addExact(seconds, fraction / NanoDuration.NANOS_IN_SEC);
+      }
+      return Math.addExact(Math.multiplyExact(seconds,
+                                              NanoDuration.NANOS_IN_SEC),
+                           fraction);
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException(
+          "duration too long: \"" + text.subSequence(start, end) + '"');
+    }
+  }
+
+  /**
+   * Returns the number of digits a fixed-width specifier reads.
+   *
+   * @param code the specifier letter
+   * @return the width, or 0 if {@code code} reads any number of digits
+   */
+  private static int width(char code) {
+    switch (code) {
+      case 'H': case 'M': case 'S': return 2;
+      case 'L': return 3;
+      case 'f': return 6;
+      case 'N': return 9;
+      default: return 0;
+    }
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Reads one required digit.
+   *
+   * @param text the text
+   * @param pos the index of the digit
+   * @param start the start of the text being parsed, for the error message
+   * @param end the end of the text being parsed, for the error message
+   * @return the digit's value
+   * @throws IllegalArgumentException if it isn't a digit
+   */
+  private int digit(CharSequence text, int pos, int start, int end) {
+    char c = text.charAt(pos);
+    if (!isDigit(c)) {
+      throw fail(text, start, end);
+    }
+    return c - '0';
+  }
+
+  /**
+   * Makes the exception for text that doesn't match.
+   *
+   * @param text the text
+   * @param start the start of the text being parsed
+   * @param end the end of the text being parsed
+   * @return the exception
+   */
+  private IllegalArgumentException fail(CharSequence text, int start,
+                                        int end) {
+    return new IllegalArgumentException(
+        "\"" + text.subSequence(start, end) + "\" doesn't match \""
+            + template + '"');
+  }
+
+  /**
+   * Presents the bytes of a buffer, up to its limit, as ASCII characters,
+   * so that bytes can be parsed without decoding them into a string first.
+   */
+  private static final class AsciiView implements CharSequence {
+    private final ByteBuffer buffer;
+
+    // The buffer's backing array, or null if it has none:
+    private final byte[] array;
+
+    // The index in array of the buffer's first byte:
+    private final int offset;
+
+    AsciiView(ByteBuffer buffer) {
+      this.buffer = buffer;
+      if (buffer.hasArray()) {
+        array  = buffer.array();
+        offset = buffer.arrayOffset();
+      } else {
+        array  = null;
+        offset = 0;
+      }
+    }
+
+    @Override
+    public int length() {
+      return buffer.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (array != null) {
+        return (char) (array[offset + index] & 0xFF);
+      }
+      return (char) (buffer.get(index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      StringBuilder result = new StringBuilder(end - start);
+      for (int i = start; i < end; ++i) {
+        result.append(charAt(i));
+      }
+      return result.toString();
+    }
+
+    @Override
+    public String toString() {
+      return subSequence(0, length()).toString();
+    }
+  }
+}
@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link DurationParser}. */
+public class DurationParserTest {
+  // Templates that determine the whole duration:
+  static final String[] TEMPLATES = {
+      "%t", "%d %H:%M:%S", "%d:%h:%m:%s", "%%t is %t%%",
+      "%d days, %h hours, %m minutes, and %s seconds", "%d%H%M%S",
+      "(%t = %dd %Hh %Mm %Ss)",
+  };
+
+  @Test
+  public void testExamples() {
+    assertEquals(new PackedDuration(10),
+                 DurationParser.compile("%s seconds").parse("10 seconds"));
+    assertEquals(new WideDuration(0, 4, 5, 17),
+                 DurationParser.compile("%h:%M:%S").parse("4:05:17"));
+    assertEquals(new WideDuration(2, 1, 0, 0),
+                 DurationParser.compile("%h:%M:%S").parse("49:00:00"));
+    assertEquals(86400 + 3661,
+                 DurationParser.compile("%d %H:%M:%S")
+                     .parseSeconds("1 01:01:01"));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    Random random = new Random(17);
+
+    for (String template : TEMPLATES) {
+      DurationFormatter formatter = DurationFormatter.compile(template);
+      DurationParser    parser    = DurationParser.compile(template);
+
+      for (int i = 0; i < 500; ++i) {
+        long seconds = i < 250 ? random.nextInt(1000000)
+                               : random.nextInt() & 0x7FFFFFFFL;
+        Duration duration = new PackedDuration(seconds);
+        assertEquals(duration, parser.parse(duration.format(template)));
+        assertEquals(seconds,
+                     parser.parseSeconds(formatter.format(duration)));
+      }
+    }
+  }
+
+  @Test
+  public void testFraction() {
+    DurationParser parser = DurationParser.compile("%h:%M:%S.%L");
+    assertEquals(new NanoDuration(3723, 45000000), parser.parse("1:02:03.045"));
+    assertEquals(3723, parser.parseSeconds("1:02:03.999"));
+    assertEquals(3723999000000L, parser.parseNanos("1:02:03.999"));
+
+    // Fixed widths are reserved after an unpadded specifier:
+    assertEquals(new NanoDuration(12, 345678000),
+                 DurationParser.compile("%t%f").parse("12345678"));
+  }
+
+  @Test
+  public void testFractionRoundTrip() {
+    Random random = new Random(20);
+
+    for (String template : new String[] { "%t.%N", "%d %H:%M:%S.%N" }) {
+      DurationParser parser = DurationParser.compile(template);
+
+      for (int i = 0; i < 500; ++i) {
+        NanoDuration duration = new NanoDuration(random.nextLong() >>> 1);
+        assertEquals(duration, parser.parse(duration.format(template)));
+        assertEquals(duration.inNanos(),
+                     parser.parseNanos(duration.format(template)));
+      }
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testFractionTooShort() {
+    DurationParser.compile("%t.%L").parse("1.05");
+  }
+
+  @Test
+  public void testRange() {
+    DurationParser parser = DurationParser.compile("%s");
+    assertEquals(12, parser.parseSeconds("a 12 b", 2, 4));
+  }
+
+  @Test
+  public void testByteBuffer() {
+    DurationParser parser = DurationParser.compile("%d %H:%M:%S");
+    ByteBuffer buffer =
+        ByteBuffer.wrap("xx2 00:00:05".getBytes(StandardCharsets.US_ASCII));
+    buffer.position(2);
+    assertEquals(2 * 86400 + 5, parser.parseSeconds(buffer));
+    assertEquals(buffer.limit(), buffer.position());
+  }
+
+  @Test
+  public void testParseLines() throws IOException {
+    Path file = Files.createTempFile("durations", ".txt");
+    try {
+      Files.write(file, "0:00:10\r\n\n1:00:00\n0:01:00"
+                            .getBytes(StandardCharsets.US_ASCII));
+      DurationArray sink = new DurationArray();
+      assertEquals(3, DurationParser.compile("%h:%M:%S")
+                          .parseLines(file, sink::addSeconds));
+      assertArrayEquals(new long[] { 10, 3600, 60 }, sink.toSecondsArray());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testParseLinesAcrossBuffers() throws IOException {
+    Path file = Files.createTempFile("durations", ".txt");
+    try {
+      StringBuilder text = new StringBuilder();
+      for (int i = 0; i < 300000; ++i) {
+        text.append(i).append('\n');
+      }
+      Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+
+      long[] sum = new long[1];
+      assertEquals(300000, DurationParser.compile("%t")
+                               .parseLines(file, s -> sum[0] += s));
+      assertEquals(299999L * 300000 / 2, sum[0]);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testParseLinesError() throws IOException {
+    Path file = Files.createTempFile("durations", ".txt");
+    try {
+      Files.write(file, "1\n2\nthree\n".getBytes(StandardCharsets.US_ASCII));
+      DurationParser.compile("%t").parseLines(file, s -> { });
+      assertTrue(false);
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("line 3: "));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testWrongLiteral() {
+    DurationParser.compile("%h:%M").parse("4-05");
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testMissingDigits() {
+    DurationParser.compile("%h:%M").parse(":05");
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testShortPadded() {
+    DurationParser.compile("%h:%M").parse("4:5");
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testTrailingText() {
+    DurationParser.compile("%t").parse("12s");
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testOverflow() {
+    DurationParser.compile("%d").parse("999999999999999999");
+  }
+}
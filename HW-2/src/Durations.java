@@ -0,0 +1,448 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Static factory methods for durations that share instances where they
+ * can, and bulk arithmetic over many durations at once.
+ *
+ * <p>Durations are immutable, so equal ones are interchangeable. Most
+ * durations in practice are shorter than a day, and arithmetic on them
+ * tends to produce the same few thousand values over and over. The
+ * factories here return a shared instance for every length from zero
+ * through one day, creating each the first time it is asked for, and a new
+ * one beyond that. {@link PackedDuration} and {@link WideDuration} make
+ * the results of {@code plus} and {@code minus} through these, so
+ * arithmetic on short durations allocates nothing once the cache is warm.
+ *
+ * <p>Sharing is a saving, not a guarantee: two threads that ask for the
+ * same length at the same moment may get different (but equal) instances,
+ * so compare durations with {@code equals}, never {@code ==}.
+ *
+ * <p>The bulk operations ({@code sum}, {@code mean} and {@code histogram})
+ * take either durations or their lengths in seconds, and work on the
+ * seconds without creating intermediate durations. Given durations, they
+ * also count any fraction of a second, so that summing
+ * {@link NanoDuration}s agrees with adding them up one by one. Inputs of at least
+ * {@value #PARALLEL_THRESHOLD} elements (collections and arrays, not other
+ * iterables) are split across the common fork/join pool. Sums detect
+ * overflow exactly as {@link Duration#plus(Duration)} does, throwing a
+ * {@code RuntimeException} with the message "Duration overflow".
+ */
+public final class Durations {
+  /** The number of elements at which bulk operations go parallel. */
+  public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  // The indices of the totals that total() returns:
+  private static final int SECONDS = 0;
+  private static final int NANOS   = 1;
+  private static final int COUNT   = 2;
+
+  // The longest duration cached, in seconds:
+  private static final int CACHE_LIMIT = AbstractDuration.SECS_IN_DAY;
+
+  // Shared PackedDurations, by length in seconds, or null if not yet made:
+  private static final PackedDuration[] PACKED =
+      new PackedDuration[CACHE_LIMIT + 1];
+
+  // Shared WideDurations, likewise:
+  private static final WideDuration[] WIDE = new WideDuration[CACHE_LIMIT + 1];
+
+  private Durations() { }
+
+  /*
+   * REPRESENTATION NOTE:
+   *
+   * The caches are filled lazily and without locking. That's safe because
+   * both duration classes have only final fields, so a thread that sees a
+   * reference to one also sees it fully constructed; the worst a race can
+   * do is create a duplicate, which then simply isn't shared.
+   */
+
+  /**
+   * Returns a {@link PackedDuration} of the given length, shared if the
+   * length is at most one day.
+   *
+   * @param seconds the length in seconds (non-negative)
+   * @return the duration
+   * @throws IllegalArgumentException {@code seconds} is negative
+   */
+  public static PackedDuration ofSeconds(long seconds) {
+    if (seconds < 0 || seconds > CACHE_LIMIT) {
+      return new PackedDuration(seconds);
+    }
+
+    PackedDuration result = PACKED[(int) seconds];
+    if (result == null) {
+      result = new PackedDuration(seconds);
+      PACKED[(int) seconds] = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns a {@link WideDuration} of the given length, shared if the
+   * length is at most one day.
+   *
+   * @param seconds the length in seconds (non-negative)
+   * @return the duration
+   * @throws IllegalArgumentException {@code seconds} is negative
+   */
+  public static WideDuration wideOfSeconds(long seconds) {
+    if (seconds < 0 || seconds > CACHE_LIMIT) {
+      return new WideDuration(seconds);
+    }
+
+    WideDuration result = WIDE[(int) seconds];
+    if (result == null) {
+      result = new WideDuration(seconds);
+      WIDE[(int) seconds] = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the sum of some durations. If any of them has a fraction of a
+   * second, the sum is a {@link NanoDuration} that keeps the total of the
+   * fractions; otherwise it is a {@link PackedDuration}.
+   *
+   * @param durations the durations
+   * @return the sum
+   * @throws RuntimeException "Duration overflow" if the sum is too long to
+   *   represent
+   */
+  public static Duration sum(Iterable<? extends Duration> durations) {
+    long[] total = total(durations);
+    long   nanos = total[NANOS];
+    if (nanos == 0) {
+      return ofSeconds(total[SECONDS]);
+    }
+
+    return nanoDuration(add(total[SECONDS], nanos / NanoDuration.NANOS_IN_SEC),
+                        nanos % NanoDuration.NANOS_IN_SEC);
+  }
+
+  /**
+   * Returns the sum of some lengths in seconds.
+   *
+   * @param seconds the lengths (non-negative)
+   * @return the sum
+   * @throws RuntimeException "Duration overflow" if the sum is too long to
+   *   represent
+   * @throws IllegalArgumentException if any length is negative
+   */
+  public static long sumSeconds(long[] seconds) {
+    return sumSeconds(seconds, 0, seconds.length);
+  }
+
+  /**
+   * Returns the sum of a range of lengths in seconds.
+   *
+   * @param seconds the lengths (non-negative)
+   * @param from the index of the first length to add
+   * @param to the index after the last length to add
+   * @return the sum
+   * @throws RuntimeException "Duration overflow" if the sum is too long to
+   *   represent
+   * @throws IllegalArgumentException if any length in the range is
+   *   negative
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  public static long sumSeconds(long[] seconds, int from, int to) {
+    LongStream stream = Arrays.stream(seconds, from, to);
+    if (to - from >= PARALLEL_THRESHOLD) {
+      stream = stream.parallel();
+    }
+    return stream.reduce(0, Durations::add);
+  }
+
+  /**
+   * Returns the mean of some durations. If any of them has a fraction of a
+   * second, the mean is a {@link NanoDuration} rounded down to a whole
+   * nanosecond; otherwise it is a {@link PackedDuration} rounded down to a
+   * whole second.
+   *
+   * @param durations the durations
+   * @return the mean
+   * @throws NoSuchElementException if there are no durations
+   * @throws RuntimeException "Duration overflow" if their sum is too long
+   *   to represent
+   */
+  public static Duration mean(Iterable<? extends Duration> durations) {
+    long[] total = total(durations);
+    long   count = total[COUNT];
+    if (count == 0) {
+      throw new NoSuchElementException("no durations");
+    }
+
+    long seconds = total[SECONDS];
+    long nanos   = total[NANOS];
+    if (nanos == 0) {
+      return ofSeconds(seconds / count);
+    }
+
+    // Carry whole seconds out of the fractions, then share out what's left
+    // of the seconds along with them; both parts are below count seconds:
+    seconds = add(seconds, nanos / NanoDuration.NANOS_IN_SEC);
+    nanos  %= NanoDuration.NANOS_IN_SEC;
+    long rest = Math.addExact(
+        Math.multiplyExact(seconds % count, NanoDuration.NANOS_IN_SEC),
+        nanos);
+    return nanoDuration(seconds / count, rest / count);
+  }
+
+  /**
+   * Returns the mean of a range of lengths in seconds.
+   *
+   * @param seconds the lengths (non-negative)
+   * @param from the index of the first length
+   * @param to the index after the last length
+   * @return the mean, in seconds
+   * @throws NoSuchElementException if the range is empty
+   * @throws RuntimeException "Duration overflow" if the sum is too long to
+   *   represent
+   * @throws IllegalArgumentException if any length in the range is
+   *   negative
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  public static double meanSeconds(long[] seconds, int from, int to) {
+    if (from == to) {
+      throw new NoSuchElementException("no durations");
+    }
+    return (double) sumSeconds(seconds, from, to) / (to - from);
+  }
+
+  /**
+   * Counts how many durations fall between each pair of bounds. The result
+   * has one more element than {@code bounds}: element 0 counts the
+   * durations shorter than {@code bounds[0]}, element {@code i} those at
+   * least {@code bounds[i - 1]} but shorter than {@code bounds[i]}, and the
+   * last those at least as long as the last bound.
+   *
+   * @param durations the durations
+   * @param bounds the bucket boundaries, in increasing order
+   * @return the counts
+   * @throws IllegalArgumentException if {@code bounds} is not strictly
+   *   increasing
+   */
+  public static long[] histogram(Iterable<? extends Duration> durations,
+                                 Duration... bounds) {
+    for (Duration bound : bounds) {
+      if (bound.getNanosComponent() != 0) {
+        return histogramExact(durations, bounds);
+      }
+    }
+
+    // With whole-second bounds, a duration is below a bound exactly when
+    // its whole seconds are, so any fraction can be ignored:
+    long[] limits = new long[bounds.length];
+    for (int i = 0; i < bounds.length; ++i) {
+      limits[i] = bounds[i].inSeconds();
+    }
+
+    if (isLarge(durations)) {
+      return histogram(((Collection<? extends Duration>) durations)
+                           .parallelStream()
+                           .mapToLong(Duration::inSeconds)
+                           .toArray(),
+                       limits);
+    }
+
+    checkBounds(limits);
+    long[] counts = new long[limits.length + 1];
+    for (Duration duration : durations) {
+      ++counts[bucket(limits, duration.inSeconds())];
+    }
+    return counts;
+  }
+
+  /**
+   * Counts durations into buckets as {@link #histogram(Iterable,
+   * Duration...)} does, comparing them whole, for bounds with fractions of a
+   * second.
+   */
+  private static long[] histogramExact(Iterable<? extends Duration> durations,
+                                       Duration[] bounds) {
+    for (int i = 1; i < bounds.length; ++i) {
+      if (bounds[i].compareTo(bounds[i - 1]) <= 0) {
+        throw new IllegalArgumentException("bounds must be increasing");
+      }
+    }
+
+    long[] counts = new long[bounds.length + 1];
+    for (Duration duration : durations) {
+      int i = Arrays.binarySearch(bounds, duration);
+      ++counts[i >= 0 ? i + 1 : -(i + 1)];
+    }
+    return counts;
+  }
+
+  /**
+   * Counts how many lengths in seconds fall between each pair of bounds,
+   * as {@link #histogram(Iterable, Duration...)} does.
+   *
+   * @param seconds the lengths
+   * @param bounds the bucket boundaries in seconds, in increasing order
+   * @return the counts
+   * @throws IllegalArgumentException if {@code bounds} is not strictly
+   *   increasing
+   */
+  public static long[] histogram(long[] seconds, long... bounds) {
+    return histogram(seconds, 0, seconds.length, bounds);
+  }
+
+  /**
+   * Counts how many lengths in a range fall between each pair of bounds,
+   * as {@link #histogram(Iterable, Duration...)} does.
+   *
+   * @param seconds the lengths
+   * @param from the index of the first length
+   * @param to the index after the last length
+   * @param bounds the bucket boundaries in seconds, in increasing order
+   * @return the counts
+   * @throws IllegalArgumentException if {@code bounds} is not strictly
+   *   increasing
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  public static long[] histogram(long[] seconds, int from, int to,
+                                 long[] bounds) {
+    if (from < 0 || from > to || to > seconds.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    checkBounds(bounds);
+
+    if (to - from < PARALLEL_THRESHOLD) {
+      return count(seconds, from, to, bounds);
+    }
+
+    // Each chunk is counted separately, and the counts added up:
+    int chunks = (to - from + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+    return IntStream.range(0, chunks).parallel()
+        .mapToObj(c -> count(seconds, from + c * PARALLEL_THRESHOLD,
+                             Math.min(to, from + (c + 1) * PARALLEL_THRESHOLD),
+                             bounds))
+        .reduce((a, b) -> {
+          for (int i = 0; i < a.length; ++i) {
+            a[i] += b[i];
+          }
+          return a;
+        })
+        .get();
+  }
+
+  /**
+   * Counts a range sequentially for {@link #histogram(long[], int, int,
+   * long[])}.
+   */
+  private static long[] count(long[] seconds, int from, int to,
+                              long[] bounds) {
+    long[] counts = new long[bounds.length + 1];
+    for (int i = from; i < to; ++i) {
+      ++counts[bucket(bounds, seconds[i])];
+    }
+    return counts;
+  }
+
+  /**
+   * Finds the histogram bucket for a length.
+   *
+   * @param bounds the bucket boundaries, in increasing order
+   * @param seconds the length
+   * @return the number of bounds at or below {@code seconds}
+   */
+  private static int bucket(long[] bounds, long seconds) {
+    int i = Arrays.binarySearch(bounds, seconds);
+    return i >= 0 ? i + 1 : -(i + 1);
+  }
+
+  private static void checkBounds(long[] bounds) {
+    for (int i = 1; i < bounds.length; ++i) {
+      if (bounds[i] <= bounds[i - 1]) {
+        throw new IllegalArgumentException("bounds must be increasing");
+      }
+    }
+  }
+
+  /**
+   * Adds two lengths in seconds, checking for overflow as
+   * {@link AbstractDuration#plus(Duration)} does.
+   *
+   * @param a a length (non-negative)
+   * @param b another length (non-negative)
+   * @return the sum
+   * @throws RuntimeException "Duration overflow" if the sum overflows
+   * @throws IllegalArgumentException if either length is negative
+   */
+  private static long add(long a, long b) {
+    if (a < 0 || b < 0) {
+      throw new IllegalArgumentException("duration must be non-negative");
+    }
+
+    long result = a + b;
+    if (result < 0) {
+      throw new RuntimeException("Duration overflow");
+    }
+    return result;
+  }
+
+  /**
+   * Adds up the whole seconds and the fractions of some durations
+   * separately, in one pass, and counts them.
+   *
+   * @param durations the durations
+   * @return the totals, indexed by SECONDS, NANOS and COUNT
+   * @throws RuntimeException "Duration overflow" if the seconds overflow
+   */
+  private static long[] total(Iterable<? extends Duration> durations) {
+    long[] total = new long[3];
+
+    if (isLarge(durations)) {
+      Collection<? extends Duration> all =
+          (Collection<? extends Duration>) durations;
+      total[SECONDS] = all.parallelStream()
+                          .mapToLong(Duration::inSeconds)
+                          .reduce(0, Durations::add);
+      total[NANOS]   = all.parallelStream()
+                          .mapToLong(Duration::getNanosComponent)
+                          .sum();
+      total[COUNT]   = all.size();
+      return total;
+    }
+
+    // The fractions are each under a second, so their sum can't overflow
+    // before the count does:
+    for (Duration duration : durations) {
+      total[SECONDS] = add(total[SECONDS], duration.inSeconds());
+      total[NANOS]  += duration.getNanosComponent();
+      ++total[COUNT];
+    }
+    return total;
+  }
+
+  /**
+   * Makes a {@link NanoDuration}, reporting one too long as an overflow.
+   *
+   * @param seconds the whole seconds
+   * @param nanos the fraction of a second, in nanoseconds
+   * @return the duration
+   * @throws RuntimeException "Duration overflow" if it is too long
+   */
+  private static Duration nanoDuration(long seconds, long nanos) {
+    try {
+      return new NanoDuration(seconds, (int) nanos);
+    } catch (IllegalArgumentException e) {
+      throw new RuntimeException("Duration overflow");
+    }
+  }
+
+  /**
+   * Decides whether an iterable is a collection large enough to process in
+   * parallel.
+   */
+  private static boolean isLarge(Iterable<?> durations) {
+    return durations instanceof Collection
+        && ((Collection<?>) durations).size() >= PARALLEL_THRESHOLD;
+  }
+}
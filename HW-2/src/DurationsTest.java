@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link Durations}. */
+public class DurationsTest {
+  @Test
+  public void testShared() {
+    assertSame(Durations.ofSeconds(0), Durations.ofSeconds(0));
+    assertSame(Durations.ofSeconds(3600), Durations.ofSeconds(3600));
+    assertSame(Durations.ofSeconds(86400), Durations.ofSeconds(86400));
+    assertSame(Durations.wideOfSeconds(59), Durations.wideOfSeconds(59));
+  }
+
+  @Test
+  public void testNotShared() {
+    assertNotSame(Durations.ofSeconds(86401), Durations.ofSeconds(86401));
+    assertEquals(Durations.ofSeconds(86401), Durations.ofSeconds(86401));
+  }
+
+  @Test
+  public void testValues() {
+    assertEquals(new PackedDuration(4000), Durations.ofSeconds(4000));
+    assertEquals(new WideDuration(0, 1, 6, 40), Durations.wideOfSeconds(4000));
+    assertEquals(40, Durations.wideOfSeconds(4000).getSecondsComponent());
+  }
+
+  @Test
+  public void testArithmeticShares() {
+    Duration a = new PackedDuration(100);
+    Duration b = new PackedDuration(20);
+    assertSame(a.plus(b), b.plus(a));
+    assertSame(a.minus(b), new PackedDuration(200).minus(b).minus(a));
+    assertSame(b.minus(a), Durations.ofSeconds(0));
+  }
+
+  @Test
+  public void testArithmeticKeepsClass() {
+    assertTrue(new WideDuration(100).plus(new PackedDuration(1))
+                   instanceof WideDuration);
+    assertTrue(new PackedDuration(100).minus(new WideDuration(1))
+                   instanceof PackedDuration);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegative() {
+    Durations.ofSeconds(-1);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegativeWide() {
+    Durations.wideOfSeconds(-1);
+  }
+
+  @Test
+  public void testSum() {
+    List<Duration> durations = Arrays.asList(new PackedDuration(90),
+                                             new WideDuration(0, 1, 0, 0),
+                                             new PackedDuration(10));
+    assertEquals(new PackedDuration(3700), Durations.sum(durations));
+    assertEquals(new PackedDuration(0),
+                 Durations.sum(Collections.<Duration>emptyList()));
+    assertEquals(3700, Durations.sumSeconds(new long[] { 90, 3600, 10 }));
+    assertEquals(3600, Durations.sumSeconds(new long[] { 90, 3600, 10 },
+                                            1, 2));
+  }
+
+  @Test
+  public void testSumLarge() {
+    long[]         seconds   = randomSeconds(Durations.PARALLEL_THRESHOLD * 3
+                                                 + 17);
+    List<Duration> durations = new ArrayList<>();
+    long           expected  = 0;
+    for (long s : seconds) {
+      durations.add(new PackedDuration(s));
+      expected += s;
+    }
+
+    assertEquals(expected, Durations.sumSeconds(seconds));
+    assertEquals(new PackedDuration(expected), Durations.sum(durations));
+    assertEquals(expected - seconds[0],
+                 Durations.sumSeconds(seconds, 1, seconds.length));
+  }
+
+  @Test
+  public void testSumOverflow() {
+    long[] seconds = randomSeconds(Durations.PARALLEL_THRESHOLD * 2);
+    seconds[seconds.length / 2] = Long.MAX_VALUE - 1;
+
+    for (long[] input : Arrays.asList(new long[] { Long.MAX_VALUE, 1 },
+                                      seconds)) {
+      try {
+        Durations.sumSeconds(input);
+        fail();
+      } catch (RuntimeException e) {
+        assertEquals("Duration overflow", e.getMessage());
+      }
+    }
+
+    try {
+      Durations.sum(Arrays.asList(new PackedDuration(Long.MAX_VALUE),
+                                  new PackedDuration(1)));
+      fail();
+    } catch (RuntimeException e) {
+      assertEquals("Duration overflow", e.getMessage());
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSumNegative() {
+    Durations.sumSeconds(new long[] { 1, -1 });
+  }
+
+  @Test
+  public void testMean() {
+    assertEquals(new PackedDuration(33),
+                 Durations.mean(Arrays.asList(new PackedDuration(10),
+                                              new PackedDuration(20),
+                                              new PackedDuration(70))));
+    assertEquals(33.5, Durations.meanSeconds(new long[] { 10, 20, 70, 34 },
+                                             0, 4),
+                 0);
+    assertEquals(45, Durations.meanSeconds(new long[] { 10, 20, 70, 34 },
+                                           1, 3),
+                 0);
+  }
+
+  /*
+   * An iterable that isn't a collection may only be good for one pass.
+   */
+  @Test
+  public void testMeanOneShot() {
+    List<Duration> list = Arrays.asList(new PackedDuration(10),
+                                        new PackedDuration(20),
+                                        new PackedDuration(70));
+    boolean[] used = new boolean[1];
+    Iterable<Duration> once = () -> {
+      if (used[0]) {
+        throw new IllegalStateException("iterated twice");
+      }
+      used[0] = true;
+      return list.iterator();
+    };
+
+    assertEquals(new PackedDuration(33), Durations.mean(once));
+  }
+
+  @Test (expected = NoSuchElementException.class)
+  public void testMeanEmpty() {
+    Durations.mean(Collections.<Duration>emptyList());
+  }
+
+  @Test (expected = NoSuchElementException.class)
+  public void testMeanSecondsEmpty() {
+    Durations.meanSeconds(new long[] { 1, 2 }, 1, 1);
+  }
+
+  @Test
+  public void testHistogram() {
+    long[] seconds = { 0, 59, 60, 61, 3599, 3600, 86400, 100000 };
+    assertArrayEquals(new long[] { 2, 3, 1, 2 },
+                      Durations.histogram(seconds, 60, 3600, 86400));
+    assertArrayEquals(new long[] { 8 }, Durations.histogram(seconds));
+    assertArrayEquals(new long[] { 2, 1 },
+                      Durations.histogram(seconds, 1, 4, new long[] { 61 }));
+
+    List<Duration> durations = new ArrayList<>();
+    for (long s : seconds) {
+      durations.add(new WideDuration(s));
+    }
+    assertArrayEquals(new long[] { 2, 3, 1, 2 },
+                      Durations.histogram(durations,
+                                          new PackedDuration(60),
+                                          new PackedDuration(3600),
+                                          new PackedDuration(86400)));
+  }
+
+  @Test
+  public void testHistogramLarge() {
+    long[] seconds = randomSeconds(Durations.PARALLEL_THRESHOLD * 3 + 5);
+    long[] bounds  = { 60, 3600, 86400 };
+
+    long[]         expected  = new long[4];
+    List<Duration> durations = new ArrayList<>();
+    for (long s : seconds) {
+      int bucket = 0;
+      while (bucket < bounds.length && s >= bounds[bucket]) {
+        ++bucket;
+      }
+      ++expected[bucket];
+      durations.add(new PackedDuration(s));
+    }
+
+    assertArrayEquals(expected, Durations.histogram(seconds, bounds));
+    assertArrayEquals(expected,
+                      Durations.histogram(durations,
+                                          new PackedDuration(60),
+                                          new PackedDuration(3600),
+                                          new PackedDuration(86400)));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testHistogramUnsortedBounds() {
+    Durations.histogram(new long[] { 1 }, 10, 10);
+  }
+
+  private static long[] randomSeconds(int n) {
+    Random random  = new Random(2015);
+    long[] seconds = new long[n];
+    for (int i = 0; i < n; ++i) {
+      seconds[i] = random.nextInt(2 * AbstractDuration.SECS_IN_DAY);
+    }
+    return seconds;
+  }
+}
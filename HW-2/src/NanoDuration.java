@@ -0,0 +1,167 @@
+/**
+ * Durations with nanosecond resolution, represented compactly as a single
+ * {@code long} count of nanoseconds. That reaches a little over 292 years,
+ * which is plenty for latencies but far less than {@link PackedDuration}.
+ *
+ * <p>A {@code NanoDuration} compares and tests equal to a whole-second
+ * duration of the same exact length. Adding or subtracting any duration
+ * keeps the fraction of a second, whereas a whole-second duration plus or
+ * minus a {@code NanoDuration} rounds the exact result down to a whole
+ * second, as its result has the class of the receiver. The bulk operations
+ * in {@link Durations} keep the fraction.
+ */
+public final class NanoDuration extends AbstractDuration {
+  // Nanoseconds in a second:
+  static final long NANOS_IN_SEC = 1000000000L;
+
+  /* CLASS INVARIANT: nanos >= 0 */
+  private final long nanos;
+
+  /**
+   * Constructs a duration in terms of its length in nanoseconds.
+   *
+   * @param nanos the number of nanoseconds (non-negative)
+   * @throws IllegalArgumentException if {@code nanos < 0}
+   */
+  public NanoDuration(long nanos) {
+    if (nanos < 0) {
+      throw new IllegalArgumentException("duration must be non-negative");
+    }
+
+    this.nanos = nanos;
+  }
+
+  /**
+   * Constructs a duration in terms of whole seconds and a fraction of a
+   * second, as {@link #inSeconds()} and {@link #getNanosComponent()}
+   * return them. Thus {@code new NanoDuration(d.inSeconds(),
+   * d.getNanosComponent())} converts any duration {@code d}.
+   *
+   * @param seconds the number of seconds (non-negative)
+   * @param nanos the fraction of a second in nanoseconds
+   *   (0 .. 999,999,999)
+   * @throws IllegalArgumentException if either argument is out of range,
+   *   or the duration is too long to represent
+   */
+  public NanoDuration(long seconds, int nanos) {
+    if (seconds < 0 || nanos < 0 || nanos >= NANOS_IN_SEC) {
+      throw new IllegalArgumentException("components out of range");
+    }
+    if (seconds > (Long.MAX_VALUE - nanos) / NANOS_IN_SEC) {
+      throw new IllegalArgumentException("duration too long");
+    }
+
+    this.nanos = seconds * NANOS_IN_SEC + nanos;
+  }
+
+  @Override
+  protected AbstractDuration fromSeconds(long seconds) {
+    return new NanoDuration(seconds, 0);
+  }
+
+  @Override
+  protected AbstractDuration fromDHMS(long days, int hours, int minutes,
+                                      int seconds)
+  {
+    return new NanoDuration(new WideDuration(days, hours, minutes, seconds)
+                                .inSeconds(), 0);
+  }
+
+  /**
+   * Returns the sum of two durations, keeping the fraction of a second of
+   * both.
+   *
+   * @param other the duration to add to {@code this}
+   * @return the sum of the durations
+   */
+  @Override
+  public Duration plus(Duration other) {
+    long result;
+    try {
+      result = Math.addExact(nanos, toNanos(other));
+    } catch (ArithmeticException e) {
+      throw new RuntimeException("Duration overflow");
+    }
+
+    return new NanoDuration(result);
+  }
+
+  /**
+   * Returns the difference of two durations, keeping the fraction of a
+   * second of both. Returns the zero duration rather than negative.
+   *
+   * @param other the duration to subtract from {@code this}
+   * @return the difference of the durations
+   */
+  @Override
+  public Duration minus(Duration other) {
+    long subtrahend;
+    try {
+      subtrahend = toNanos(other);
+    } catch (ArithmeticException e) {
+      // Too long to represent, so certainly longer than this:
+      return new NanoDuration(0);
+    }
+
+    return new NanoDuration(Math.max(nanos - subtrahend, 0));
+  }
+
+  /**
+   * Gets the total duration in nanoseconds.
+   *
+   * @return the number of nanoseconds (non-negative)
+   */
+  public long inNanos() {
+    return nanos;
+  }
+
+  @Override
+  public long inSeconds() {
+    return nanos / NANOS_IN_SEC;
+  }
+
+  @Override
+  public long getDaysComponent() {
+    return inSeconds() / SECS_IN_DAY;
+  }
+
+  @Override
+  public int getHoursComponent() {
+    return (int) (inSeconds() / 3600 % 24);
+  }
+
+  @Override
+  public int getMinutesComponent() {
+    return (int) (inSeconds() / 60 % 60);
+  }
+
+  @Override
+  public int getSecondsComponent() {
+    return (int) (inSeconds() % 60);
+  }
+
+  @Override
+  public int getNanosComponent() {
+    return (int) (nanos % NANOS_IN_SEC);
+  }
+
+  @Override
+  public String toString() {
+    return "NanoDuration{" +
+        "nanos=" + nanos +
+        '}';
+  }
+
+  /**
+   * Converts any duration to nanoseconds.
+   *
+   * @param duration the duration
+   * @return its length in nanoseconds
+   * @throws ArithmeticException if that doesn't fit in a {@code long}
+   */
+  private static long toNanos(Duration duration) {
+    return Math.addExact(Math.multiplyExact(duration.inSeconds(),
+                                            NANOS_IN_SEC),
+                         duration.getNanosComponent());
+  }
+}
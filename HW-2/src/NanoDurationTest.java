@@ -0,0 +1,134 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link NanoDuration}. */
+public class NanoDurationTest extends AbstractDurationTest {
+  @Override
+  protected AbstractDuration fromSeconds(long seconds) {
+    return new NanoDuration(seconds, 0);
+  }
+
+  @Test
+  public void testComponents() {
+    NanoDuration d = new NanoDuration(90061, 123456789);
+    assertEquals(90061123456789L, d.inNanos());
+    assertEquals(90061, d.inSeconds());
+    assertEquals(1, d.getDaysComponent());
+    assertEquals(1, d.getHoursComponent());
+    assertEquals(1, d.getMinutesComponent());
+    assertEquals(1, d.getSecondsComponent());
+    assertEquals(123456789, d.getNanosComponent());
+    assertEquals(d, new NanoDuration(90061123456789L));
+  }
+
+  @Test
+  public void testAcrossResolutions() {
+    Duration whole    = new PackedDuration(5);
+    Duration exact    = new NanoDuration(5, 0);
+    Duration fraction = new NanoDuration(5, 1);
+
+    assertEquals(whole, exact);
+    assertEquals(exact, whole);
+    assertEquals(whole.hashCode(), exact.hashCode());
+    assertEquals(0, whole.compareTo(exact));
+
+    assertNotEquals(whole, fraction);
+    assertNotEquals(fraction, whole);
+    assertTrue(whole.compareTo(fraction) < 0);
+    assertTrue(fraction.compareTo(whole) > 0);
+    assertTrue(fraction.compareTo(new WideDuration(6)) < 0);
+  }
+
+  @Test
+  public void testArithmetic() {
+    Duration a = new NanoDuration(1, 600000000);
+    Duration b = new NanoDuration(0, 700000000);
+
+    assertEquals(new NanoDuration(2, 300000000), a.plus(b));
+    assertEquals(new NanoDuration(0, 900000000), a.minus(b));
+    assertEquals(new NanoDuration(0), b.minus(a));
+    assertEquals(new NanoDuration(3, 600000000),
+                 a.plus(new PackedDuration(2)));
+
+    // A whole-second receiver rounds the exact result down:
+    assertEquals(new PackedDuration(3), new PackedDuration(2).plus(a));
+    assertEquals(new PackedDuration(3),
+                 new PackedDuration(2).plus(new NanoDuration(1, 0)));
+    assertEquals(new PackedDuration(0), new PackedDuration(2).minus(a));
+    assertEquals(new PackedDuration(1),
+                 new PackedDuration(3).minus(new NanoDuration(1, 1)));
+    assertEquals(new PackedDuration(2),
+                 new PackedDuration(3).minus(new NanoDuration(1, 0)));
+
+    // Too long to represent, so longer than a:
+    assertEquals(new NanoDuration(0),
+                 a.minus(new PackedDuration(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void testBulkKeepsFraction() {
+    List<Duration> durations = Arrays.asList(new NanoDuration(0, 600000000),
+                                             new NanoDuration(0, 600000000),
+                                             new PackedDuration(1));
+
+    // The same as adding them up one at a time:
+    Duration folded = new NanoDuration(0);
+    for (Duration d : durations) {
+      folded = folded.plus(d);
+    }
+    assertEquals(new NanoDuration(2, 200000000), folded);
+    assertEquals(folded, Durations.sum(durations));
+    assertEquals(new NanoDuration(0, 733333333), Durations.mean(durations));
+
+    // A bound with a fraction splits durations in the same second:
+    assertArrayEquals(new long[] { 2, 1 },
+                      Durations.histogram(durations,
+                                          new NanoDuration(0, 700000000)));
+    assertArrayEquals(new long[] { 2, 1 },
+                      Durations.histogram(durations, new PackedDuration(1)));
+
+    // And so do large collections, which are added up in parallel:
+    List<Duration> halves = Collections.nCopies(
+        Durations.PARALLEL_THRESHOLD + 2, new NanoDuration(0, 500000000));
+    assertEquals(new NanoDuration(Durations.PARALLEL_THRESHOLD / 2 + 1, 0),
+                 Durations.sum(halves));
+    assertEquals(new NanoDuration(0, 500000000), Durations.mean(halves));
+  }
+
+  @Test (expected = RuntimeException.class)
+  public void testOverflow() {
+    new NanoDuration(Long.MAX_VALUE).plus(new NanoDuration(1));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testTooLong() {
+    new NanoDuration(Long.MAX_VALUE / NanoDuration.NANOS_IN_SEC + 1, 0);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadNanos() {
+    new NanoDuration(1, 1000000000);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegative() {
+    new NanoDuration(-1);
+  }
+
+  @Test
+  public void testFormatFraction() {
+    Duration d = new NanoDuration(61, 4500600);
+    assertEquals("1:01.004", d.format("%m:%S.%L"));
+    assertEquals("61.004500", d.format("%t.%f"));
+    assertEquals("61.004500600", d.format("%t.%N"));
+    assertEquals("000", new PackedDuration(61).format("%L"));
+  }
+}
@@ -21,7 +21,7 @@ public final class PackedDuration extends AbstractDuration {
 
   @Override
   protected AbstractDuration fromSeconds(long seconds) {
-    return new PackedDuration(seconds);
+    return Durations.ofSeconds(seconds);
   }
 
   @Override
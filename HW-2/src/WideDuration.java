@@ -60,7 +60,7 @@ public final class WideDuration extends AbstractDuration {
 
   @Override
   protected AbstractDuration fromSeconds(long seconds) {
-    return new WideDuration(seconds);
+    return Durations.wideOfSeconds(seconds);
   }
 
   @Override
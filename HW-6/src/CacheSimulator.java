@@ -0,0 +1,125 @@
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Runs an access trace through a {@link ReplacementPolicy} and measures how
+ * well, and how fast, the policy does. Traces are streamed, so a trace of
+ * any length runs in constant memory beyond the policy itself.
+ *
+ * <p>From the command line:
+ *
+ * <pre>
+ *   java CacheSimulator POLICY CAPACITY TRACE [SEED]
+ * </pre>
+ *
+ * <p>where {@code POLICY} is any name accepted by
+ * {@link ReplacementPolicies#create(String, int)} and {@code TRACE} is a
+ * trace file or synthetic trace as accepted by
+ * {@link Traces#parse(String, long)}; for example, {@code java CacheSimulator
+ * clock 10000 zipf:1000000:0.9:100000000}.
+ */
+public final class CacheSimulator {
+  private CacheSimulator() { }
+
+  /**
+   * The outcome of a simulation.
+   */
+  public static final class Result {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long nanos;
+
+    Result(long hits, long misses, long evictions, long nanos) {
+      this.hits      = hits;
+      this.misses    = misses;
+      this.evictions = evictions;
+      this.nanos     = nanos;
+    }
+
+    /** @return the number of requests for items already cached */
+    public long hits() {
+      return hits;
+    }
+
+    /** @return the number of requests for items not already cached */
+    public long misses() {
+      return misses;
+    }
+
+    /** @return the number of items evicted */
+    public long evictions() {
+      return evictions;
+    }
+
+    /** @return the total number of requests */
+    public long requests() {
+      return hits + misses;
+    }
+
+    /** @return the fraction of requests that hit, or 0 for no requests */
+    public double hitRatio() {
+      return requests() == 0 ? 0 : (double) hits / requests();
+    }
+
+    /** @return the mean time per request, in nanoseconds */
+    public double nanosPerRequest() {
+      return requests() == 0 ? 0 : (double) nanos / requests();
+    }
+
+    /** @return the number of evictions per second of simulation */
+    public double evictionsPerSecond() {
+      return nanos == 0 ? 0 : evictions * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "requests %d, hits %d, misses %d, hit ratio %.4f, "
+              + "evictions %d (%.0f/s), %.1f ns/op",
+          requests(), hits, misses, hitRatio(),
+          evictions, evictionsPerSecond(), nanosPerRequest());
+    }
+  }
+
+  /**
+   * Runs a trace through a policy, which records its own hits, misses and
+   * evictions through {@link ReplacementPolicy#recordStats(PolicyStats)}.
+   * Any statistics the policy was already recording are detached.
+   *
+   * @param policy the policy to simulate
+   * @param trace the keys to require (consumed)
+   * @return the outcome
+   */
+  public static Result simulate(ReplacementPolicy<Long> policy,
+                                PrimitiveIterator.OfLong trace) {
+    PolicyStats stats = new PolicyStats();
+    policy.recordStats(stats);
+    long start = System.nanoTime();
+
+    try {
+      while (trace.hasNext()) {
+        policy.require(trace.nextLong());
+      }
+    } finally {
+      policy.recordStats(null);
+    }
+
+    return new Result(stats.hitCount(), stats.missCount(),
+                      stats.evictionCount(), System.nanoTime() - start);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3 || args.length > 4) {
+      System.err.println(
+          "usage: java CacheSimulator POLICY CAPACITY TRACE [SEED]");
+      System.exit(2);
+    }
+
+    ReplacementPolicy<Long> policy =
+        ReplacementPolicies.create(args[0], Integer.parseInt(args[1]));
+    long seed = args.length == 4 ? Long.parseLong(args[3]) : 2015;
+
+    System.out.println(simulate(policy, Traces.parse(args[2], seed)));
+  }
+}
@@ -0,0 +1,123 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CacheSimulatorTest {
+  @Test
+  public void testLoopDefeatsLru() {
+    // A loop one longer than the cache never hits under LRU:
+    CacheSimulator.Result result = CacheSimulator.simulate(
+        new HashLruPolicy<>(10), Traces.loop(1000, 11));
+    assertEquals(1000, result.requests());
+    assertEquals(0, result.hits());
+    assertEquals(990, result.evictions());
+  }
+
+  @Test
+  public void testLoopFitsCache() {
+    CacheSimulator.Result result = CacheSimulator.simulate(
+        new FifoPolicy<>(10), Traces.loop(1000, 10));
+    assertEquals(990, result.hits());
+    assertEquals(10, result.misses());
+    assertEquals(0.99, result.hitRatio(), 1e-9);
+  }
+
+  @Test
+  public void testCountsDeclinedAdmission() {
+    CacheSimulator.Result result = CacheSimulator.simulate(
+        new TinyLfuFilter<>(new FifoPolicy<>(1)), Traces.scan(5));
+    assertEquals(0, result.hits());
+    assertEquals(5, result.misses());
+    // Each new key is turned away rather than evicting the first:
+    assertEquals(0, result.evictions());
+  }
+
+  @Test
+  public void testScan() {
+    assertArrayEquals(new long[] { 0, 1, 2, 3 }, drain(Traces.scan(4)));
+  }
+
+  @Test
+  public void testLoop() {
+    assertArrayEquals(new long[] { 0, 1, 2, 0, 1 }, drain(Traces.loop(5, 3)));
+  }
+
+  @Test
+  public void testUniform() {
+    for (long key : drain(Traces.uniform(1000, 7, 1))) {
+      assertTrue(0 <= key && key < 7);
+    }
+  }
+
+  /*
+   * With exponent 1 over 1000 keys, key 0 should get 1/H(1000), about
+   * 13.4%, of the requests, and key 1 half as many.
+   */
+  @Test
+  public void testZipf() {
+    long[] counts = new long[1000];
+    PrimitiveIterator.OfLong trace = Traces.zipf(200000, 1000, 1.0, 1);
+    while (trace.hasNext()) {
+      ++counts[(int) trace.nextLong()];
+    }
+    assertEquals(0.134, counts[0] / 200000.0, 0.005);
+    assertEquals(0.5, (double) counts[1] / counts[0], 0.03);
+  }
+
+  @Test
+  public void testTextFile() throws IOException {
+    Path path = tempFile();
+    Files.write(path, Arrays.asList("3", "", " 4 ", "3"),
+                StandardCharsets.UTF_8);
+    assertArrayEquals(new long[] { 3, 4, 3 }, drain(Traces.textFile(path)));
+  }
+
+  @Test
+  public void testBinaryFile() throws IOException {
+    Path path = tempFile();
+    assertEquals(3, Traces.writeBinary(Traces.loop(3, 2), path));
+    assertEquals(24, Files.size(path));
+    assertArrayEquals(new long[] { 0, 1, 0 }, drain(Traces.binaryFile(path)));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testParse_bad() throws IOException {
+    Traces.parse("zipf:10", 0);
+  }
+
+  @Test
+  public void testParse() throws IOException {
+    PrimitiveIterator.OfLong trace = Traces.parse("loop:2:3", 0);
+    assertArrayEquals(new long[] { 0, 1, 0 }, drain(trace));
+    assertFalse(trace.hasNext());
+  }
+
+  private static long[] drain(PrimitiveIterator.OfLong trace) {
+    long[] result = new long[16];
+    int n = 0;
+    while (trace.hasNext()) {
+      if (n == result.length) {
+        result = Arrays.copyOf(result, 2 * n);
+      }
+      result[n++] = trace.nextLong();
+    }
+    return Arrays.copyOf(result, n);
+  }
+
+  private static Path tempFile() throws IOException {
+    File file = File.createTempFile("trace", null);
+    file.deleteOnExit();
+    return file.toPath();
+  }
+}
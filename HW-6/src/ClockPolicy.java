@@ -1,3 +1,10 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * A cache policy implementing the <a
  * href="http://en.wikipedia.org/wiki/Page_replacement_algorithm#Clock">clock
@@ -19,6 +26,9 @@ public final class ClockPolicy<K> implements ReplacementPolicy<K> {
   // The number of items in the cache:
   private int size = 0;
 
+  // Where to record statistics, or null not to:
+  private PolicyStats stats = null;
+
   /*
    * CLASS INVARIANTS:
    *
@@ -78,6 +88,17 @@ public final class ClockPolicy<K> implements ReplacementPolicy<K> {
     refBits  = new boolean[capacity];
   }
 
+  /**
+   * Starts recording hits, misses, evictions and hand travel in
+   * {@code stats}, or stops recording if it is {@code null}.
+   *
+   * @param stats where to record, or {@code null}
+   */
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
   @Override
   public int capacity() {
     return capacity;
@@ -96,6 +117,9 @@ public final class ClockPolicy<K> implements ReplacementPolicy<K> {
       if (buffer[offset(i)].equals(item)) {
         // It's a hit!
         refBits[offset(i)] = true;
+        if (stats != null) {
+          stats.recordHit();
+        }
         return null;
       }
     }
@@ -104,15 +128,25 @@ public final class ClockPolicy<K> implements ReplacementPolicy<K> {
 
     K evicted = null;
 
+    if (stats != null) {
+      stats.recordMiss();
+    }
+
     // If it's full, we need to evict something. We cycle through the buffer,
     // looking for an unset reference bit, and clearing as we go,
     // which guarantees that we'll see one the next time around. Advancing
     // {@code hand} without changing {@code size} rotates through the buffer.
     if (size == capacity) {
 
+      int travel = 1;
       while (refBits[hand]) {
         refBits[hand] = false;
         hand = offset(1);
+        ++travel;
+      }
+
+      if (stats != null) {
+        stats.recordEviction(travel);
       }
 
       // Now we've found a false reference bit, so that's what we'll evict.
@@ -132,6 +166,101 @@ public final class ClockPolicy<K> implements ReplacementPolicy<K> {
     return evicted;
   }
 
+  @Override
+  public K victim(K item) {
+    if (size < capacity || contains(item)) {
+      return null;
+    }
+
+    // The sweep in require stops at the first clear reference bit. If they
+    // are all set, it clears them all and comes back around to the hand.
+    for (int i = 0; i < size; ++i) {
+      if (!refBits[offset(i)]) {
+        return buffer[offset(i)];
+      }
+    }
+
+    return buffer[hand];
+  }
+
+  @Override
+  public boolean contains(K item) {
+    for (int i = 0; i < size; ++i) {
+      if (buffer[offset(i)].equals(item)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Saves the state of this policy (its items in queue order, their
+   * reference bits, and the position of the hand) to a snapshot file, from
+   * which {@link #load(Path, KeyCodec)} can rebuild it exactly.
+   *
+   * @param file the file to write
+   * @param codec writes the items
+   * @throws IOException if writing fails
+   */
+  public void save(Path file, KeyCodec<? super K> codec) throws IOException {
+    try (DataOutputStream out =
+             Snapshots.create(file, Snapshots.CLOCK, capacity, size)) {
+      out.writeInt(hand);
+
+      boolean[] bits = new boolean[size];
+      for (int i = 0; i < size; ++i) {
+        codec.write(out, buffer[offset(i)]);
+        bits[i] = refBits[offset(i)];
+      }
+      Snapshots.writeBits(out, bits);
+    }
+  }
+
+  /**
+   * Loads a policy from a snapshot file written by
+   * {@link #save(Path, KeyCodec)} (or by {@link IndexedClockPolicy}). The
+   * result is in exactly the state that was saved, so it will evict the
+   * same items in the same order.
+   *
+   * @param file the file to read
+   * @param codec reads the items
+   * @param <K> keys for cached items
+   * @return the policy
+   * @throws IOException if reading fails or the file is not a clock snapshot
+   */
+  public static <K> ClockPolicy<K> load(Path file, KeyCodec<K> codec)
+      throws IOException
+  {
+    int[] header = new int[2];
+    try (DataInputStream in = Snapshots.open(file, Snapshots.CLOCK, header)) {
+      ClockPolicy<K> policy = new ClockPolicy<>(header[0]);
+
+      policy.hand = in.readInt();
+      if (policy.hand < 0 || policy.hand >= policy.capacity) {
+        throw new IOException("corrupt policy snapshot: " + file);
+      }
+
+      // The buffer has no index to catch an item saved twice, so use a set:
+      Set<K> seen = new HashSet<>();
+      policy.size = header[1];
+      for (int i = 0; i < policy.size; ++i) {
+        K item = codec.read(in);
+        if (!seen.add(item)) {
+          throw new IOException("corrupt policy snapshot: " + file);
+        }
+        policy.buffer[policy.offset(i)] = item;
+      }
+
+      boolean[] bits = Snapshots.readBits(in, policy.size);
+      for (int i = 0; i < policy.size; ++i) {
+        policy.refBits[policy.offset(i)] = bits[i];
+      }
+
+      Snapshots.expectEnd(in, file);
+      return policy;
+    }
+  }
+
   /**
    * Returns an absolute index into the arrays {@code buffer} and {@code
    * refBits} given given a relative index from the logical start of the
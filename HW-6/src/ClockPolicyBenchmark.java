@@ -0,0 +1,103 @@
+import java.util.Random;
+
+/**
+ * Compares the throughput of the clock policy implementations at capacities
+ * from one thousand to one million. Run it with {@code java
+ * ClockPolicyBenchmark}; each line reports the mean time per
+ * {@code require} call.
+ *
+ * <p>Every run draws keys uniformly from twice the capacity, so after
+ * warm-up about half the requests hit. The original {@link ClockPolicy}
+ * scans its whole buffer on each request, so it is only measured at the
+ * smaller capacities; beyond those, merely filling it would take hours.
+ */
+public final class ClockPolicyBenchmark {
+  private static final int[] CAPACITIES = { 1 << 10, 1 << 13, 1 << 17, 1 << 20 };
+  private static final int LINEAR_LIMIT = 1 << 13;
+  private static final int OPERATIONS   = 4_000_000;
+
+  private ClockPolicyBenchmark() { }
+
+  public static void main(String[] args) {
+    for (int cap : CAPACITIES) {
+      int[] keys = keys(cap, OPERATIONS);
+
+      if (cap <= LINEAR_LIMIT) {
+        report("ClockPolicy", cap, timeBoxed(new ClockPolicy<>(cap), keys));
+      }
+      report("IndexedClockPolicy", cap,
+             timeBoxed(new IndexedClockPolicy<>(cap), keys));
+      report("IntClockPolicy", cap, timeInt(new IntClockPolicy(cap), keys));
+    }
+  }
+
+  /**
+   * Generates a request stream of uniformly random keys.
+   *
+   * @param cap the cache capacity
+   * @param n the number of requests
+   * @return the keys, drawn from {@code [0, 2 * cap)}
+   */
+  private static int[] keys(int cap, int n) {
+    Random random = new Random(cap);
+    int[] result = new int[n];
+    for (int i = 0; i < n; ++i) {
+      result[i] = random.nextInt(2 * cap);
+    }
+    return result;
+  }
+
+  /**
+   * Times a boxed policy, running the stream twice and timing only the
+   * second pass so that the JIT has warmed up.
+   *
+   * @param policy the policy to time
+   * @param keys the request stream
+   * @return nanoseconds per request
+   */
+  private static double timeBoxed(ReplacementPolicy<Integer> policy,
+                                  int[] keys) {
+    Integer[] boxed = new Integer[keys.length];
+    for (int i = 0; i < keys.length; ++i) {
+      boxed[i] = keys[i];
+    }
+
+    // The linear scan is slow enough that a shorter run suffices:
+    int n = policy instanceof ClockPolicy
+        ? Math.min(keys.length, 200_000)
+        : keys.length;
+
+    for (int i = 0; i < n; ++i) {
+      policy.require(boxed[i]);
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < n; ++i) {
+      policy.require(boxed[i]);
+    }
+    return (double) (System.nanoTime() - start) / n;
+  }
+
+  /**
+   * Times an {@code int} policy as in {@link #timeBoxed}.
+   *
+   * @param policy the policy to time
+   * @param keys the request stream
+   * @return nanoseconds per request
+   */
+  private static double timeInt(IntClockPolicy policy, int[] keys) {
+    for (int key : keys) {
+      policy.require(key);
+    }
+
+    long start = System.nanoTime();
+    for (int key : keys) {
+      policy.require(key);
+    }
+    return (double) (System.nanoTime() - start) / keys.length;
+  }
+
+  private static void report(String name, int cap, double nsPerOp) {
+    System.out.printf("%-20s capacity %8d: %10.1f ns/op%n", name, cap, nsPerOp);
+  }
+}
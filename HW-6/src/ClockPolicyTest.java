@@ -96,4 +96,27 @@ public class ClockPolicyTest {
     assertEquals((Integer) 6, policy.require(2)); //  2+^1+ 7  3+ 5+
     assertEquals((Integer) 7, policy.require(4)); //  2+ 1  4+^3+ 5+
   }
+
+  @Test
+  public void testStats() {
+    ClockPolicy<Integer> clock = new ClockPolicy<>(5);
+    PolicyStats stats = new PolicyStats();
+    clock.recordStats(stats);
+
+    for (int i = 1; i <= 5; ++i) {
+      clock.require(i);                 // ^1+ 2+ 3+ 4+ 5+
+    }
+    clock.require(6);                   //  6+^2  3  4  5   (hand went around)
+    clock.require(7);                   //  6+ 7+^3  4  5   (hand moved one)
+    clock.require(6);                   //  a hit
+
+    assertEquals(1, stats.hitCount());
+    assertEquals(7, stats.missCount());
+    assertEquals(2, stats.evictionCount());
+    assertEquals(3.5, stats.averageHandTravel(), 1e-9);
+
+    clock.recordStats(null);
+    clock.require(8);
+    assertEquals(7, stats.missCount());
+  }
 }
\ No newline at end of file
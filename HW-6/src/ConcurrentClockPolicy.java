@@ -0,0 +1,230 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A thread-safe cache policy implementing the <a
+ * href="http://en.wikipedia.org/wiki/Page_replacement_algorithm#Clock">clock
+ * algorithm</a>, in which hits take no lock.
+ *
+ * <p>A hit in the clock algorithm only needs to set the item's reference
+ * bit, so this class finds items through a {@link ConcurrentHashMap} and sets
+ * the bit with a single atomic write. Only misses, which must move the hand
+ * and replace an item, are serialized. Under a read-heavy workload, where
+ * most requests hit, reader threads therefore don't wait for each other.
+ *
+ * <p>Because hits don't synchronize with evictions, a hit that races with
+ * the eviction of the same item may report a hit for an item that is
+ * evicted a moment later, or may set the reference bit of the item that
+ * replaced it. Both are harmless to a cache: the first is the same as the
+ * hit having happened just before the eviction, and the second only gives
+ * another item a second chance it didn't earn.
+ *
+ * @param <K> keys for cached items
+ */
+public final class ConcurrentClockPolicy<K> implements ReplacementPolicy<K> {
+  // The capacity of the cache:
+  private final int capacity;
+
+  // Maps each cached item to its slot in buffer:
+  private final ConcurrentHashMap<K, Integer> index;
+
+  // The circular buffer of items; only accessed while holding lock:
+  private final K[] buffer;
+
+  // Whether each item has been referenced since the last eviction cycle
+  // (0 or 1); written without the lock on hits:
+  private final AtomicIntegerArray refBits;
+
+  // Serializes misses:
+  private final Object lock = new Object();
+
+  // The hand of the clock; only accessed while holding lock:
+  private int hand = 0;
+
+  // How many slots from the hand on victim has found referenced; only
+  // accessed while holding lock:
+  private int scanned = 0;
+
+  // The number of items in the cache; only written while holding lock:
+  private volatile int size = 0;
+
+  // Where to record hits, misses, evictions and hand travel, or null; read
+  // without the lock on hits:
+  private volatile PolicyStats stats = null;
+
+  /*
+   * CLASS INVARIANTS (whenever lock is not held):
+   *
+   *  - buffer.length == capacity
+   *  - refBits.length() == capacity
+   *  - hand < capacity
+   *  - size <= capacity
+   *  - scanned <= capacity, and the scanned slots from hand on are all
+   *    referenced
+   *  - index maps exactly the items in buffer[0 .. size) to their slots
+   *
+   * As in IntClockPolicy, we rely on the buffer filling from left to right
+   * and then staying full, so the next free slot is size until the first
+   * eviction. Only a thread holding the lock clears reference bits, so as
+   * in IndexedClockPolicy, victim can resume its search where it last
+   * stopped until the next eviction moves the hand.
+   */
+
+  /**
+   * Creates a new concurrent clock policy with capacity {@code capacity}.
+   *
+   * @param cap the capacity of the cache
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public ConcurrentClockPolicy(int cap) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+
+    // See ClockPolicy for why this cast is needed:
+    @SuppressWarnings("unchecked")
+    K[] temp = (K[]) new Object[cap];
+
+    capacity = cap;
+    index    = new ConcurrentHashMap<>(cap);
+    buffer   = temp;
+    refBits  = new AtomicIntegerArray(cap);
+  }
+
+  /**
+   * Starts recording hits, misses, evictions and hand travel in
+   * {@code stats}, or stops recording if it is {@code null}. A
+   * {@code PolicyStats} may be updated from many threads at once, so this
+   * adds no locking.
+   *
+   * @param stats where to record, or {@code null}
+   */
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Informs the policy manager that a particular item is required. Safe to
+   * call from multiple threads at once; hits take no lock.
+   *
+   * @param item the required item (non-null)
+   * @return the evicted item or {@code null}
+   */
+  @Override
+  public K require(K item) {
+    PolicyStats stats = this.stats;
+
+    Integer slot = index.get(item);
+    if (slot != null) {
+      // It's a hit! Checking first avoids writing to a shared cache line
+      // when the bit is already set, which is the common case.
+      if (refBits.get(slot) == 0) {
+        refBits.lazySet(slot, 1);
+      }
+      if (stats != null) {
+        stats.recordHit();
+      }
+      return null;
+    }
+
+    synchronized (lock) {
+      // Another thread may have brought the item in while we waited:
+      slot = index.get(item);
+      if (slot != null) {
+        refBits.lazySet(slot, 1);
+        if (stats != null) {
+          stats.recordHit();
+        }
+        return null;
+      }
+
+      // It's a miss!
+
+      if (stats != null) {
+        stats.recordMiss();
+      }
+
+      K evicted = null;
+      int free  = size;
+
+      if (free == capacity) {
+        // Hits can set bits behind us while we sweep, so in principle we
+        // could circle forever. After two full turns we give up and evict
+        // whatever is under the hand.
+        int steps = 0;
+        for (; refBits.get(hand) != 0 && steps < 2 * capacity; ++steps) {
+          refBits.lazySet(hand, 0);
+          hand = (hand + 1) % capacity;
+        }
+        if (stats != null) {
+          stats.recordEviction(steps + 1);
+        }
+
+        free    = hand;
+        evicted = buffer[free];
+        index.remove(evicted);
+        hand    = (hand + 1) % capacity;
+        scanned = 0;
+      } else {
+        size = free + 1;
+      }
+
+      buffer[free] = item;
+      refBits.set(free, 1);
+      index.put(item, free);
+
+      return evicted;
+    }
+  }
+
+  /**
+   * Returns the item that {@code require(item)} would evict if no other
+   * thread intervened. Under concurrent use this is only a hint, since
+   * another thread may move the hand or set reference bits before the item
+   * is actually required.
+   *
+   * @param item the item that might be required (non-null)
+   * @return the item that would be evicted, or {@code null}
+   */
+  @Override
+  public K victim(K item) {
+    synchronized (lock) {
+      if (size < capacity || index.containsKey(item)) {
+        return null;
+      }
+
+      for (; scanned < capacity; ++scanned) {
+        int slot = (hand + scanned) % capacity;
+        if (refBits.get(slot) == 0) {
+          return buffer[slot];
+        }
+      }
+
+      return buffer[hand];
+    }
+  }
+
+  /**
+   * Returns whether an item is in the cache. Under concurrent use this is
+   * only a hint, since another thread may bring the item in or evict it at
+   * any moment.
+   *
+   * @param item the item (non-null)
+   * @return whether {@code item} is cached
+   */
+  @Override
+  public boolean contains(K item) {
+    return index.containsKey(item);
+  }
+}
@@ -0,0 +1,163 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how {@link ConcurrentClockPolicy} scales with the number of
+ * threads under a read-heavy workload, compared with an
+ * {@link IndexedClockPolicy} behind one global lock. Run it with {@code java
+ * ConcurrentClockPolicyBenchmark}.
+ *
+ * <p>Each thread requests keys from a hot set that fits in the cache 95% of
+ * the time and from a much larger cold range otherwise, which gives a hit
+ * ratio close to 95%. Each line reports the aggregate throughput and the
+ * measured hit ratio.
+ */
+public final class ConcurrentClockPolicyBenchmark {
+  private static final int[] THREADS     = { 1, 2, 4, 8, 16 };
+  private static final int   CAPACITY    = 1 << 16;
+  private static final int   HOT_KEYS    = CAPACITY * 3 / 4;
+  private static final int   COLD_KEYS   = 1 << 24;
+  private static final int   OPERATIONS  = 2_000_000;   // per thread
+  private static final double HIT_RATIO  = 0.95;
+
+  private ConcurrentClockPolicyBenchmark() { }
+
+  public static void main(String[] args) throws Exception {
+    for (int threads : THREADS) {
+      run("ConcurrentClockPolicy", new ConcurrentClockPolicy<>(CAPACITY),
+          threads);
+      run("synchronized Indexed", new Synchronized<>(
+          new IndexedClockPolicy<>(CAPACITY)), threads);
+    }
+  }
+
+  /**
+   * Runs the workload against a policy with the given number of threads
+   * and prints the result.
+   *
+   * @param name the name to report
+   * @param policy the policy to exercise (thread-safe)
+   * @param threads the number of threads
+   */
+  private static void run(String name, ReplacementPolicy<Integer> policy,
+                          int threads) throws Exception
+  {
+    // Warm the cache with the hot set so that we measure the steady state:
+    for (int key = 0; key < HOT_KEYS; ++key) {
+      policy.require(key);
+    }
+
+    // Every miss either evicts an item or fills a free slot, so the misses
+    // are the evictions plus the growth in size:
+    int warmSize = policy.size();
+
+    CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+    AtomicLong evictions = new AtomicLong();
+    List<Thread> workers = new ArrayList<>();
+
+    for (int t = 0; t < threads; ++t) {
+      Integer[] keys = keys(new Random(t));
+      workers.add(new Thread(() -> {
+        long mine = 0;
+        try {
+          barrier.await();
+          for (Integer key : keys) {
+            if (policy.require(key) != null) {
+              ++mine;
+            }
+          }
+          barrier.await();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+        evictions.addAndGet(mine);
+      }));
+    }
+
+    for (Thread worker : workers) {
+      worker.start();
+    }
+
+    barrier.await();
+    long start = System.nanoTime();
+    barrier.await();
+    long elapsed = System.nanoTime() - start;
+
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    long misses = evictions.get() + policy.size() - warmSize;
+    long total  = (long) threads * OPERATIONS;
+    System.out.printf("%-22s %2d threads: %8.2f Mops/s, hit ratio %.3f%n",
+                      name, threads, total * 1e3 / elapsed,
+                      1 - (double) misses / total);
+  }
+
+  /**
+   * Generates one thread's request stream. Keys are boxed ahead of time so
+   * that we don't measure allocation.
+   *
+   * @param random the source of randomness
+   * @return the keys
+   */
+  private static Integer[] keys(Random random) {
+    Integer[] result = new Integer[OPERATIONS];
+    for (int i = 0; i < OPERATIONS; ++i) {
+      result[i] = random.nextDouble() < HIT_RATIO
+          ? random.nextInt(HOT_KEYS)
+          : HOT_KEYS + random.nextInt(COLD_KEYS);
+    }
+    return result;
+  }
+
+  /**
+   * Makes a policy thread-safe with a single global lock, as clients must
+   * do with the single-threaded policies.
+   */
+  private static final class Synchronized<K> implements ReplacementPolicy<K> {
+    private final ReplacementPolicy<K> policy;
+
+    Synchronized(ReplacementPolicy<K> policy) {
+      this.policy = policy;
+    }
+
+    @Override
+    public synchronized K require(K item) {
+      return policy.require(item);
+    }
+
+    @Override
+    public synchronized K victim(K item) {
+      return policy.victim(item);
+    }
+
+    @Override
+    public synchronized boolean expires() {
+      return policy.expires();
+    }
+
+    @Override
+    public synchronized boolean contains(K item) {
+      return policy.contains(item);
+    }
+
+    @Override
+    public synchronized void recordStats(PolicyStats stats) {
+      policy.recordStats(stats);
+    }
+
+    @Override
+    public synchronized int capacity() {
+      return policy.capacity();
+    }
+
+    @Override
+    public synchronized int size() {
+      return policy.size();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentClockPolicyTest {
+  /*
+   * Used from a single thread, the policy must agree with ClockPolicy.
+   */
+  @Test
+  public void testAgreesWithClockPolicy() {
+    Random random = new Random(2015);
+
+    for (int cap = 1; cap <= 64; cap *= 4) {
+      ReplacementPolicy<Integer> expected = new ClockPolicy<>(cap);
+      ReplacementPolicy<Integer> actual   = new ConcurrentClockPolicy<>(cap);
+      PolicyStats expectedStats = new PolicyStats();
+      PolicyStats actualStats   = new PolicyStats();
+      expected.recordStats(expectedStats);
+      actual.recordStats(actualStats);
+
+      for (int i = 0; i < 20000; ++i) {
+        Integer item = random.nextInt(2 * cap);
+        assertEquals(expected.require(item), actual.require(item));
+        assertEquals(expected.size(), actual.size());
+      }
+
+      assertEquals(expectedStats.toString(), actualStats.toString());
+    }
+  }
+
+  @Test
+  public void testHit() {
+    ReplacementPolicy<String> policy = new ConcurrentClockPolicy<>(2);
+    assertNull(policy.require("a"));
+    assertNull(policy.require("a"));
+    assertEquals(1, policy.size());
+  }
+
+  /*
+   * Hammers the policy from several threads. Each eviction must return an
+   * item that was actually required, and the size must stay in bounds.
+   */
+  @Test
+  public void testStress() throws InterruptedException {
+    ConcurrentClockPolicy<Integer> policy = new ConcurrentClockPolicy<>(100);
+    AtomicBoolean failed = new AtomicBoolean(false);
+    AtomicInteger evictions = new AtomicInteger();
+    List<Thread> workers = new ArrayList<>();
+
+    for (int t = 0; t < 8; ++t) {
+      Random random = new Random(t);
+      workers.add(new Thread(() -> {
+        for (int i = 0; i < 100000; ++i) {
+          Integer evicted = policy.require(random.nextInt(1000));
+          if (policy.size() > policy.capacity()) {
+            failed.set(true);
+          }
+          if (evicted != null) {
+            evictions.incrementAndGet();
+            if (evicted < 0 || evicted >= 1000) {
+              failed.set(true);
+            }
+          }
+        }
+      }));
+    }
+
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assertFalse(failed.get());
+    assertEquals(100, policy.size());
+    assertTrue(evictions.get() > 0);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadPolicy() {
+    new ConcurrentClockPolicy<Integer>(0);
+  }
+}
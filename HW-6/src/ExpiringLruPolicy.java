@@ -0,0 +1,546 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * A least recently used cache policy in which each item may also carry a
+ * <em>time to live</em>, after which it is dropped from the cache whether or
+ * not there is pressure on space.
+ *
+ * <p>Replacement works as in {@link HashLruPolicy}. Expiry times are kept in
+ * a <a href="http://www.cs.columbia.edu/~nahum/w6998/papers/sosp87-timing-wheels.pdf">hierarchical
+ * timing wheel</a>: six levels of 64 buckets each, where a bucket at level
+ * {@code L} covers {@code 64^L} ticks. An item is filed in the coarsest bucket
+ * that can't come due before it does, and each time the clock passes a
+ * bucket, its items either expire or are refiled into a finer level. Since
+ * an item can move down at most five times, scheduling, cancelling and
+ * expiring all take amortized <em>O</em>(1) time, with no priority queue and
+ * no scan of the whole cache.
+ *
+ * <p>Time comes from an injectable clock, a {@link LongSupplier} in any
+ * units, and is read once per call to {@link #require(Object)},
+ * {@link #require(Object, long)} or {@link #expire()}. Expiry is rounded up to
+ * whole ticks, so an item may outlive its time to live by up to one tick but
+ * never expires early.
+ *
+ * <p>Both kinds of removal are reported through one {@link RemovalListener}:
+ * each evicted item with {@link RemovalListener.Cause#EVICTED} (and also as
+ * the result of {@code require}, as the {@link ReplacementPolicy} contract
+ * demands), and each expired item with
+ * {@link RemovalListener.Cause#EXPIRED}. The listener is called while the
+ * policy is being updated, so it must not call back into the policy.
+ *
+ * <p><strong>Memory:</strong> per cached item, one {@code HashMap} entry and
+ * one node with two sets of links, plus a fixed 384 wheel sentinels. On a
+ * 64-bit JVM with compressed references that is about 80 bytes per entry,
+ * not counting the keys themselves.
+ *
+ * @param <K> keys for cached items
+ */
+public final class ExpiringLruPolicy<K> implements ReplacementPolicy<K> {
+  // log2 of the number of buckets per wheel level:
+  private static final int BITS = 6;
+
+  // The number of buckets per wheel level:
+  private static final int BUCKETS = 1 << BITS;
+
+  // The number of wheel levels:
+  private static final int LEVELS = 6;
+
+  // The expiry tick of items that never expire:
+  private static final long NEVER = Long.MAX_VALUE;
+
+  // The capacity of the cache:
+  private final int capacity;
+
+  // The source of the current time:
+  private final LongSupplier clock;
+
+  // The length of a tick, in clock units:
+  private final long tick;
+
+  // The clock reading at which tick 0 began:
+  private final long origin;
+
+  // Told of every eviction and expiration:
+  private final RemovalListener<? super K> listener;
+
+  // Maps each cached item to its node:
+  private final Map<K, Node<K>> index = new HashMap<>();
+
+  // The sentinel of the circular recency list, least recently used first:
+  private final Node<K> sentinel = new Node<>(null);
+
+  // The sentinels of the wheel buckets; bucket b of level L is at index
+  // L * BUCKETS + b:
+  private final Node<K>[] wheel;
+
+  // The last tick the wheel was advanced to:
+  private long currentTick = 0;
+
+  // Where to record hits, misses and evictions, or null:
+  private PolicyStats stats = null;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - capacity > 0 and tick > 0
+   *  - index.size() <= capacity
+   *  - the recency list contains exactly the nodes in index.values()
+   *  - a node is in a wheel bucket iff its expiry != NEVER, and then
+   *    expiry > currentTick
+   *  - a node with expiry e filed at level L < LEVELS - 1 is in bucket
+   *    (e >>> BITS * L) % BUCKETS, and e and currentTick agree in all bits
+   *    from BITS * (L + 1) up
+   *
+   * REPRESENTATION NOTE:
+   *
+   * Each node is linked into two intrusive circular lists at once: the
+   * recency list (prev/next) and the list of its wheel bucket
+   * (wheelPrev/wheelNext). An eviction can thus cancel its item's timer in
+   * O(1), and an expiration can unlink its item from the recency list in
+   * O(1).
+   *
+   * The level for a node is chosen by the highest bit in which its expiry
+   * differs from currentTick. While currentTick advances, a bucket comes due
+   * exactly when the corresponding digit of currentTick reaches it, which is
+   * when we drain it. Items too far in the future for the top level share
+   * its buckets with items 64^6 ticks nearer; when such a bucket is drained
+   * early, its items just go back in.
+   */
+
+  /**
+   * Creates a new expiring LRU policy using {@link System#nanoTime()} as the
+   * clock and a tick of one millisecond.
+   *
+   * @param cap the capacity of the cache
+   * @param listener told of every eviction and expiration
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public ExpiringLruPolicy(int cap, RemovalListener<? super K> listener) {
+    this(cap, System::nanoTime, 1_000_000, listener);
+  }
+
+  /**
+   * Creates a new expiring LRU policy with the given clock.
+   *
+   * @param cap the capacity of the cache
+   * @param clock the source of the current time, which must not go
+   *   backwards
+   * @param tick the resolution of expiry, in clock units
+   * @param listener told of every eviction and expiration
+   * @throws IllegalArgumentException {@code cap < 1} or {@code tick < 1}
+   */
+  public ExpiringLruPolicy(int cap, LongSupplier clock, long tick,
+                           RemovalListener<? super K> listener) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    if (tick < 1) {
+      throw new IllegalArgumentException("tick must be at least 1");
+    }
+
+    capacity      = cap;
+    this.clock    = Objects.requireNonNull(clock);
+    this.tick     = tick;
+    this.listener = Objects.requireNonNull(listener);
+    origin        = clock.getAsLong();
+
+    sentinel.prev = sentinel;
+    sentinel.next = sentinel;
+
+    // See ClockPolicy for why this cast is needed:
+    @SuppressWarnings("unchecked")
+    Node<K>[] temp = (Node<K>[]) new Node<?>[LEVELS * BUCKETS];
+    wheel = temp;
+    for (int i = 0; i < wheel.length; ++i) {
+      Node<K> bucket = new Node<>(null);
+      bucket.wheelPrev = bucket;
+      bucket.wheelNext = bucket;
+      wheel[i] = bucket;
+    }
+  }
+
+  /**
+   * Starts recording hits, misses and evictions in {@code stats}, or stops
+   * recording if it is {@code null}. A request for an item that has expired
+   * counts as a miss, and expirations are not counted as evictions.
+   *
+   * @param stats where to record, or {@code null}
+   */
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * Returns {@code true}, since items leave the cache when they expire.
+   *
+   * @return {@code true}
+   */
+  @Override
+  public boolean expires() {
+    return true;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of items in the cache, which may include expired
+   * items until the next call that reads the clock.
+   *
+   * @return the number of items
+   */
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * Requires an item as {@link ReplacementPolicy#require(Object)} does. A
+   * newly cached item never expires; an item already cached keeps whatever
+   * time to live it had.
+   *
+   * @param item the required item (non-null)
+   * @return the evicted item or {@code null}
+   */
+  @Override
+  public K require(K item) {
+    return require(item, NEVER, false);
+  }
+
+  /**
+   * Requires an item, as {@link #require(Object)} does, and sets it to
+   * expire {@code timeToLive} clock units from now, whether it was already
+   * cached or not.
+   *
+   * @param item the required item (non-null)
+   * @param timeToLive how long the item may stay cached, in clock units
+   * @return the evicted item or {@code null}
+   * @throws IllegalArgumentException {@code timeToLive < 1}
+   */
+  public K require(K item, long timeToLive) {
+    if (timeToLive < 1) {
+      throw new IllegalArgumentException("time to live must be positive");
+    }
+
+    return require(item, timeToLive, true);
+  }
+
+  /**
+   * Returns the item that {@code require(item)} would evict, without
+   * changing the state of the policy: the least recently used item, if the
+   * cache is full and reading the clock now would expire nothing. An
+   * expiration makes room, so then, as when {@code item} is already cached
+   * (expired or not), {@code require} evicts nothing.
+   *
+   * <p>This reads the clock, so it agrees with a {@code require} that
+   * follows only if the clock hasn't moved in between.
+   *
+   * @param item the item that might be required (non-null)
+   * @return the item that would be evicted, or {@code null}
+   */
+  @Override
+  public K victim(K item) {
+    if (index.size() < capacity || index.containsKey(item)) {
+      return null;
+    }
+
+    if (anyDue((clock.getAsLong() - origin) / tick)) {
+      return null;
+    }
+
+    return sentinel.next.key;
+  }
+
+  /**
+   * Returns whether an item is in the cache and hasn't expired, without
+   * changing the state of the policy. This reads the clock.
+   *
+   * @param item the item (non-null)
+   * @return whether {@code item} is cached and unexpired
+   */
+  @Override
+  public boolean contains(K item) {
+    Node<K> node = index.get(item);
+    return node != null && node.expiry > (clock.getAsLong() - origin) / tick;
+  }
+
+  /**
+   * Drops every item whose time to live has run out. Every {@code require}
+   * does this first, so it's needed only to release expired items while
+   * the cache is otherwise idle.
+   */
+  public void expire() {
+    advance(clock.getAsLong());
+  }
+
+  /**
+   * Does the work of both {@code require} methods.
+   *
+   * @param item the required item
+   * @param timeToLive the item's time to live, or {@code NEVER}
+   * @param reset whether to set the expiry of an item already cached
+   * @return the evicted item or {@code null}
+   */
+  private K require(K item, long timeToLive, boolean reset) {
+    long now = clock.getAsLong();
+    advance(now);
+
+    Node<K> node = index.get(item);
+
+    if (node != null) {
+      // It's a hit! Move it to the most recently used end:
+      node.unlink();
+      node.linkBefore(sentinel);
+      if (reset) {
+        cancel(node);
+        schedule(node, expiryTick(now, timeToLive));
+      }
+      if (stats != null) {
+        stats.recordHit();
+      }
+      return null;
+    }
+
+    // It's a miss!
+
+    if (stats != null) {
+      stats.recordMiss();
+    }
+
+    K evicted = null;
+
+    if (index.size() == capacity) {
+      Node<K> victim = sentinel.next;
+      remove(victim);
+      evicted = victim.key;
+      if (stats != null) {
+        stats.recordEviction();
+      }
+    }
+
+    node = new Node<>(item);
+    node.linkBefore(sentinel);
+    index.put(item, node);
+    schedule(node, expiryTick(now, timeToLive));
+
+    if (evicted != null) {
+      listener.removed(evicted, RemovalListener.Cause.EVICTED);
+    }
+    return evicted;
+  }
+
+  /**
+   * Converts a time to live into the tick at which it runs out, rounding up.
+   *
+   * @param now the current clock reading
+   * @param timeToLive the time to live, or {@code NEVER}
+   * @return the expiry tick, or {@code NEVER}
+   */
+  private long expiryTick(long now, long timeToLive) {
+    long elapsed = now - origin;
+    if (timeToLive > NEVER - tick - elapsed) {
+      return NEVER;
+    }
+
+    return (elapsed + timeToLive + tick - 1) / tick;
+  }
+
+  /**
+   * Advances the wheel to the current time, expiring every item that has
+   * come due and refiling the rest of each bucket that is passed.
+   *
+   * @param now the current clock reading
+   */
+  private void advance(long now) {
+    long previous = currentTick;
+    long target   = (now - origin) / tick;
+    if (target <= previous) {
+      return;
+    }
+
+    currentTick = target;
+
+    for (int level = 0; level < LEVELS; ++level) {
+      int  shift = BITS * level;
+      long from  = previous >>> shift;
+      long to    = target >>> shift;
+      if (from == to) {
+        // No digit at this level changed, so none at higher levels did:
+        break;
+      }
+
+      // The buckets whose digits we passed, or all of them if we lapped:
+      long steps = Math.min(to - from, BUCKETS);
+      for (long step = 1; step <= steps; ++step) {
+        drain(wheel[level * BUCKETS + (int) ((from + step) & (BUCKETS - 1))]);
+      }
+    }
+  }
+
+  /**
+   * Determines whether advancing the wheel to the given tick would expire
+   * anything, by looking through the buckets {@link #advance(long)} would
+   * drain without draining them.
+   *
+   * @param target the tick to advance to
+   * @return whether any item expires by {@code target}
+   */
+  private boolean anyDue(long target) {
+    long previous = currentTick;
+    if (target <= previous) {
+      return false;
+    }
+
+    for (int level = 0; level < LEVELS; ++level) {
+      int  shift = BITS * level;
+      long from  = previous >>> shift;
+      long to    = target >>> shift;
+      if (from == to) {
+        break;
+      }
+
+      long steps = Math.min(to - from, BUCKETS);
+      for (long step = 1; step <= steps; ++step) {
+        Node<K> bucket =
+            wheel[level * BUCKETS + (int) ((from + step) & (BUCKETS - 1))];
+        for (Node<K> node = bucket.wheelNext; node != bucket;
+             node = node.wheelNext) {
+          if (node.expiry <= target) {
+            return true;
+          }
+        }
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Empties a wheel bucket, expiring its items that are due and refiling
+   * the others.
+   *
+   * @param bucket the sentinel of the bucket
+   */
+  private void drain(Node<K> bucket) {
+    if (bucket.wheelNext == bucket) {
+      return;
+    }
+
+    // Detach the whole bucket first, since an item can be refiled into the
+    // bucket it came from:
+    Node<K> node = bucket.wheelNext;
+    bucket.wheelPrev.wheelNext = null;
+    bucket.wheelPrev = bucket;
+    bucket.wheelNext = bucket;
+
+    while (node != null) {
+      Node<K> next = node.wheelNext;
+      node.wheelPrev = null;
+      node.wheelNext = null;
+
+      if (node.expiry <= currentTick) {
+        node.unlink();
+        index.remove(node.key);
+        listener.removed(node.key, RemovalListener.Cause.EXPIRED);
+      } else {
+        schedule(node, node.expiry);
+      }
+
+      node = next;
+    }
+  }
+
+  /**
+   * Removes a node from the cache and cancels its timer.
+   *
+   * @param node the node to remove
+   */
+  private void remove(Node<K> node) {
+    node.unlink();
+    cancel(node);
+    index.remove(node.key);
+  }
+
+  /**
+   * Files a node in the wheel to expire at the given tick.
+   *
+   * <p><strong>PRECONDITION:</strong> the node is not in the wheel
+   *
+   * @param node the node
+   * @param expiry the tick at which it expires, or {@code NEVER}
+   */
+  private void schedule(Node<K> node, long expiry) {
+    node.expiry = expiry;
+    if (expiry == NEVER) {
+      return;
+    }
+
+    long diff  = expiry ^ currentTick;
+    int  level = Math.min((63 - Long.numberOfLeadingZeros(diff)) / BITS,
+                          LEVELS - 1);
+    int  b     = (int) (expiry >>> (BITS * level)) & (BUCKETS - 1);
+
+    Node<K> bucket = wheel[level * BUCKETS + b];
+    node.wheelPrev = bucket.wheelPrev;
+    node.wheelNext = bucket;
+    bucket.wheelPrev.wheelNext = node;
+    bucket.wheelPrev = node;
+  }
+
+  /**
+   * Takes a node out of the wheel, if it is there.
+   *
+   * @param node the node
+   */
+  private void cancel(Node<K> node) {
+    if (node.wheelNext != null) {
+      node.wheelPrev.wheelNext = node.wheelNext;
+      node.wheelNext.wheelPrev = node.wheelPrev;
+      node.wheelPrev = null;
+      node.wheelNext = null;
+    }
+  }
+
+  /**
+   * A node in both the recency list and a wheel bucket.
+   */
+  private static final class Node<K> {
+    final K key;
+    long expiry = NEVER;
+    Node<K> prev;
+    Node<K> next;
+    Node<K> wheelPrev;
+    Node<K> wheelNext;
+
+    Node(K key) {
+      this.key = key;
+    }
+
+    /**
+     * Removes this node from the recency list.
+     */
+    void unlink() {
+      prev.next = next;
+      next.prev = prev;
+    }
+
+    /**
+     * Inserts this node into the recency list immediately before
+     * {@code other}.
+     *
+     * @param other the node to insert before
+     */
+    void linkBefore(Node<K> other) {
+      prev = other.prev;
+      next = other;
+      other.prev.next = this;
+      other.prev = this;
+    }
+  }
+}
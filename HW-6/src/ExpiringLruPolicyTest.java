@@ -0,0 +1,220 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ExpiringLruPolicyTest {
+  // The fake clock, in milliseconds:
+  long now = 1000;
+
+  // Every removal reported, as "item:CAUSE":
+  List<String> removals = new ArrayList<>();
+
+  ExpiringLruPolicy<String> policy =
+      new ExpiringLruPolicy<>(3, () -> now, 1,
+                              (item, cause) -> removals.add(item + ":" + cause));
+
+  @Test
+  public void testExpires() {
+    assertNull(policy.require("a", 10));
+    assertNull(policy.require("b"));
+    now += 9;
+    policy.expire();
+    assertEquals(2, policy.size());
+    assertEquals(Arrays.asList(), removals);
+
+    now += 1;
+    policy.expire();
+    assertEquals(1, policy.size());
+    assertEquals(Arrays.asList("a:EXPIRED"), removals);
+  }
+
+  @Test
+  public void testRequireExpiresFirst() {
+    policy.require("a", 5);
+    policy.require("b");
+    policy.require("c");
+    now += 5;
+    // "a" expires, which makes room for "d" without an eviction:
+    assertNull(policy.require("d"));
+    assertEquals(3, policy.size());
+    assertEquals(Arrays.asList("a:EXPIRED"), removals);
+  }
+
+  @Test
+  public void testEvictionReported() {
+    policy.require("a", 100);
+    policy.require("b");
+    policy.require("c");
+    assertEquals("a", policy.require("d"));
+    assertEquals(Arrays.asList("a:EVICTED"), removals);
+
+    // The evicted item's timer is cancelled:
+    now += 1000;
+    policy.expire();
+    assertEquals(Arrays.asList("a:EVICTED"), removals);
+    assertEquals(3, policy.size());
+  }
+
+  @Test
+  public void testResetOnHit() {
+    policy.require("a", 10);
+    now += 8;
+    policy.require("a", 10);
+    now += 8;
+    policy.expire();
+    assertEquals(1, policy.size());
+    now += 2;
+    policy.expire();
+    assertEquals(0, policy.size());
+  }
+
+  @Test
+  public void testPlainHitKeepsExpiry() {
+    policy.require("a", 10);
+    now += 8;
+    assertNull(policy.require("a"));
+    now += 2;
+    policy.expire();
+    assertEquals(Arrays.asList("a:EXPIRED"), removals);
+  }
+
+  @Test
+  public void testRoundsUpToTicks() {
+    ExpiringLruPolicy<String> coarse =
+        new ExpiringLruPolicy<>(3, () -> now, 10,
+                                (item, cause) -> removals.add(item));
+    now += 3;
+    coarse.require("a", 10);
+    now += 10;
+    coarse.expire();
+    assertEquals(1, coarse.size());
+    now += 7;
+    coarse.expire();
+    assertEquals(0, coarse.size());
+  }
+
+  @Test
+  public void testLongJump() {
+    policy.require("a", 5);
+    policy.require("b", 1L << 20);
+    policy.require("c", 1L << 40);
+    now += 1L << 30;
+    policy.expire();
+    assertEquals(Arrays.asList("a:EXPIRED", "b:EXPIRED"), removals);
+    now += 1L << 40;
+    policy.expire();
+    assertEquals(0, policy.size());
+  }
+
+  @Test
+  public void testWithoutExpiryActsLikeLru() {
+    ExpiringLruPolicy<Integer> expiring =
+        new ExpiringLruPolicy<>(50, () -> now, 1, (item, cause) -> { });
+    HashLruPolicy<Integer> lru = new HashLruPolicy<>(50);
+    Random random = new Random(4);
+
+    for (int i = 0; i < 10000; ++i) {
+      int item = random.nextInt(120);
+      assertEquals(lru.require(item), expiring.require(item));
+    }
+  }
+
+  @Test
+  public void testVictim() {
+    policy.require("a", 5);
+    policy.require("b");
+    assertNull(policy.victim("c"));
+    policy.require("c");
+    assertNull(policy.victim("a"));
+
+    // The least recently used item, without touching it:
+    assertEquals("a", policy.victim("d"));
+    assertEquals("a", policy.victim("d"));
+    assertEquals(3, policy.size());
+
+    // Once "a" is due, requiring "d" would expire it instead:
+    now += 5;
+    assertNull(policy.victim("d"));
+    assertEquals(3, policy.size());
+    assertEquals(Arrays.asList(), removals);
+    assertNull(policy.require("d"));
+    assertEquals("b", policy.victim("e"));
+  }
+
+  @Test
+  public void testVictimAgreesWithRequire() {
+    ExpiringLruPolicy<Integer> expiring =
+        new ExpiringLruPolicy<>(50, () -> now, 1, (item, cause) -> { });
+    Random random = new Random(9);
+
+    for (int i = 0; i < 20000; ++i) {
+      Integer item = random.nextInt(120);
+      Integer victim = expiring.victim(item);
+      if (random.nextBoolean()) {
+        assertEquals(victim, expiring.require(item));
+      } else {
+        long ttl = 1 + random.nextInt(1 << random.nextInt(16));
+        assertEquals(victim, expiring.require(item, ttl));
+      }
+      now += random.nextInt(4) == 0 ? random.nextInt(1 << 12) : 0;
+    }
+  }
+
+  @Test
+  public void testAgainstBruteForce() {
+    Map<Integer, Long> deadlines = new HashMap<>();
+    Set<Integer> expired = new HashSet<>();
+    ExpiringLruPolicy<Integer> expiring =
+        new ExpiringLruPolicy<>(1000, () -> now, 1, (item, cause) -> {
+          assertEquals(RemovalListener.Cause.EXPIRED, cause);
+          assertTrue(deadlines.get(item) <= now);
+          expired.add(item);
+        });
+    Random random = new Random(7);
+
+    for (int i = 0; i < 20000; ++i) {
+      int item = random.nextInt(1000);
+      long ttl = 1 + (long) Math.pow(2, random.nextDouble() * 24);
+      expiring.require(item, ttl);
+      deadlines.put(item, now + ttl);
+      expired.remove(item);
+
+      now += random.nextInt(4) == 0 ? random.nextInt(1 << 16)
+                                    : random.nextInt(8);
+      expiring.expire();
+
+      if (i % 500 == 0) {
+        for (Map.Entry<Integer, Long> e : deadlines.entrySet()) {
+          assertEquals(e.getValue() <= now, expired.contains(e.getKey()));
+        }
+        assertEquals(deadlines.size() - expired.size(), expiring.size());
+      }
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadCapacity() {
+    new ExpiringLruPolicy<String>(0, (item, cause) -> { });
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadTick() {
+    new ExpiringLruPolicy<String>(1, () -> now, 0, (item, cause) -> { });
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadTimeToLive() {
+    policy.require("a", 0);
+  }
+}
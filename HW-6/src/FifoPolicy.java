@@ -0,0 +1,202 @@
+/**
+ * A cache policy implementing the <a
+ * href="http://en.wikipedia.org/wiki/Page_replacement_algorithm#First-in.2C_first-out">first-in,
+ * first-out</a> algorithm. Items are evicted in the order they were brought
+ * into the cache; requiring an item that is already cached doesn't change
+ * its position.
+ *
+ * <p>Items are kept in a circular buffer, and hits are found through an
+ * open-addressed index of buffer slots as in {@link IndexedClockPolicy}, so
+ * {@link #require(Object)} runs in expected <em>O</em>(1) time.
+ *
+ * <p><strong>Memory:</strong> per unit of capacity, one reference in
+ * {@code buffer} and from two to four {@code int}s in {@code table}. On a
+ * 64-bit JVM with compressed references that is 12 to 20 bytes per entry,
+ * not counting the keys themselves.
+ */
+public final class FifoPolicy<K> implements ReplacementPolicy<K> {
+  // The capacity of the cache:
+  private final int capacity;
+
+  // The circular buffer of items:
+  private final K[] buffer;
+
+  // The hash index; each entry is a slot in buffer plus one, or 0 if empty:
+  private final int[] table;
+
+  // table.length - 1, for reducing hashes to table indices:
+  private final int mask;
+
+  // The slot of the oldest item once the buffer is full:
+  private int head = 0;
+
+  // The number of items in the cache:
+  private int size = 0;
+
+  // Where to record hits, misses and evictions, or null:
+  private PolicyStats stats = null;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - buffer.length == capacity
+   *  - table.length is a power of two and table.length >= 2 * capacity
+   *  - head < capacity, and head == 0 unless size == capacity
+   *  - size <= capacity
+   *  - items in buffer[0 .. size) are unique
+   *  - the index represents slots [0 .. size) as in IndexedClockPolicy
+   *
+   * REPRESENTATION NOTE:
+   *
+   * The buffer fills from left to right. Once it is full, the oldest item
+   * is at head, and each miss overwrites that slot and advances head, so the
+   * buffer read from head around to head - 1 is always in arrival order.
+   */
+
+  /**
+   * Creates a new FIFO policy with capacity {@code capacity}.
+   *
+   * @param cap the capacity of the cache
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public FifoPolicy(int cap) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    if (cap > 1 << 29) {
+      throw new IllegalArgumentException("capacity is too large");
+    }
+
+    // See ClockPolicy for why this cast is needed:
+    @SuppressWarnings("unchecked")
+    K[] temp = (K[]) new Object[cap];
+
+    capacity = cap;
+    buffer   = temp;
+    table    = new int[Integer.highestOneBit(2 * cap - 1) << 1];
+    mask     = table.length - 1;
+  }
+
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public K require(K item) {
+    int i = home(item);
+    while (table[i] != 0) {
+      if (buffer[table[i] - 1].equals(item)) {
+        // It's a hit, which changes nothing:
+        if (stats != null) {
+          stats.recordHit();
+        }
+        return null;
+      }
+      i = (i + 1) & mask;
+    }
+
+    // It's a miss!
+
+    if (stats != null) {
+      stats.recordMiss();
+    }
+
+    if (size < capacity) {
+      buffer[size] = item;
+      table[i] = ++size;
+      return null;
+    }
+
+    // It's full, so we replace the oldest item:
+    K evicted = buffer[head];
+    unindex(head);
+    if (stats != null) {
+      stats.recordEviction();
+    }
+
+    // Removing from the index may have shifted the empty entry we found
+    // above, so we need to look for one again:
+    i = home(item);
+    while (table[i] != 0) {
+      i = (i + 1) & mask;
+    }
+
+    buffer[head] = item;
+    table[i] = head + 1;
+    head = head + 1 == capacity ? 0 : head + 1;
+
+    return evicted;
+  }
+
+  @Override
+  public K victim(K item) {
+    if (size < capacity || contains(item)) {
+      return null;
+    }
+
+    return buffer[head];
+  }
+
+  @Override
+  public boolean contains(K item) {
+    for (int i = home(item); table[i] != 0; i = (i + 1) & mask) {
+      if (buffer[table[i] - 1].equals(item)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes the index entry for the item in the given buffer slot, shifting
+   * later entries in the same probe run back so that they remain reachable.
+   *
+   * @param slot the buffer slot whose entry to remove (must be occupied)
+   */
+  private void unindex(int slot) {
+    int i = home(buffer[slot]);
+    while (table[i] != slot + 1) {
+      i = (i + 1) & mask;
+    }
+
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (table[j] == 0) {
+        break;
+      }
+
+      int k = home(buffer[table[j] - 1]);
+      boolean stays = i <= j ? i < k && k <= j : i < k || k <= j;
+      if (!stays) {
+        table[i] = table[j];
+        i = j;
+      }
+    }
+
+    table[i] = 0;
+  }
+
+  /**
+   * Returns the index in {@code table} where the probe sequence for
+   * {@code item} starts.
+   *
+   * @param item the item (non-null)
+   * @return the table index
+   */
+  private int home(Object item) {
+    int h = item.hashCode() * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
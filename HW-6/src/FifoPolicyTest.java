@@ -12,7 +12,6 @@ public class FifoPolicyTest {
    * Here's an example of using the Fifo policy. The comments on the right
    * show the state of the cache/queue after each {@code require} operation.
    */
-/*
   ReplacementPolicy<Integer> policy = new FifoPolicy<>(5);
 
   @Test
@@ -74,7 +73,6 @@ public class FifoPolicyTest {
   /*
     tests to see if the invariant size == capacity remains true
    */
-  /*
   @Test
   public void testCapacitySize(){
     assertTrue(policy.size() <= policy.capacity());
@@ -124,5 +122,4 @@ public class FifoPolicyTest {
   public void testBadPolicy2(){
     ReplacementPolicy<Integer> policy = new FifoPolicy<>(-2);
   }
-  */
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+/**
+ * An approximate count of how often each item has been seen recently, using
+ * a <a href="http://en.wikipedia.org/wiki/Count%E2%80%93min_sketch">count-min
+ * sketch</a> of 4-bit counters.
+ *
+ * <p>Each item is counted in four counters chosen by four different hashes,
+ * and its frequency is the least of them. Collisions can only make an
+ * estimate too high, never too low, and taking the minimum keeps that error
+ * small. Counters saturate at 15.
+ *
+ * <p>To favor recent popularity over all-time popularity, the sketch
+ * <em>ages</em>: after a fixed number of increments, every counter is
+ * halved. An item that stops being used thus fades out of the sketch.
+ */
+public final class FrequencySketch {
+  // The largest value a counter can hold:
+  private static final int MAX_COUNT = 15;
+
+  // Seeds for the four hash functions:
+  private static final int[] SEEDS =
+      { 0x97CB3127, 0xB2A7F1A5, 0x6C8E9CF5, 0xCA7B63A9 };
+
+  // Sixteen 4-bit counters per word:
+  private final long[] table;
+
+  // table.length - 1, for reducing hashes to word indices:
+  private final int mask;
+
+  // The number of increments between agings:
+  private final int sampleSize;
+
+  // The number of increments since the last aging:
+  private int additions = 0;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - table.length is a power of two
+   *  - every counter is in 0 .. MAX_COUNT
+   *  - additions < sampleSize
+   */
+
+  /**
+   * Creates a sketch suitable for a cache of the given capacity. The sketch
+   * has about sixteen counters (one {@code long}) per cached item, and ages
+   * after ten times {@code capacity} increments.
+   *
+   * @param capacity the capacity of the cache being filtered
+   * @throws IllegalArgumentException {@code capacity < 1}
+   */
+  public FrequencySketch(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+
+    int words  = Math.min(capacity, 1 << 24);
+    table      = new long[Integer.highestOneBit(2 * words - 1)];
+    mask       = table.length - 1;
+    sampleSize = 10 * Math.min(capacity, Integer.MAX_VALUE / 10);
+  }
+
+  /**
+   * Returns the estimated number of times {@code item} has been counted
+   * recently, which is never less than the true count (until aging or
+   * saturation).
+   *
+   * @param item the item (non-null)
+   * @return the estimate, 0 .. 15
+   */
+  public int frequency(Object item) {
+    int hash   = spread(item.hashCode());
+    int result = MAX_COUNT;
+    for (int seed : SEEDS) {
+      int h = hash * seed;
+      result = Math.min(result,
+                        (int) (table[index(h)] >>> shift(h)) & MAX_COUNT);
+    }
+    return result;
+  }
+
+  /**
+   * Counts one occurrence of {@code item}, and ages the sketch if it's time.
+   *
+   * @param item the item (non-null)
+   */
+  public void increment(Object item) {
+    int hash = spread(item.hashCode());
+    for (int seed : SEEDS) {
+      int h     = hash * seed;
+      int i     = index(h);
+      int shift = shift(h);
+      if (((table[i] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+        table[i] += 1L << shift;
+      }
+    }
+
+    if (++additions == sampleSize) {
+      age();
+    }
+  }
+
+  /**
+   * Halves every counter.
+   */
+  private void age() {
+    for (int i = 0; i < table.length; ++i) {
+      // Shifting the whole word moves each counter's low bit into its
+      // neighbor's high bit, so we mask those bits off:
+      table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+    }
+    additions = 0;
+  }
+
+  /**
+   * Selects the word for a hash, from its high bits.
+   *
+   * @param h the hash
+   * @return the index into {@code table}
+   */
+  private int index(int h) {
+    return (h >>> 8) & mask;
+  }
+
+  /**
+   * Selects the counter within a word for a hash, from its low bits.
+   *
+   * @param h the hash
+   * @return the bit offset of the counter
+   */
+  private static int shift(int h) {
+    return (h & 15) << 2;
+  }
+
+  /**
+   * Mixes a hash code so that similar codes don't pick similar counters.
+   *
+   * @param h the hash code
+   * @return the mixed hash
+   */
+  private static int spread(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
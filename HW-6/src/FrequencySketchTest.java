@@ -0,0 +1,38 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrequencySketchTest {
+  FrequencySketch sketch = new FrequencySketch(1000);
+
+  @Test
+  public void testCounts() {
+    assertEquals(0, sketch.frequency("a"));
+    sketch.increment("a");
+    sketch.increment("a");
+    sketch.increment("b");
+    assertTrue(sketch.frequency("a") >= 2);
+    assertTrue(sketch.frequency("b") >= 1);
+  }
+
+  @Test
+  public void testSaturates() {
+    for (int i = 0; i < 100; ++i) {
+      sketch.increment("a");
+    }
+    assertEquals(15, sketch.frequency("a"));
+  }
+
+  @Test
+  public void testAges() {
+    for (int i = 0; i < 8; ++i) {
+      sketch.increment("a");
+    }
+    // Ten increments per unit of capacity trigger aging:
+    for (int i = 8; i < 10000; ++i) {
+      sketch.increment("b");
+    }
+    assertEquals(4, sketch.frequency("a"));
+  }
+}
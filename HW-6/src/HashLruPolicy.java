@@ -0,0 +1,224 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A cache policy implementing the <a
+ * href="http://en.wikipedia.org/wiki/Page_replacement_algorithm#Least_recently_used">least
+ * recently used</a> algorithm in constant time per operation.
+ *
+ * <p>This behaves exactly like {@link LruPolicy}, which remains the simple
+ * reference implementation, but instead of scanning a list it keeps a hash
+ * index from each item to a node in a doubly-linked recency list. Thus
+ * {@link #require(Object)} runs in expected <em>O</em>(1) time regardless of
+ * the capacity.
+ *
+ * <p><strong>Memory:</strong> per cached item, one {@code HashMap} entry and
+ * one list node, plus the map's bucket array. On a 64-bit JVM with
+ * compressed references that is about 64 bytes per entry, not counting the
+ * keys themselves.
+ */
+public final class HashLruPolicy<K> implements ReplacementPolicy<K> {
+  // The capacity of the cache:
+  private final int capacity;
+
+  // Maps each cached item to its node in the recency list:
+  private final Map<K, Node<K>> index;
+
+  // The sentinel of the circular recency list. The node after the sentinel
+  // is the least recently used item, and the node before it is the most
+  // recently used:
+  private final Node<K> sentinel = new Node<>(null);
+
+  // Where to record hits, misses and evictions, or null:
+  private PolicyStats stats = null;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - capacity > 0
+   *  - index.size() <= capacity
+   *  - the recency list contains exactly the nodes in index.values(),
+   *    and each node's key maps to that node in index
+   *  - sentinel.next.prev == sentinel and sentinel.prev.next == sentinel
+   *
+   * REPRESENTATION NOTE:
+   *
+   * The list is intrusive: the nodes stored in the hash index are the same
+   * nodes that are linked together, so a hit can unlink its node and move it
+   * to the back without searching. Because the list is circular through the
+   * sentinel, neither unlinking nor appending needs to special-case an empty
+   * list or the ends.
+   */
+
+  /**
+   * Creates a new LRU policy with capacity {@code capacity}.
+   *
+   * @param cap the capacity of the cache
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public HashLruPolicy(int cap) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+
+    capacity = cap;
+    index    = new HashMap<>();
+    sentinel.prev = sentinel;
+    sentinel.next = sentinel;
+  }
+
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  @Override
+  public K require(K item) {
+    Node<K> node = index.get(item);
+
+    if (node != null) {
+      // It's a hit! Move it to the most recently used end:
+      node.unlink();
+      node.linkBefore(sentinel);
+      if (stats != null) {
+        stats.recordHit();
+      }
+      return null;
+    }
+
+    // It's a miss!
+
+    if (stats != null) {
+      stats.recordMiss();
+    }
+
+    K evicted = null;
+
+    if (index.size() == capacity) {
+      // It's full, so evict the least recently used item. We reuse its node
+      // for the new item rather than allocating a fresh one.
+      node = sentinel.next;
+      node.unlink();
+      index.remove(node.key);
+      evicted  = node.key;
+      node.key = item;
+      if (stats != null) {
+        stats.recordEviction();
+      }
+    } else {
+      node = new Node<>(item);
+    }
+
+    node.linkBefore(sentinel);
+    index.put(item, node);
+    return evicted;
+  }
+
+  @Override
+  public K victim(K item) {
+    if (index.size() < capacity || index.containsKey(item)) {
+      return null;
+    }
+
+    return sentinel.next.key;
+  }
+
+  @Override
+  public boolean contains(K item) {
+    return index.containsKey(item);
+  }
+
+  /**
+   * Saves the state of this policy to a snapshot file, in the same format
+   * as {@link LruPolicy#save(Path, KeyCodec)}.
+   *
+   * @param file the file to write
+   * @param codec writes the items
+   * @throws IOException if writing fails
+   */
+  public void save(Path file, KeyCodec<? super K> codec) throws IOException {
+    try (DataOutputStream out =
+             Snapshots.create(file, Snapshots.LRU, capacity, index.size())) {
+      for (Node<K> node = sentinel.next; node != sentinel; node = node.next) {
+        codec.write(out, node.key);
+      }
+    }
+  }
+
+  /**
+   * Loads a policy from a snapshot file written by
+   * {@link #save(Path, KeyCodec)} or by {@link LruPolicy}.
+   *
+   * @param file the file to read
+   * @param codec reads the items
+   * @param <K> keys for cached items
+   * @return the policy
+   * @throws IOException if reading fails or the file is not an LRU snapshot
+   */
+  public static <K> HashLruPolicy<K> load(Path file, KeyCodec<K> codec)
+      throws IOException
+  {
+    int[] header = new int[2];
+    try (DataInputStream in = Snapshots.open(file, Snapshots.LRU, header)) {
+      HashLruPolicy<K> policy = new HashLruPolicy<>(header[0]);
+      for (int i = 0; i < header[1]; ++i) {
+        // Requiring the items from least to most recently used leaves them
+        // in the same order:
+        policy.require(codec.read(in));
+        if (policy.size() != i + 1) {
+          throw new IOException("corrupt policy snapshot: " + file);
+        }
+      }
+
+      Snapshots.expectEnd(in, file);
+      return policy;
+    }
+  }
+
+  /**
+   * A node in the doubly-linked recency list.
+   */
+  private static final class Node<K> {
+    K key;
+    Node<K> prev;
+    Node<K> next;
+
+    Node(K key) {
+      this.key = key;
+    }
+
+    /**
+     * Removes this node from the list it is in.
+     */
+    void unlink() {
+      prev.next = next;
+      next.prev = prev;
+    }
+
+    /**
+     * Inserts this node into a list immediately before {@code other}.
+     *
+     * @param other the node to insert before
+     */
+    void linkBefore(Node<K> other) {
+      prev = other.prev;
+      next = other;
+      other.prev.next = this;
+      other.prev = this;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HashLruPolicyTest {
+  ReplacementPolicy<Integer> policy = new HashLruPolicy<>(5);
+
+  @Test
+  public void extendedExample() {
+    assertEquals(5, policy.capacity());
+    assertEquals(0, policy.size());
+
+    policy.require(1);                            // 1 _ _ _ _
+    policy.require(2);                            // 1 2 _ _ _
+    policy.require(1);                            // 2 1 _ _ _
+    assertEquals(2, policy.size());
+
+    policy.require(3);                            // 2 1 3 _ _
+    policy.require(4);                            // 2 1 3 4 _
+    policy.require(1);                            // 2 3 4 1 _
+    policy.require(5);                            // 2 3 4 1 5
+    assertEquals(5, policy.size());
+
+    assertEquals((Integer) 2, policy.require(6)); // 3 4 1 5 6
+    assertEquals(5, policy.size());
+
+    assertNull(policy.require(5));                // 3 4 1 6 5
+    assertEquals((Integer) 3, policy.require(7)); // 4 1 6 5 7
+    assertNull(policy.require(4));                // 1 6 5 7 4
+    assertNull(policy.require(5));                // 1 6 7 4 5
+    assertEquals((Integer) 1, policy.require(8)); // 6 7 4 5 8
+    assertNull(policy.require(5));                // 6 7 4 8 5
+    assertEquals((Integer) 6, policy.require(3)); // 7 4 8 5 3
+    assertEquals((Integer) 7, policy.require(9)); // 4 8 5 3 9
+    assertEquals((Integer) 4, policy.require(0)); // 8 5 3 9 0
+    assertEquals((Integer) 8, policy.require(1)); // 5 3 9 0 1
+
+    assertEquals(5, policy.capacity());
+    assertEquals(5, policy.size());
+  }
+
+  @Test
+  public void testCapacityOne() {
+    ReplacementPolicy<String> policy1 = new HashLruPolicy<>(1);
+    assertNull(policy1.require("a"));
+    assertNull(policy1.require("a"));
+    assertEquals("a", policy1.require("b"));
+    assertEquals("b", policy1.require("a"));
+    assertEquals(1, policy1.size());
+  }
+
+  /*
+   * Checks that this policy agrees with the reference implementation
+   * {@link LruPolicy} on a long random stream of requests.
+   */
+  @Test
+  public void testAgreesWithLruPolicy() {
+    Random random = new Random(2015);
+
+    for (int cap = 1; cap <= 16; cap *= 2) {
+      ReplacementPolicy<Integer> expected = new LruPolicy<>(cap);
+      ReplacementPolicy<Integer> actual   = new HashLruPolicy<>(cap);
+
+      for (int i = 0; i < 10000; ++i) {
+        Integer item = random.nextInt(3 * cap);
+        assertEquals(expected.require(item), actual.require(item));
+        assertEquals(expected.size(), actual.size());
+      }
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadPolicy() {
+    new HashLruPolicy<Integer>(0);
+  }
+}
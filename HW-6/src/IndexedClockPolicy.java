@@ -0,0 +1,356 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A cache policy implementing the <a
+ * href="http://en.wikipedia.org/wiki/Page_replacement_algorithm#Clock">clock
+ * algorithm</a>, with a hash index for finding hits in constant time.
+ *
+ * <p>This evicts exactly the same items as {@link ClockPolicy}, but rather
+ * than scanning the buffer on every request it keeps an open-addressed table
+ * mapping each item to its slot. A hit therefore costs one lookup and sets
+ * one reference bit, and only a miss runs the hand sweep.
+ *
+ * <p><strong>Memory:</strong> the index stores {@code int} slot numbers
+ * rather than boxed entries, so per unit of capacity it costs one reference in
+ * {@code buffer}, one {@code boolean} in {@code refBits}, and from two to
+ * four {@code int}s in {@code table} (whose length is the power of two at
+ * least twice the capacity). On a 64-bit JVM with compressed references
+ * that is 13 to 21 bytes per entry, not counting the keys themselves.
+ */
+public final class IndexedClockPolicy<K> implements ReplacementPolicy<K> {
+  // The capacity of the cache:
+  private final int capacity;
+
+  // The circular buffer of items:
+  private final K[] buffer;
+
+  // Whether each item has been referenced since the last eviction cycle:
+  private final boolean[] refBits;
+
+  // The hash index; each entry is a slot in buffer plus one, or 0 if empty:
+  private final int[] table;
+
+  // table.length - 1, for reducing hashes to table indices:
+  private final int mask;
+
+  // The hand of the clock (i.e., the start index for the queue):
+  private int hand = 0;
+
+  // The number of items in the cache:
+  private int size = 0;
+
+  // How many slots from the hand on are known to be referenced, so that
+  // victim can resume its search where it last stopped:
+  private int scanned = 0;
+
+  // Where to record statistics, or null not to:
+  private PolicyStats stats = null;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - buffer.length == capacity
+   *  - refBits.length == capacity
+   *  - table.length is a power of two and table.length >= 2 * capacity
+   *  - hand < capacity
+   *  - size <= capacity
+   *  - scanned <= size, and refBits[offset(i)] for every i < scanned
+   *  - items in buffer are unique
+   *  - for every occupied slot s, exactly one entry of table is s + 1, and
+   *    it is reachable by linear probing from home(buffer[s]) without
+   *    crossing an empty (0) entry
+   *
+   * REPRESENTATION NOTE:
+   *
+   * The buffer, reference bits and hand work exactly as in ClockPolicy; see
+   * there for how the circular queue is laid out. The table is an
+   * open-addressed hash set of slot numbers using linear probing. Because
+   * the table never holds more than capacity entries it is at most half
+   * full, so probe sequences stay short. Removal uses backward-shift
+   * deletion rather than tombstones, so lookups never slow down over time.
+   *
+   * A hit only ever sets a reference bit, so once victim has seen that the
+   * slots from the hand up to scanned are all referenced, they stay that
+   * way until the next miss moves the hand. Thus repeated calls to victim
+   * between misses, as a TinyLfuFilter that keeps declining items makes,
+   * take amortized O(1) time rather than O(capacity) each.
+   */
+
+  /**
+   * Creates a new indexed clock queue with capacity {@code capacity}.
+   *
+   * @param cap the capacity of the queue.
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public IndexedClockPolicy(int cap) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    if (cap > 1 << 29) {
+      throw new IllegalArgumentException("capacity is too large");
+    }
+
+    // See ClockPolicy for why this cast is needed:
+    @SuppressWarnings("unchecked")
+    K[] temp = (K[]) new Object[cap];
+
+    capacity = cap;
+    buffer   = temp;
+    refBits  = new boolean[capacity];
+    table    = new int[Integer.highestOneBit(2 * cap - 1) << 1];
+    mask     = table.length - 1;
+  }
+
+  /**
+   * Starts recording hits, misses, evictions and hand travel in
+   * {@code stats}, or stops recording if it is {@code null}.
+   *
+   * @param stats where to record, or {@code null}
+   */
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public K require(K item) {
+    // First look the item up in the index. If it's there, we mark it as
+    // referenced and don't need to evict:
+    int i = home(item);
+    while (table[i] != 0) {
+      int slot = table[i] - 1;
+      if (buffer[slot].equals(item)) {
+        // It's a hit!
+        refBits[slot] = true;
+        if (stats != null) {
+          stats.recordHit();
+        }
+        return null;
+      }
+      i = (i + 1) & mask;
+    }
+
+    // It's a miss!
+
+    K evicted = null;
+
+    if (stats != null) {
+      stats.recordMiss();
+    }
+
+    // If it's full, we need to evict something. This is the same sweep as
+    // in ClockPolicy.
+    if (size == capacity) {
+
+      int travel = 1;
+      while (refBits[hand]) {
+        refBits[hand] = false;
+        hand = offset(1);
+        ++travel;
+      }
+
+      if (stats != null) {
+        stats.recordEviction(travel);
+      }
+
+      evicted = buffer[hand];
+      unindex(hand);
+      hand    = offset(1);
+      scanned = 0;
+      --size;
+
+      // Removing from the index may have shifted the empty entry we found
+      // above, so we need to look for one again:
+      i = home(item);
+      while (table[i] != 0) {
+        i = (i + 1) & mask;
+      }
+    }
+
+    // At this point, we know that size < capacity, so we can store the item
+    // on the new end of the queue and increment the size.
+
+    int slot = offset(size);
+    buffer[slot]  = item;
+    refBits[slot] = true;
+    table[i]      = slot + 1;
+    ++size;
+
+    return evicted;
+  }
+
+  @Override
+  public boolean contains(K item) {
+    for (int i = home(item); table[i] != 0; i = (i + 1) & mask) {
+      if (buffer[table[i] - 1].equals(item)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the item that {@code require(item)} would evict, as
+   * {@link ReplacementPolicy#victim(Object)} does. The search for an
+   * unreferenced slot picks up where the last call left off, unless a miss
+   * has moved the hand since, so calls between misses take amortized
+   * constant time.
+   *
+   * @param item the item that might be required (non-null)
+   * @return the item that would be evicted, or {@code null}
+   */
+  @Override
+  public K victim(K item) {
+    if (size < capacity || contains(item)) {
+      return null;
+    }
+
+    // See ClockPolicy#victim:
+    while (scanned < size && refBits[offset(scanned)]) {
+      ++scanned;
+    }
+
+    return scanned < size ? buffer[offset(scanned)] : buffer[hand];
+  }
+
+  /**
+   * Saves the state of this policy to a snapshot file, in the same format
+   * as {@link ClockPolicy#save(Path, KeyCodec)}.
+   *
+   * @param file the file to write
+   * @param codec writes the items
+   * @throws IOException if writing fails
+   */
+  public void save(Path file, KeyCodec<? super K> codec) throws IOException {
+    try (DataOutputStream out =
+             Snapshots.create(file, Snapshots.CLOCK, capacity, size)) {
+      out.writeInt(hand);
+
+      boolean[] bits = new boolean[size];
+      for (int i = 0; i < size; ++i) {
+        codec.write(out, buffer[offset(i)]);
+        bits[i] = refBits[offset(i)];
+      }
+      Snapshots.writeBits(out, bits);
+    }
+  }
+
+  /**
+   * Loads a policy from a snapshot file written by
+   * {@link #save(Path, KeyCodec)} or by {@link ClockPolicy}, rebuilding
+   * the index as it goes.
+   *
+   * @param file the file to read
+   * @param codec reads the items
+   * @param <K> keys for cached items
+   * @return the policy
+   * @throws IOException if reading fails or the file is not a clock
+   *   snapshot
+   */
+  public static <K> IndexedClockPolicy<K> load(Path file, KeyCodec<K> codec)
+      throws IOException
+  {
+    int[] header = new int[2];
+    try (DataInputStream in = Snapshots.open(file, Snapshots.CLOCK, header)) {
+      IndexedClockPolicy<K> policy = new IndexedClockPolicy<>(header[0]);
+
+      policy.hand = in.readInt();
+      if (policy.hand < 0 || policy.hand >= policy.capacity) {
+        throw new IOException("corrupt policy snapshot: " + file);
+      }
+
+      for (int n = header[1]; policy.size < n; ++policy.size) {
+        K   item = codec.read(in);
+        int slot = policy.offset(policy.size);
+
+        int i = policy.home(item);
+        while (policy.table[i] != 0) {
+          if (policy.buffer[policy.table[i] - 1].equals(item)) {
+            throw new IOException("corrupt policy snapshot: " + file);
+          }
+          i = (i + 1) & policy.mask;
+        }
+
+        policy.buffer[slot] = item;
+        policy.table[i]     = slot + 1;
+      }
+
+      boolean[] bits = Snapshots.readBits(in, policy.size);
+      for (int i = 0; i < policy.size; ++i) {
+        policy.refBits[policy.offset(i)] = bits[i];
+      }
+
+      Snapshots.expectEnd(in, file);
+      return policy;
+    }
+  }
+
+  /**
+   * Removes the index entry for the item in the given buffer slot, shifting
+   * later entries in the same probe run back so that they remain reachable.
+   *
+   * @param slot the buffer slot whose entry to remove (must be occupied)
+   */
+  private void unindex(int slot) {
+    int i = home(buffer[slot]);
+    while (table[i] != slot + 1) {
+      i = (i + 1) & mask;
+    }
+
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (table[j] == 0) {
+        break;
+      }
+
+      // The entry at j can fill the hole at i only if its home position
+      // is not cyclically within (i, j]; otherwise moving it would put it
+      // before its home, where lookups wouldn't find it.
+      int k = home(buffer[table[j] - 1]);
+      boolean stays = i <= j ? i < k && k <= j : i < k || k <= j;
+      if (!stays) {
+        table[i] = table[j];
+        i = j;
+      }
+    }
+
+    table[i] = 0;
+  }
+
+  /**
+   * Returns the index in {@code table} where the probe sequence for
+   * {@code item} starts.
+   *
+   * @param item the item (non-null)
+   * @return the table index
+   */
+  private int home(Object item) {
+    int h = item.hashCode() * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  /**
+   * Returns an absolute index into the arrays {@code buffer} and {@code
+   * refBits} given a relative index from the logical start of the queue.
+   *
+   * @param i the relative index
+   * @return the absolute index
+   */
+  private int offset(int i) {
+    return (hand + i) % capacity;
+  }
+}
@@ -0,0 +1,100 @@
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IndexedClockPolicyTest {
+  ReplacementPolicy<Integer> policy = new IndexedClockPolicy<>(5);
+
+  /**
+   * Sets up the test environment before each test case, exactly as in
+   * {@link ClockPolicyTest}: {@code ^1+ 2+ 3+ 4+ _}.
+   */
+  @Before
+  public void setUp() {
+    policy.require(1);    // ^1+ _  _  _  _
+    policy.require(2);    // ^1+ 2+ _  _  _
+    policy.require(3);    // ^1+ 2+ 3+ _  _
+    policy.require(4);    // ^1+ 2+ 3+ 4+ _
+  }
+
+  @Test
+  public void testSize() {
+    assertEquals(5, policy.capacity());
+    assertEquals(4, policy.size());
+    policy.require(1);                  // ^1+ 2+ 3+ 4+ _
+    assertEquals(4, policy.size());
+    policy.require(5);                  // ^1+ 2+ 3+ 4+ 5+
+    policy.require(6);                  //  6+^2  3  4  5
+    assertEquals(5, policy.size());
+  }
+
+  @Test
+  public void testRequire_long() {
+    policy.require(5);                            // ^1+ 2+ 3+ 4+ 5+
+    assertEquals((Integer) 1, policy.require(6)); //  6+^2  3  4  5
+    assertNull(policy.require(5));                //  6+^2  3  4  5+
+    assertEquals((Integer) 2, policy.require(1)); //  6+ 1+^3  4  5+
+    assertNull(policy.require(4));                //  6+ 1+^3  4+ 5+
+    assertNull(policy.require(5));                //  6+ 1+^3  4+ 5+
+    assertEquals((Integer) 3, policy.require(7)); //  6+ 1+ 7+^4+ 5+
+    assertNull(policy.require(4));                //  6+ 1+ 7+^4+ 5+
+    assertEquals((Integer) 4, policy.require(3)); //  6  1  7  3+^5
+    assertNull(policy.require(5));                //  6  1  7  3+^5+
+    assertNull(policy.require(1));                //  6  1+ 7  3+^5+
+    assertEquals((Integer) 6, policy.require(2)); //  2+^1+ 7  3+ 5+
+    assertEquals((Integer) 7, policy.require(4)); //  2+ 1  4+^3+ 5+
+  }
+
+  /*
+   * Checks that this policy agrees with {@link ClockPolicy} on long random
+   * streams. Keys that are multiples of 64 collide in the index, which
+   * exercises the backward-shift deletion.
+   */
+  @Test
+  public void testAgreesWithClockPolicy() {
+    Random random = new Random(2015);
+
+    for (int cap = 1; cap <= 64; cap *= 4) {
+      ReplacementPolicy<Integer> expected = new ClockPolicy<>(cap);
+      ReplacementPolicy<Integer> actual   = new IndexedClockPolicy<>(cap);
+
+      for (int i = 0; i < 20000; ++i) {
+        Integer item = random.nextBoolean()
+            ? random.nextInt(3 * cap)
+            : 64 * random.nextInt(2 * cap);
+        // Victim remembers how far it has looked, which hits mustn't upset:
+        assertEquals(expected.victim(item), actual.victim(item));
+        assertEquals(expected.require(item), actual.require(item));
+        assertEquals(expected.size(), actual.size());
+      }
+    }
+  }
+
+  @Test
+  public void testStatsAgreeWithClockPolicy() {
+    ClockPolicy<Integer>        expected = new ClockPolicy<>(16);
+    IndexedClockPolicy<Integer> actual   = new IndexedClockPolicy<>(16);
+    PolicyStats expectedStats = new PolicyStats();
+    PolicyStats actualStats   = new PolicyStats();
+    expected.recordStats(expectedStats);
+    actual.recordStats(actualStats);
+    Random random = new Random(12);
+
+    for (int i = 0; i < 5000; ++i) {
+      Integer item = random.nextInt(40);
+      expected.require(item);
+      actual.require(item);
+    }
+
+    assertEquals(expectedStats.toString(), actualStats.toString());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadPolicy() {
+    new IndexedClockPolicy<Integer>(0);
+  }
+}
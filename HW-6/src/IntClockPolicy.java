@@ -0,0 +1,372 @@
+/**
+ * A cache policy implementing the <a
+ * href="http://en.wikipedia.org/wiki/Page_replacement_algorithm#Clock">clock
+ * algorithm</a>, specialized for non-negative {@code int} keys such as page
+ * numbers.
+ *
+ * <p>This evicts exactly the same items as {@link ClockPolicy}, but stores
+ * keys unboxed in an {@code int[]} and packs the reference bits 64 to a
+ * {@code long}. The hand sweep examines a whole word at a time, using
+ * {@link Long#numberOfTrailingZeros(long)} to jump straight to the next
+ * unreferenced slot. Like {@link IndexedClockPolicy}, it finds hits through an
+ * open-addressed index.
+ *
+ * <p><strong>Memory:</strong> per unit of capacity, one {@code int} key, one
+ * bit, and from two to four {@code int}s of index: 12 to 20 bytes in all.
+ *
+ * <p>For interoperability this class also implements
+ * {@code ReplacementPolicy<Integer>}, but clients that care about speed
+ * should call {@link #require(int)}, which doesn't box.
+ */
+public final class IntClockPolicy implements ReplacementPolicy<Integer> {
+  /** The result of {@link #require(int)} when nothing is evicted. */
+  public static final int NONE = -1;
+
+  // The capacity of the cache:
+  private final int capacity;
+
+  // The circular buffer of keys:
+  private final int[] buffer;
+
+  // Whether each key has been referenced since the last eviction cycle, with
+  // slot i stored in bit (i % 64) of word (i / 64):
+  private final long[] refBits;
+
+  // The hash index; each entry is a slot in buffer plus one, or 0 if empty:
+  private final int[] table;
+
+  // table.length - 1, for reducing hashes to table indices:
+  private final int mask;
+
+  // The hand of the clock:
+  private int hand = 0;
+
+  // The number of keys in the cache:
+  private int size = 0;
+
+  // The slot, counting from the hand, at which victim next resumes its
+  // search for a clear bit; the slots before it are all referenced:
+  private int scanned = 0;
+
+  // Where to record hits, misses, evictions and hand travel, or null:
+  private PolicyStats stats = null;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - buffer.length == capacity
+   *  - refBits.length == ceil(capacity / 64)
+   *  - bits of refBits at or beyond index capacity are never set
+   *  - table.length is a power of two and table.length >= 2 * capacity
+   *  - hand < capacity
+   *  - size <= capacity
+   *  - scanned <= capacity, and once the cache is full, the bits of the
+   *    scanned slots from hand on are all set
+   *  - keys in buffer[0 .. size) are unique and non-negative
+   *  - the index represents slots [0 .. size) as in IndexedClockPolicy
+   *
+   * REPRESENTATION NOTE:
+   *
+   * As observed in ClockPolicy, the buffer fills from left to right and
+   * once full stays full, so hand is 0 until the first eviction. We rely
+   * on this here: while the cache isn't full, the next free slot is simply
+   * size, and once it is full, a new key always goes into the slot just
+   * evicted.
+   *
+   * Hits only set bits, so the slots victim has already found referenced
+   * stay referenced until the next miss moves the hand, and it can resume
+   * from there, as in IndexedClockPolicy.
+   */
+
+  /**
+   * Creates a new clock queue for {@code int} keys with capacity
+   * {@code capacity}.
+   *
+   * @param cap the capacity of the queue.
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public IntClockPolicy(int cap) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    if (cap > 1 << 29) {
+      throw new IllegalArgumentException("capacity is too large");
+    }
+
+    capacity = cap;
+    buffer   = new int[cap];
+    refBits  = new long[(cap + 63) >>> 6];
+    table    = new int[Integer.highestOneBit(2 * cap - 1) << 1];
+    mask     = table.length - 1;
+  }
+
+  /**
+   * Starts recording hits, misses, evictions and hand travel in
+   * {@code stats}, or stops recording if it is {@code null}.
+   *
+   * @param stats where to record, or {@code null}
+   */
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Boxing adapter for {@link #require(int)}.
+   *
+   * @param item the required item (non-null and non-negative)
+   * @return the evicted item or {@code null}
+   * @throws IllegalArgumentException if {@code item} is negative
+   */
+  @Override
+  public Integer require(Integer item) {
+    int evicted = require(item.intValue());
+    return evicted == NONE ? null : evicted;
+  }
+
+  /**
+   * Informs the policy manager that a particular key is required and must be
+   * brought into the cache if not already there. Returns the evicted key if
+   * eviction is required to make room, or {@link #NONE} otherwise.
+   *
+   * @param item the required key (non-negative)
+   * @return the evicted key or {@code NONE}
+   * @throws IllegalArgumentException if {@code item} is negative
+   */
+  public int require(int item) {
+    if (item < 0) {
+      throw new IllegalArgumentException("keys must be non-negative");
+    }
+
+    // First look the key up in the index. If it's there, we mark it as
+    // referenced and don't need to evict:
+    int i = home(item);
+    while (table[i] != 0) {
+      int slot = table[i] - 1;
+      if (buffer[slot] == item) {
+        // It's a hit!
+        refBits[slot >>> 6] |= 1L << slot;
+        if (stats != null) {
+          stats.recordHit();
+        }
+        return NONE;
+      }
+      i = (i + 1) & mask;
+    }
+
+    // It's a miss!
+
+    if (stats != null) {
+      stats.recordMiss();
+    }
+
+    int evicted = NONE;
+    int slot    = size;
+
+    if (size == capacity) {
+      // If the hand's own bit is set, finding the victim back at the hand
+      // means sweep went all the way around:
+      int     start  = hand;
+      boolean lapped = (refBits[hand >>> 6] & 1L << hand) != 0;
+
+      slot    = sweep();
+      evicted = buffer[slot];
+      if (stats != null) {
+        int travel = slot - start + 1;
+        if (slot < start || slot == start && lapped) {
+          travel += capacity;
+        }
+        stats.recordEviction(travel);
+      }
+      unindex(slot);
+      hand    = slot + 1 == capacity ? 0 : slot + 1;
+      scanned = 0;
+      --size;
+
+      // Removing from the index may have shifted the empty entry we found
+      // above, so we need to look for one again:
+      i = home(item);
+      while (table[i] != 0) {
+        i = (i + 1) & mask;
+      }
+    }
+
+    buffer[slot] = item;
+    refBits[slot >>> 6] |= 1L << slot;
+    table[i] = slot + 1;
+    ++size;
+
+    return evicted;
+  }
+
+  /**
+   * Boxing adapter for {@link #victim(int)}.
+   *
+   * @param item the item that might be required (non-null and non-negative)
+   * @return the item that would be evicted, or {@code null}
+   */
+  @Override
+  public Integer victim(Integer item) {
+    int victim = victim(item.intValue());
+    return victim == NONE ? null : victim;
+  }
+
+  /**
+   * Returns the key that {@code require(item)} would evict, without
+   * changing the state of the policy, or {@link #NONE} if it wouldn't evict
+   * anything.
+   *
+   * @param item the key that might be required
+   * @return the key that would be evicted, or {@code NONE}
+   */
+  public int victim(int item) {
+    if (size < capacity || contains(item)) {
+      return NONE;
+    }
+
+    // Look for the first clear bit at or after the hand, as sweep does, but
+    // without clearing anything, and starting past the slots we've already
+    // seen are set. If every bit is set, sweep would come back around to
+    // the hand.
+    while (scanned < capacity) {
+      int  pos   = hand + scanned < capacity ? hand + scanned
+                                             : hand + scanned - capacity;
+      int  word  = pos >>> 6;
+      long range = -1L << pos;
+      if (word == refBits.length - 1) {
+        range &= -1L >>> (-capacity & 63);
+      }
+
+      long clear = ~refBits[word] & range;
+      if (clear != 0) {
+        // The slots we've scanned are all set, so even if this is the
+        // hand's own word come back around, this slot is before the hand:
+        int slot = (word << 6) + Long.numberOfTrailingZeros(clear);
+        scanned += slot - pos;
+        return buffer[slot];
+      }
+
+      // Skip the rest of this word, stopping at the end of the buffer. Back
+      // in the hand's own word this overshoots, which ends the loop.
+      scanned += Math.min((word + 1) << 6, capacity) - pos;
+    }
+
+    scanned = capacity;
+    return buffer[hand];
+  }
+
+  /**
+   * Boxing adapter for {@link #contains(int)}.
+   *
+   * @param item the item (non-null)
+   * @return whether {@code item} is cached
+   */
+  @Override
+  public boolean contains(Integer item) {
+    return contains(item.intValue());
+  }
+
+  /**
+   * Returns whether a key is in the cache, without marking it referenced.
+   *
+   * @param item the key
+   * @return whether {@code item} is cached; never for a negative key
+   */
+  public boolean contains(int item) {
+    for (int i = home(item); table[i] != 0; i = (i + 1) & mask) {
+      if (buffer[table[i] - 1] == item) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Advances from the hand to the first unreferenced slot, clearing the
+   * reference bits it passes over, and returns that slot. This is the same
+   * sweep as in {@link ClockPolicy}, but each iteration handles the rest of
+   * a 64-slot word at once.
+   *
+   * <p><strong>PRECONDITION:</strong> the cache is full
+   *
+   * @return the slot to evict
+   */
+  private int sweep() {
+    int pos = hand;
+
+    while (true) {
+      int  word  = pos >>> 6;
+      // The slots from pos to the end of this word (or of the buffer):
+      long range = -1L << pos;
+      if (word == refBits.length - 1) {
+        range &= -1L >>> (-capacity & 63);
+      }
+
+      long clear = ~refBits[word] & range;
+      if (clear != 0) {
+        int victim = (word << 6) + Long.numberOfTrailingZeros(clear);
+        // Clear the bits we passed over, which were all set:
+        refBits[word] &= ~(range & ((1L << victim) - 1));
+        return victim;
+      }
+
+      refBits[word] &= ~range;
+      pos = (word + 1) << 6;
+      if (pos >= capacity) {
+        pos = 0;
+      }
+    }
+  }
+
+  /**
+   * Removes the index entry for the key in the given buffer slot, shifting
+   * later entries in the same probe run back so that they remain reachable.
+   *
+   * @param slot the buffer slot whose entry to remove (must be occupied)
+   */
+  private void unindex(int slot) {
+    int i = home(buffer[slot]);
+    while (table[i] != slot + 1) {
+      i = (i + 1) & mask;
+    }
+
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (table[j] == 0) {
+        break;
+      }
+
+      int k = home(buffer[table[j] - 1]);
+      boolean stays = i <= j ? i < k && k <= j : i < k || k <= j;
+      if (!stays) {
+        table[i] = table[j];
+        i = j;
+      }
+    }
+
+    table[i] = 0;
+  }
+
+  /**
+   * Returns the index in {@code table} where the probe sequence for
+   * {@code key} starts.
+   *
+   * @param key the key
+   * @return the table index
+   */
+  private int home(int key) {
+    int h = key * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
@@ -0,0 +1,82 @@
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IntClockPolicyTest {
+  IntClockPolicy policy = new IntClockPolicy(5);
+
+  @Test
+  public void testRequire_long() {
+    policy.require(1);                                // ^1+ _  _  _  _
+    policy.require(2);                                // ^1+ 2+ _  _  _
+    policy.require(3);                                // ^1+ 2+ 3+ _  _
+    policy.require(4);                                // ^1+ 2+ 3+ 4+ _
+    assertEquals(IntClockPolicy.NONE, policy.require(5));
+    assertEquals(5, policy.size());                   // ^1+ 2+ 3+ 4+ 5+
+    assertEquals(1, policy.require(6));               //  6+^2  3  4  5
+    assertEquals(IntClockPolicy.NONE, policy.require(5));
+    assertEquals(2, policy.require(1));               //  6+ 1+^3  4  5+
+    assertEquals(IntClockPolicy.NONE, policy.require(4));
+    assertEquals(IntClockPolicy.NONE, policy.require(5));
+    assertEquals(3, policy.require(7));               //  6+ 1+ 7+^4+ 5+
+    assertEquals(IntClockPolicy.NONE, policy.require(4));
+    assertEquals(4, policy.require(3));               //  6  1  7  3+^5
+    assertEquals(IntClockPolicy.NONE, policy.require(5));
+    assertEquals(IntClockPolicy.NONE, policy.require(1));
+    assertEquals(6, policy.require(2));               //  2+^1+ 7  3+ 5+
+    assertEquals(7, policy.require(4));               //  2+ 1  4+^3+ 5+
+    assertEquals(5, policy.size());
+  }
+
+  @Test
+  public void testRequire_boxed() {
+    ReplacementPolicy<Integer> boxed = new IntClockPolicy(2);
+    assertNull(boxed.require(10));
+    assertNull(boxed.require(20));
+    assertEquals((Integer) 10, boxed.require(30));
+    assertEquals((Integer) 20, boxed.require(40));
+  }
+
+  /*
+   * Checks that this policy agrees with {@link ClockPolicy} on long random
+   * streams, including capacities that span several bitset words and don't
+   * fill the last one.
+   */
+  @Test
+  public void testAgreesWithClockPolicy() {
+    Random random = new Random(2015);
+    int[] caps = { 1, 2, 63, 64, 65, 130, 200 };
+
+    for (int cap : caps) {
+      ReplacementPolicy<Integer> expected = new ClockPolicy<>(cap);
+      ReplacementPolicy<Integer> actual   = new IntClockPolicy(cap);
+      PolicyStats expectedStats = new PolicyStats();
+      PolicyStats actualStats   = new PolicyStats();
+      expected.recordStats(expectedStats);
+      actual.recordStats(actualStats);
+
+      for (int i = 0; i < 20000; ++i) {
+        Integer item = random.nextInt(2 * cap);
+        // Victim remembers how far it has looked, which hits mustn't upset:
+        assertEquals(expected.victim(item), actual.victim(item));
+        assertEquals(expected.require(item), actual.require(item));
+        assertEquals(expected.size(), actual.size());
+      }
+
+      assertEquals(expectedStats.toString(), actualStats.toString());
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegativeKey() {
+    policy.require(-3);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadPolicy() {
+    new IntClockPolicy(0);
+  }
+}
@@ -0,0 +1,68 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes keys to and reads them from binary streams, so that a policy's
+ * state can be saved in a snapshot file and loaded back.
+ *
+ * @param <K> the key type
+ */
+public interface KeyCodec<K> {
+  /** Keys that are {@code Long}s, as eight bytes each. */
+  KeyCodec<Long> LONGS = new KeyCodec<Long>() {
+    @Override
+    public void write(DataOutput out, Long key) throws IOException {
+      out.writeLong(key);
+    }
+
+    @Override
+    public Long read(DataInput in) throws IOException {
+      return in.readLong();
+    }
+  };
+
+  /** Keys that are {@code Integer}s, as four bytes each. */
+  KeyCodec<Integer> INTEGERS = new KeyCodec<Integer>() {
+    @Override
+    public void write(DataOutput out, Integer key) throws IOException {
+      out.writeInt(key);
+    }
+
+    @Override
+    public Integer read(DataInput in) throws IOException {
+      return in.readInt();
+    }
+  };
+
+  /** Keys that are {@code String}s, in modified UTF-8 (at most 65535 bytes). */
+  KeyCodec<String> STRINGS = new KeyCodec<String>() {
+    @Override
+    public void write(DataOutput out, String key) throws IOException {
+      out.writeUTF(key);
+    }
+
+    @Override
+    public String read(DataInput in) throws IOException {
+      return in.readUTF();
+    }
+  };
+
+  /**
+   * Writes one key, in at least one byte.
+   *
+   * @param out the stream to write to
+   * @param key the key
+   * @throws IOException if writing fails
+   */
+  void write(DataOutput out, K key) throws IOException;
+
+  /**
+   * Reads one key, as written by {@link #write(DataOutput, Object)}.
+   *
+   * @param in the stream to read from
+   * @return the key
+   * @throws IOException if reading fails
+   */
+  K read(DataInput in) throws IOException;
+}
@@ -1,4 +1,10 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * A cache policy implementing the <a
@@ -14,6 +20,9 @@ public final class LruPolicy<K> implements ReplacementPolicy<K>{
   // The circular buffer of items:
   private ArrayList<K> buffer;
 
+  // Where to record hits, misses and evictions, or null:
+  private PolicyStats stats = null;
+
   /**
    * Class Invariants:
    * capacity > 0
@@ -31,6 +40,11 @@ public final class LruPolicy<K> implements ReplacementPolicy<K>{
     buffer = new ArrayList<>(cap);
   }
 
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
   @Override
   public int capacity() {
     return capacity;
@@ -48,11 +62,17 @@ public final class LruPolicy<K> implements ReplacementPolicy<K>{
       if (buffer.get(i).equals(item)) {
         //its a hit
         buffer.add(buffer.remove(i));
+        if (stats != null) {
+          stats.recordHit();
+        }
         return null;
       }
     }
 
     //its a miss
+    if (stats != null) {
+      stats.recordMiss();
+    }
 
     int temp = 0;
     int index = 0;
@@ -61,6 +81,9 @@ public final class LruPolicy<K> implements ReplacementPolicy<K>{
     if(size == capacity) {
       //its full
       evicted = buffer.remove(0);
+      if (stats != null) {
+        stats.recordEviction();
+      }
     }
 
     buffer.add(item);
@@ -68,4 +91,67 @@ public final class LruPolicy<K> implements ReplacementPolicy<K>{
     return evicted;
   }
 
+  @Override
+  public K victim(K item) {
+    if (size < capacity || buffer.contains(item)) {
+      return null;
+    }
+
+    return buffer.get(0);
+  }
+
+  @Override
+  public boolean contains(K item) {
+    return buffer.contains(item);
+  }
+
+  /**
+   * Saves the state of this policy, its items from least to most recently
+   * used, to a snapshot file, from which {@link #load(Path, KeyCodec)} can
+   * rebuild it exactly.
+   *
+   * @param file the file to write
+   * @param codec writes the items
+   * @throws IOException if writing fails
+   */
+  public void save(Path file, KeyCodec<? super K> codec) throws IOException {
+    try (DataOutputStream out =
+             Snapshots.create(file, Snapshots.LRU, capacity, size)) {
+      for (K item : buffer) {
+        codec.write(out, item);
+      }
+    }
+  }
+
+  /**
+   * Loads a policy from a snapshot file written by
+   * {@link #save(Path, KeyCodec)} (or by {@link HashLruPolicy}).
+   *
+   * @param file the file to read
+   * @param codec reads the items
+   * @param <K> keys for cached items
+   * @return the policy
+   * @throws IOException if reading fails or the file is not an LRU snapshot
+   */
+  public static <K> LruPolicy<K> load(Path file, KeyCodec<K> codec)
+      throws IOException
+  {
+    int[] header = new int[2];
+    try (DataInputStream in = Snapshots.open(file, Snapshots.LRU, header)) {
+      LruPolicy<K> policy = new LruPolicy<>(header[0]);
+      Set<K> seen = new HashSet<>();
+      for (int i = 0; i < header[1]; ++i) {
+        K item = codec.read(in);
+        if (!seen.add(item)) {
+          throw new IOException("corrupt policy snapshot: " + file);
+        }
+        policy.buffer.add(item);
+      }
+      policy.size = header[1];
+
+      Snapshots.expectEnd(in, file);
+      return policy;
+    }
+  }
+
 }
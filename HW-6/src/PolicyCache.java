@@ -0,0 +1,310 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * A thread-safe key-value cache that keeps its values in a map and decides
+ * what to evict with a {@link ReplacementPolicy}.
+ *
+ * <p>The cache owns the policy: every entry stored is required from the
+ * policy, and whatever the policy evicts is dropped from the map in the same
+ * step, so the two can never disagree. Any policy that drops items only by
+ * evicting them works, including a {@link TinyLfuFilter}, whose rejections
+ * simply mean the new value isn't kept: a value is stored only if the
+ * policy then {@linkplain ReplacementPolicy#contains(Object) contains} its
+ * key. A policy whose items {@linkplain ReplacementPolicy#expires() expire},
+ * such as an {@link ExpiringLruPolicy}, would drop keys without the cache
+ * knowing, so it is rejected.
+ *
+ * <p>{@link #computeIfAbsent(Object, Function)} runs the loader outside the
+ * cache's lock, so slow loads don't hold up other keys. If several threads
+ * ask for the same missing key at once, only the first runs the loader; the
+ * rest wait for its result. A loader must not wait on its own key, whether
+ * by asking for it directly or by asking for a key that another thread's
+ * loader is loading while that loader waits on it in turn; either would
+ * wait forever, so it throws an exception instead.
+ *
+ * <p>Null keys and values are not allowed.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PolicyCache<K, V> {
+  // Decides what to evict:
+  private final ReplacementPolicy<K> policy;
+
+  // The cached values:
+  private final Map<K, V> values = new HashMap<>();
+
+  // Loads in progress, by key:
+  private final Map<K, Load<V>> loading = new HashMap<>();
+
+  // The load each thread is waiting for, by thread:
+  private final Map<Thread, Load<V>> waiting = new HashMap<>();
+
+  // Guards everything above:
+  private final Object lock = new Object();
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - values.keySet() is exactly the set of items cached by policy
+   *  - no key is in both values and loading
+   *  - following waiting from any thread to the owner of the load it
+   *    waits for, and so on, never comes back to a thread already seen
+   *
+   * REPRESENTATION NOTE:
+   *
+   * A key is in loading from the time some thread starts loading it until
+   * that thread has stored the result (or failed). Other threads that miss
+   * on the key meanwhile wait on the same FutureTask instead of starting
+   * their own loads, and are in waiting until it finishes. Before a thread
+   * waits, it follows that chain of waits from the load's owner; if the
+   * chain leads back to itself, waiting would deadlock.
+   */
+
+  /**
+   * Creates an empty cache that evicts according to {@code policy}. The
+   * cache takes over the policy, which no one else should use afterward.
+   *
+   * @param policy the policy (empty, and not one whose items expire)
+   * @throws IllegalArgumentException if {@code policy} isn't empty, or
+   *   {@link ReplacementPolicy#expires()} is true
+   */
+  public PolicyCache(ReplacementPolicy<K> policy) {
+    if (policy.size() != 0) {
+      throw new IllegalArgumentException("policy must be empty");
+    }
+    if (policy.expires()) {
+      throw new IllegalArgumentException("policy must not expire items");
+    }
+
+    this.policy = policy;
+  }
+
+  /**
+   * Returns the most entries the cache can hold.
+   *
+   * @return the capacity
+   */
+  public int capacity() {
+    return policy.capacity();
+  }
+
+  /**
+   * Returns the number of entries in the cache.
+   *
+   * @return the size
+   */
+  public int size() {
+    synchronized (lock) {
+      return values.size();
+    }
+  }
+
+  /**
+   * Returns the value cached for {@code key}, or {@code null} if there is
+   * none. A hit counts as a use of the key for the policy; a miss changes
+   * nothing.
+   *
+   * @param key the key
+   * @return the value or {@code null}
+   */
+  public V get(K key) {
+    Objects.requireNonNull(key);
+
+    synchronized (lock) {
+      return lookUp(key);
+    }
+  }
+
+  /**
+   * Caches {@code value} for {@code key}, replacing any value already
+   * there, and evicts another entry if the policy calls for it.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(K key, V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+
+    synchronized (lock) {
+      store(key, value);
+    }
+  }
+
+  /**
+   * Returns the value cached for {@code key}, computing and caching it with
+   * {@code loader} if there is none. If another thread is already loading
+   * the key, this waits for that load instead of running {@code loader}.
+   *
+   * <p>If {@code loader} returns {@code null}, nothing is cached and
+   * {@code null} is returned. If it throws, nothing is cached and the
+   * exception is rethrown to every thread waiting for that load.
+   *
+   * <p>{@code loader} may use the cache, but not to load {@code key} again,
+   * nor to load a key whose loader, in another thread, is waiting for
+   * {@code key}. Either would deadlock, so it throws instead.
+   *
+   * @param key the key
+   * @param loader computes the value for a key
+   * @return the cached or loaded value
+   * @throws IllegalStateException if waiting for {@code key} would
+   *   deadlock, because this thread is already loading it or a load it
+   *   waits on is
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(loader);
+
+    Thread  self = Thread.currentThread();
+    Load<V> task;
+    boolean mine = false;
+
+    synchronized (lock) {
+      V value = lookUp(key);
+      if (value != null) {
+        return value;
+      }
+
+      task = loading.get(key);
+      if (task == null) {
+        task = new Load<>(() -> loader.apply(key));
+        loading.put(key, task);
+        mine = true;
+      } else {
+        // Waiting for our own load, or for one whose owner is waiting for
+        // us, would never return:
+        for (Load<V> t = task; t != null; t = waiting.get(t.owner)) {
+          if (t.owner == self) {
+            throw new IllegalStateException("recursive load of key " + key);
+          }
+        }
+        waiting.put(self, task);
+      }
+    }
+
+    if (!mine) {
+      try {
+        return await(task);
+      } finally {
+        synchronized (lock) {
+          waiting.remove(self);
+        }
+      }
+    }
+
+    // Once run returns, the task is done, so await won't block:
+    task.run();
+
+    V value;
+    try {
+      value = await(task);
+    } catch (RuntimeException | Error e) {
+      synchronized (lock) {
+        loading.remove(key);
+      }
+      throw e;
+    }
+
+    synchronized (lock) {
+      loading.remove(key);
+
+      // A put may have come in during the load, in which case it wins:
+      V current = values.get(key);
+      if (current != null) {
+        return current;
+      }
+
+      if (value != null) {
+        store(key, value);
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Looks up a key, telling the policy if it's a hit.
+   *
+   * <p><strong>PRECONDITION:</strong> the caller holds {@code lock}
+   *
+   * @param key the key
+   * @return the value or {@code null}
+   */
+  private V lookUp(K key) {
+    V value = values.get(key);
+    if (value != null) {
+      policy.require(key);
+    }
+    return value;
+  }
+
+  /**
+   * Stores a value and evicts whatever the policy says to.
+   *
+   * <p><strong>PRECONDITION:</strong> the caller holds {@code lock}
+   *
+   * @param key the key
+   * @param value the value
+   */
+  private void store(K key, V value) {
+    K evicted = policy.require(key);
+    if (evicted != null) {
+      values.remove(evicted);
+    }
+
+    // A policy such as TinyLfuFilter may have declined the key:
+    if (policy.contains(key)) {
+      values.put(key, value);
+    }
+  }
+
+  /**
+   * A load in progress, which remembers the thread running it.
+   */
+  private static final class Load<V> extends FutureTask<V> {
+    final Thread owner = Thread.currentThread();
+
+    Load(Callable<V> loader) {
+      super(loader);
+    }
+  }
+
+  /**
+   * Waits for a load to finish, without giving up if interrupted (the
+   * interrupt is kept for the caller to see), and returns its result.
+   *
+   * @param task the load
+   * @return its result
+   */
+  private static <V> V await(FutureTask<V> task) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return task.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+/**
+ * Compares {@link PolicyCache} with the hand-rolled pairing it replaces: a
+ * {@code HashMap} for values beside a policy that is told about every
+ * access. Run it with {@code java PolicyCacheBenchmark}; each line reports
+ * the mean time per get-or-load and the hit ratio.
+ *
+ * <p>Keys follow a Zipf distribution over ten times the capacity. The
+ * capacity is kept small because {@link LruPolicy} scans its whole list on
+ * every request; with {@link HashLruPolicy} underneath, the difference
+ * between the two pairings is just the bookkeeping and the lock.
+ */
+public final class PolicyCacheBenchmark {
+  private static final int[] CAPACITIES = { 1 << 8, 1 << 11 };
+  private static final int   OPERATIONS = 2_000_000;
+
+  private PolicyCacheBenchmark() { }
+
+  /**
+   * A cache under test.
+   */
+  private interface Subject {
+    /**
+     * Returns the value for a key, loading it on a miss.
+     *
+     * @param key the key
+     * @return whether it was a hit
+     */
+    boolean access(Long key);
+  }
+
+  public static void main(String[] args) {
+    for (int cap : CAPACITIES) {
+      Long[] keys = keys(cap);
+
+      run("HashMap + LruPolicy", cap, keys, handRolled(new LruPolicy<>(cap)));
+      run("PolicyCache(LruPolicy)", cap, keys,
+          policyCache(new LruPolicy<>(cap)));
+      run("HashMap + HashLruPolicy", cap, keys,
+          handRolled(new HashLruPolicy<>(cap)));
+      run("PolicyCache(HashLruPolicy)", cap, keys,
+          policyCache(new HashLruPolicy<>(cap)));
+    }
+  }
+
+  /**
+   * The usual hand-rolled cache: look in the map, and on a miss load, store
+   * and drop whatever the policy evicts.
+   *
+   * @param policy the policy
+   * @return the subject
+   */
+  private static Subject handRolled(ReplacementPolicy<Long> policy) {
+    Map<Long, String> values = new HashMap<>();
+    return key -> {
+      if (values.get(key) != null) {
+        policy.require(key);
+        return true;
+      }
+
+      Long evicted = policy.require(key);
+      if (evicted != null) {
+        values.remove(evicted);
+      }
+      values.put(key, load(key));
+      return false;
+    };
+  }
+
+  /**
+   * The same through a {@link PolicyCache}.
+   *
+   * @param policy the policy
+   * @return the subject
+   */
+  private static Subject policyCache(ReplacementPolicy<Long> policy) {
+    PolicyCache<Long, String> cache = new PolicyCache<>(policy);
+    boolean[] hit = new boolean[1];
+    return key -> {
+      hit[0] = true;
+      cache.computeIfAbsent(key, k -> {
+        hit[0] = false;
+        return load(k);
+      });
+      return hit[0];
+    };
+  }
+
+  /**
+   * Stands in for an expensive load.
+   *
+   * @param key the key
+   * @return its value
+   */
+  private static String load(Long key) {
+    return "value";
+  }
+
+  /**
+   * Generates the request stream.
+   *
+   * @param cap the cache capacity
+   * @return the keys
+   */
+  private static Long[] keys(int cap) {
+    PrimitiveIterator.OfLong trace =
+        Traces.zipf(OPERATIONS, 10L * cap, 0.9, cap);
+    Long[] result = new Long[OPERATIONS];
+    for (int i = 0; i < OPERATIONS; ++i) {
+      result[i] = trace.nextLong();
+    }
+    return result;
+  }
+
+  /**
+   * Runs the stream twice, timing only the second pass so that the JIT has
+   * warmed up, and prints the result.
+   *
+   * @param name the name to report
+   * @param cap the capacity
+   * @param keys the request stream
+   * @param subject the cache
+   */
+  private static void run(String name, int cap, Long[] keys,
+                          Subject subject) {
+    for (Long key : keys) {
+      subject.access(key);
+    }
+
+    long hits  = 0;
+    long start = System.nanoTime();
+    for (Long key : keys) {
+      if (subject.access(key)) {
+        ++hits;
+      }
+    }
+    double nsPerOp = (double) (System.nanoTime() - start) / keys.length;
+
+    System.out.printf("%-28s capacity %6d: %8.1f ns/op, hit ratio %.3f%n",
+                      name, cap, nsPerOp, (double) hits / keys.length);
+  }
+}
@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PolicyCacheTest {
+  PolicyCache<String, Integer> cache =
+      new PolicyCache<>(new HashLruPolicy<>(2));
+
+  @Test
+  public void testGetAndPut() {
+    assertNull(cache.get("a"));
+    cache.put("a", 1);
+    cache.put("b", 2);
+    assertEquals((Integer) 1, cache.get("a"));
+    assertEquals((Integer) 2, cache.get("b"));
+    assertEquals(2, cache.size());
+    assertEquals(2, cache.capacity());
+  }
+
+  @Test
+  public void testEvicts() {
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.get("a");                   // "b" is now least recently used
+    cache.put("c", 3);
+    assertNull(cache.get("b"));
+    assertEquals((Integer) 1, cache.get("a"));
+    assertEquals((Integer) 3, cache.get("c"));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void testReplace() {
+    cache.put("a", 1);
+    cache.put("a", 10);
+    assertEquals((Integer) 10, cache.get("a"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testComputeIfAbsent() {
+    AtomicInteger loads = new AtomicInteger();
+    assertEquals((Integer) 1, cache.computeIfAbsent("a", k -> {
+      loads.incrementAndGet();
+      return 1;
+    }));
+    assertEquals((Integer) 1, cache.computeIfAbsent("a", k -> {
+      loads.incrementAndGet();
+      return 2;
+    }));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testNullLoadNotCached() {
+    assertNull(cache.computeIfAbsent("a", k -> null));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testFailedLoad() {
+    try {
+      cache.computeIfAbsent("a", k -> {
+        throw new IllegalStateException("boom");
+      });
+      assertTrue(false);
+    } catch (IllegalStateException e) {
+      assertEquals("boom", e.getMessage());
+    }
+
+    // It isn't cached, and a later load can succeed:
+    assertEquals(0, cache.size());
+    assertEquals((Integer) 5, cache.computeIfAbsent("a", k -> 5));
+  }
+
+  @Test
+  public void testRecursiveLoad() {
+    try {
+      cache.computeIfAbsent("a", k -> cache.computeIfAbsent("a", j -> 1));
+      assertTrue(false);
+    } catch (IllegalStateException e) {
+      // Expected, rather than waiting forever
+    }
+
+    // The failed load is cleared away:
+    assertEquals(0, cache.size());
+    assertEquals((Integer) 5, cache.computeIfAbsent("a", k -> 5));
+  }
+
+  @Test
+  public void testNestedLoad() {
+    assertEquals((Integer) 3, cache.computeIfAbsent("a", k ->
+        cache.computeIfAbsent("b", j -> 2) + 1));
+    assertEquals((Integer) 2, cache.get("b"));
+    assertEquals((Integer) 3, cache.get("a"));
+  }
+
+  @Test
+  public void testRejectedByFilter() {
+    PolicyCache<String, Integer> filtered =
+        new PolicyCache<>(new TinyLfuFilter<>(new HashLruPolicy<>(1)));
+    filtered.get("a");
+    filtered.put("a", 1);
+    filtered.get("a");
+    filtered.get("a");
+    // "b" is less popular than "a", so the filter turns it away:
+    filtered.put("b", 2);
+    assertNull(filtered.get("b"));
+    assertEquals((Integer) 1, filtered.get("a"));
+    assertEquals(1, filtered.size());
+  }
+
+  @Test
+  public void testPutDuringLoadWins() {
+    assertEquals((Integer) 2, cache.computeIfAbsent("a", k -> {
+      cache.put("a", 2);
+      return 1;
+    }));
+    assertEquals((Integer) 2, cache.get("a"));
+  }
+
+  /*
+   * Many threads ask for the same key at once while the first load is
+   * held up; the loader must run only once.
+   */
+  @Test
+  public void testSingleLoad() throws InterruptedException {
+    PolicyCache<Integer, String> shared =
+        new PolicyCache<>(new IndexedClockPolicy<>(100));
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> results = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+
+    for (int t = 0; t < 8; ++t) {
+      Thread thread = new Thread(() -> {
+        String value = shared.computeIfAbsent(7, k -> {
+          loads.incrementAndGet();
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          return "seven";
+        });
+        synchronized (results) {
+          results.add(value);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    started.await();
+    Thread.sleep(50);
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(1, loads.get());
+    assertEquals(8, results.size());
+    for (String value : results) {
+      assertEquals("seven", value);
+    }
+  }
+
+  /*
+   * Two threads each load a key whose loader asks for the other's key. The
+   * second to ask would deadlock, so it throws, which fails its own load
+   * and so the first thread's wait too.
+   */
+  @Test
+  public void testCrossedLoads() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(2);
+    List<Throwable> failures = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+
+    for (String[] keys : new String[][] { { "a", "b" }, { "b", "a" } }) {
+      Thread thread = new Thread(() -> {
+        try {
+          cache.computeIfAbsent(keys[0], k -> {
+            started.countDown();
+            try {
+              started.await();
+            } catch (InterruptedException e) {
+              throw new IllegalStateException(e);
+            }
+            return cache.computeIfAbsent(keys[1], j -> 1);
+          });
+        } catch (RuntimeException e) {
+          synchronized (failures) {
+            failures.add(e);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join(10000);
+      assertFalse(thread.isAlive());
+    }
+
+    assertEquals(2, failures.size());
+    for (Throwable failure : failures) {
+      assertTrue(failure instanceof IllegalStateException);
+    }
+    assertEquals(0, cache.size());
+    assertEquals((Integer) 5, cache.computeIfAbsent("a", k -> 5));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testExpiringPolicy() {
+    new PolicyCache<String, Integer>(new TinyLfuFilter<>(
+        new ExpiringLruPolicy<>(2, (item, cause) -> { })));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testPolicyInUse() {
+    ReplacementPolicy<String> policy = new HashLruPolicy<>(2);
+    policy.require("a");
+    new PolicyCache<String, Integer>(policy);
+  }
+}
@@ -0,0 +1,157 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for how a cache policy is doing: hits, misses, evictions, and,
+ * for clock policies, how far the hand travels to find each victim.
+ *
+ * <p>Recording is opt in. Every policy records directly into a
+ * {@code PolicyStats} given to its
+ * {@link ReplacementPolicy#recordStats(PolicyStats) recordStats} method, or
+ * to a {@link RecordingPolicy} wrapped around it; the clock policies also
+ * record hand travel. A policy with no statistics attached pays only a null
+ * check per request.
+ *
+ * <p>The counters are {@link LongAdder}s, so one {@code PolicyStats} can be
+ * shared by many policies (say, the segments of a {@link StripedPolicy})
+ * updated from different threads without contention. Reads are not atomic
+ * across counters, so a rate computed while requests are in flight is
+ * approximate.
+ */
+public final class PolicyStats {
+  // The number of requests for items already cached:
+  private final LongAdder hits = new LongAdder();
+
+  // The number of requests for items not cached:
+  private final LongAdder misses = new LongAdder();
+
+  // The number of items evicted:
+  private final LongAdder evictions = new LongAdder();
+
+  // The total number of slots a clock hand has advanced while evicting:
+  private final LongAdder handTravel = new LongAdder();
+
+  /**
+   * Records a request for an item already in the cache.
+   */
+  public void recordHit() {
+    hits.increment();
+  }
+
+  /**
+   * Records a request for an item not in the cache.
+   */
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  /**
+   * Records an eviction.
+   */
+  public void recordEviction() {
+    evictions.increment();
+  }
+
+  /**
+   * Records an eviction by a clock policy whose hand advanced {@code slots}
+   * slots, counting the victim's own, to find the victim.
+   *
+   * @param slots how far the hand moved (positive)
+   */
+  public void recordEviction(int slots) {
+    evictions.increment();
+    handTravel.add(slots);
+  }
+
+  /**
+   * Returns the number of hits recorded.
+   *
+   * @return the hit count
+   */
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of misses recorded.
+   *
+   * @return the miss count
+   */
+  public long missCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of requests recorded, hits plus misses.
+   *
+   * @return the request count
+   */
+  public long requestCount() {
+    return hitCount() + missCount();
+  }
+
+  /**
+   * Returns the number of evictions recorded.
+   *
+   * @return the eviction count
+   */
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the fraction of requests that were hits, or 0 if there have
+   * been none.
+   *
+   * @return the hit rate, 0 .. 1
+   */
+  public double hitRate() {
+    long hits     = hitCount();
+    long requests = hits + missCount();
+    return requests == 0 ? 0 : (double) hits / requests;
+  }
+
+  /**
+   * Returns the fraction of requests that were misses, or 0 if there have
+   * been none.
+   *
+   * @return the miss rate, 0 .. 1
+   */
+  public double missRate() {
+    long misses   = missCount();
+    long requests = hitCount() + misses;
+    return requests == 0 ? 0 : (double) misses / requests;
+  }
+
+  /**
+   * Returns the average number of slots a clock hand advanced per eviction,
+   * or 0 if there have been no evictions. The least possible average is 1,
+   * when every victim is found right at the hand; an average near the
+   * capacity means most reference bits are set at each sweep.
+   *
+   * @return the average hand travel
+   */
+  public double averageHandTravel() {
+    long evictions = evictionCount();
+    return evictions == 0 ? 0 : (double) handTravel.sum() / evictions;
+  }
+
+  /**
+   * Sets every counter back to zero. Requests recorded concurrently may or
+   * may not be counted.
+   */
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    evictions.reset();
+    handTravel.reset();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "requests=%d hits=%d misses=%d evictions=%d hitRate=%.4f"
+            + " averageHandTravel=%.2f",
+        requestCount(), hitCount(), missCount(), evictionCount(), hitRate(),
+        averageHandTravel());
+  }
+}
@@ -0,0 +1,45 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PolicyStatsTest {
+  PolicyStats stats = new PolicyStats();
+
+  @Test
+  public void testEmpty() {
+    assertEquals(0, stats.requestCount());
+    assertEquals(0, stats.hitRate(), 0);
+    assertEquals(0, stats.missRate(), 0);
+    assertEquals(0, stats.averageHandTravel(), 0);
+  }
+
+  @Test
+  public void testRates() {
+    stats.recordHit();
+    stats.recordHit();
+    stats.recordHit();
+    stats.recordMiss();
+    assertEquals(4, stats.requestCount());
+    assertEquals(0.75, stats.hitRate(), 1e-9);
+    assertEquals(0.25, stats.missRate(), 1e-9);
+  }
+
+  @Test
+  public void testHandTravel() {
+    stats.recordEviction(1);
+    stats.recordEviction(4);
+    assertEquals(2, stats.evictionCount());
+    assertEquals(2.5, stats.averageHandTravel(), 1e-9);
+  }
+
+  @Test
+  public void testReset() {
+    stats.recordHit();
+    stats.recordMiss();
+    stats.recordEviction(3);
+    stats.reset();
+    assertEquals(0, stats.requestCount());
+    assertEquals(0, stats.evictionCount());
+    assertEquals(0, stats.averageHandTravel(), 0);
+  }
+}
@@ -0,0 +1,101 @@
+import java.util.Objects;
+
+/**
+ * Wraps any cache policy to record its hits, misses and evictions in a
+ * {@link PolicyStats}, and optionally to report each eviction to a
+ * {@link RemovalListener}.
+ *
+ * <p>The wrapped policy does the recording, through its
+ * {@link ReplacementPolicy#recordStats(PolicyStats) recordStats} method,
+ * since only it knows whether a request hit: an {@link ExpiringLruPolicy}
+ * may drop expired items during a request, and a {@link TinyLfuFilter} may
+ * decline to admit an item at all. This wrapper attaches {@code stats} to
+ * the policy when it is created, so the policy shouldn't be given other
+ * statistics afterward.
+ *
+ * <p>To record a {@link StripedPolicy}, either wrap it as a whole or wrap
+ * each segment in its factory, with one shared {@code PolicyStats}.
+ *
+ * @param <K> keys for cached items
+ */
+public final class RecordingPolicy<K> implements ReplacementPolicy<K> {
+  // The policy being recorded:
+  private final ReplacementPolicy<K> policy;
+
+  // Told of each eviction, or null:
+  private final RemovalListener<? super K> listener;
+
+  /**
+   * Wraps a policy to record its statistics.
+   *
+   * @param policy the policy to wrap
+   * @param stats where to record
+   */
+  public RecordingPolicy(ReplacementPolicy<K> policy, PolicyStats stats) {
+    this.policy   = Objects.requireNonNull(policy);
+    this.listener = null;
+    policy.recordStats(Objects.requireNonNull(stats));
+  }
+
+  /**
+   * Wraps a policy to record its statistics and report its evictions.
+   *
+   * @param policy the policy to wrap
+   * @param stats where to record
+   * @param listener told of each eviction, with
+   *   {@link RemovalListener.Cause#EVICTED}
+   */
+  public RecordingPolicy(ReplacementPolicy<K> policy, PolicyStats stats,
+                         RemovalListener<? super K> listener) {
+    this.policy   = Objects.requireNonNull(policy);
+    this.listener = Objects.requireNonNull(listener);
+    policy.recordStats(Objects.requireNonNull(stats));
+  }
+
+  /**
+   * Records in {@code stats} instead, or stops recording if it is
+   * {@code null}.
+   *
+   * @param stats where to record, or {@code null}
+   */
+  @Override
+  public void recordStats(PolicyStats stats) {
+    policy.recordStats(stats);
+  }
+
+  @Override
+  public int capacity() {
+    return policy.capacity();
+  }
+
+  @Override
+  public int size() {
+    return policy.size();
+  }
+
+  @Override
+  public boolean expires() {
+    return policy.expires();
+  }
+
+  @Override
+  public K require(K item) {
+    K evicted = policy.require(item);
+
+    if (evicted != null && listener != null) {
+      listener.removed(evicted, RemovalListener.Cause.EVICTED);
+    }
+
+    return evicted;
+  }
+
+  @Override
+  public K victim(K item) {
+    return policy.victim(item);
+  }
+
+  @Override
+  public boolean contains(K item) {
+    return policy.contains(item);
+  }
+}
@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RecordingPolicyTest {
+  PolicyStats stats = new PolicyStats();
+  List<String> evicted = new ArrayList<>();
+  ReplacementPolicy<String> policy =
+      new RecordingPolicy<>(new HashLruPolicy<>(2), stats,
+                            (item, cause) -> evicted.add(item + ":" + cause));
+
+  @Test
+  public void testCounts() {
+    policy.require("a");          // miss
+    policy.require("b");          // miss
+    policy.require("a");          // hit
+    policy.require("c");          // miss, evicts "b"
+    policy.require("c");          // hit
+
+    assertEquals(2, stats.hitCount());
+    assertEquals(3, stats.missCount());
+    assertEquals(1, stats.evictionCount());
+    assertEquals(0.4, stats.hitRate(), 1e-9);
+    assertEquals(Arrays.asList("b:EVICTED"), evicted);
+  }
+
+  @Test
+  public void testAgreesWithClockStats() {
+    ClockPolicy<Integer> clock = new ClockPolicy<>(8);
+    PolicyStats direct = new PolicyStats();
+    clock.recordStats(direct);
+    ReplacementPolicy<Integer> wrapped =
+        new RecordingPolicy<>(new ClockPolicy<>(8), stats);
+    Random random = new Random(3);
+
+    for (int i = 0; i < 2000; ++i) {
+      Integer item = random.nextInt(20);
+      assertEquals(clock.require(item), wrapped.require(item));
+    }
+
+    assertEquals(direct.hitCount(), stats.hitCount());
+    assertEquals(direct.missCount(), stats.missCount());
+    assertEquals(direct.evictionCount(), stats.evictionCount());
+  }
+
+  @Test
+  public void testExpiredIsMiss() {
+    long[] now = { 0 };
+    ExpiringLruPolicy<String> inner = new ExpiringLruPolicy<>(
+        2, () -> now[0], 1, (item, cause) -> evicted.add(item + ":" + cause));
+    ReplacementPolicy<String> expiring = new RecordingPolicy<>(inner, stats);
+
+    inner.require("a", 5);        // miss
+    now[0] = 10;
+    expiring.require("a");        // miss, since "a" has expired
+
+    assertEquals(0, stats.hitCount());
+    assertEquals(2, stats.missCount());
+    assertEquals(0, stats.evictionCount());
+    assertEquals(Arrays.asList("a:EXPIRED"), evicted);
+  }
+
+  @Test
+  public void testDeclinedIsMiss() {
+    ReplacementPolicy<String> filtered =
+        new RecordingPolicy<>(new TinyLfuFilter<>(new FifoPolicy<>(1)), stats,
+                              (item, cause) -> evicted.add(item + ":" + cause));
+
+    filtered.require("a");        // miss
+    filtered.require("b");        // miss, declined
+    filtered.require("a");        // hit
+
+    assertEquals(1, stats.hitCount());
+    assertEquals(2, stats.missCount());
+    assertEquals(0, stats.evictionCount());
+    assertEquals(Arrays.asList(), evicted);
+  }
+
+  @Test
+  public void testStriped() {
+    ReplacementPolicy<Integer> striped =
+        new StripedPolicy<>(64, 4,
+                            cap -> new RecordingPolicy<>(
+                                new HashLruPolicy<>(cap), stats));
+    for (int i = 0; i < 100; ++i) {
+      striped.require(i % 10);
+    }
+    assertEquals(90, stats.hitCount());
+    assertEquals(10, stats.missCount());
+  }
+}
@@ -0,0 +1,26 @@
+/**
+ * Receives notice of items leaving a cache policy, whether they were evicted
+ * to make room or expired.
+ *
+ * @param <K> keys for cached items
+ */
+@FunctionalInterface
+public interface RemovalListener<K> {
+  /**
+   * Why an item was removed.
+   */
+  enum Cause {
+    /** The item was evicted to make room for another. */
+    EVICTED,
+    /** The item's time to live ran out. */
+    EXPIRED,
+  }
+
+  /**
+   * Called after an item has been removed from the policy.
+   *
+   * @param item the removed item
+   * @param cause why it was removed
+   */
+  void removed(K item, Cause cause);
+}
@@ -0,0 +1,51 @@
+import java.util.Locale;
+
+/**
+ * Static factory for choosing a {@link ReplacementPolicy} by name, so that
+ * the eviction strategy can come from configuration rather than code.
+ *
+ * <table>
+ *   <thead>
+ *     <tr>
+ *       <th>Name</th>
+ *       <th>Implementation</th>
+ *       <th>Bytes per entry</th>
+ *     </tr>
+ *   </thead>
+ *   <tr><td>{@code fifo}</td><td>{@link FifoPolicy}</td><td>12 to 20</td></tr>
+ *   <tr><td>{@code lru}</td><td>{@link HashLruPolicy}</td><td>about 64</td></tr>
+ *   <tr><td>{@code clock}</td><td>{@link IndexedClockPolicy}</td>
+ *     <td>13 to 21</td></tr>
+ *   <tr><td>{@code 2q}</td><td>{@link TwoQueuePolicy}</td>
+ *     <td>about 75, including ghosts</td></tr>
+ *   <caption>Policy names</caption>
+ * </table>
+ *
+ * <p>The sizes are per unit of capacity, allocated up front except for LRU and 2Q,
+ * on a 64-bit JVM with compressed references, and don't include the keys
+ * themselves. See each class for how they are made up.
+ */
+public final class ReplacementPolicies {
+  private ReplacementPolicies() { }
+
+  /**
+   * Creates a new, empty replacement policy.
+   *
+   * @param name the name of the policy, case-insensitive (see above)
+   * @param capacity the capacity of the cache
+   * @param <K> keys for cached items
+   * @return the new policy
+   * @throws IllegalArgumentException if {@code name} isn't a known policy or
+   *   {@code capacity < 1}
+   */
+  public static <K> ReplacementPolicy<K> create(String name, int capacity) {
+    switch (name.toLowerCase(Locale.ROOT)) {
+      case "fifo":  return new FifoPolicy<>(capacity);
+      case "lru":   return new HashLruPolicy<>(capacity);
+      case "clock": return new IndexedClockPolicy<>(capacity);
+      case "2q":    return new TwoQueuePolicy<>(capacity);
+      default:
+        throw new IllegalArgumentException("unknown policy: " + name);
+    }
+  }
+}
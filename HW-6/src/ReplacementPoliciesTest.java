@@ -0,0 +1,37 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplacementPoliciesTest {
+  @Test
+  public void testCreate() {
+    assertTrue(ReplacementPolicies.create("fifo", 3) instanceof FifoPolicy);
+    assertTrue(ReplacementPolicies.create("lru", 3) instanceof HashLruPolicy);
+    assertTrue(ReplacementPolicies.create("clock", 3)
+                   instanceof IndexedClockPolicy);
+    assertTrue(ReplacementPolicies.create("2q", 3) instanceof TwoQueuePolicy);
+  }
+
+  @Test
+  public void testCreate_caseInsensitive() {
+    assertTrue(ReplacementPolicies.create("LRU", 3) instanceof HashLruPolicy);
+  }
+
+  @Test
+  public void testCreate_capacity() {
+    ReplacementPolicy<String> policy = ReplacementPolicies.create("fifo", 7);
+    assertEquals(7, policy.capacity());
+    assertEquals(0, policy.size());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testCreate_unknown() {
+    ReplacementPolicies.create("random", 3);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testCreate_badCapacity() {
+    ReplacementPolicies.create("clock", 0);
+  }
+}
@@ -21,6 +21,30 @@ public interface ReplacementPolicy<K> {
    */
   public abstract K require(K item);
 
+  /**
+   * Returns the item that {@code require(item)} would evict, without
+   * changing the state of the policy. Returns {@code null} if requiring
+   * {@code item} wouldn't evict anything, because it's already cached or
+   * there's room for it.
+   *
+   * <p>This lets a client such as {@link TinyLfuFilter} decide whether an
+   * item is worth admitting before committing to the eviction.
+   *
+   * @param item the item that might be required (non-null)
+   * @return the item that would be evicted, or {@code null}
+   */
+  public abstract K victim(K item);
+
+  /**
+   * Returns whether an item is in the cache, without changing the state of
+   * the policy; unlike {@link #require(Object)}, this doesn't count as a
+   * reference to the item.
+   *
+   * @param item the item (non-null)
+   * @return whether {@code item} is cached
+   */
+  public abstract boolean contains(K item);
+
   /**
    * Returns the capacity of the cache.
    *
@@ -35,4 +59,29 @@ public interface ReplacementPolicy<K> {
    * @return number of items currently cached
    */
   public abstract int size();
+
+  /**
+   * Returns whether items can leave the cache other than by being evicted
+   * from {@link #require(Object)}, as they do from an
+   * {@link ExpiringLruPolicy} when they expire. A client that keeps its own
+   * copy of what is cached, such as {@link PolicyCache}, can't follow such
+   * a policy. Most policies don't, so by default this returns
+   * {@code false}.
+   *
+   * @return whether items may expire
+   */
+  public default boolean expires() {
+    return false;
+  }
+
+  /**
+   * Starts recording the outcome of each request in {@code stats}, or stops
+   * recording if it is {@code null}. Each call to {@link #require(Object)}
+   * records a hit or a miss, and a miss that evicts something records the
+   * eviction too. The policy decides these itself, since only it knows
+   * whether an item was cached (and, say, whether it has since expired).
+   *
+   * @param stats where to record, or {@code null}
+   */
+  public abstract void recordStats(PolicyStats stats);
 }
@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Times saving and loading snapshots of one million {@code Long} keys. Run
+ * it with {@code java SnapshotBenchmark}; each line reports the time for
+ * one save or load and the size of the file.
+ *
+ * <p>The caches are warmed through {@link IndexedClockPolicy} and
+ * {@link HashLruPolicy}, since filling the linear-scan policies to this
+ * size would take hours. Their snapshots are in the same formats, so they
+ * are loaded into {@link ClockPolicy} and {@link LruPolicy} as well.
+ */
+public final class SnapshotBenchmark {
+  private static final int CAPACITY = 1 << 20;
+  private static final int ROUNDS   = 5;
+
+  private SnapshotBenchmark() { }
+
+  /**
+   * A step to time.
+   */
+  private interface Step {
+    void run() throws IOException;
+  }
+
+  public static void main(String[] args) throws IOException {
+    IndexedClockPolicy<Long> clock = new IndexedClockPolicy<>(CAPACITY);
+    HashLruPolicy<Long>      lru   = new HashLruPolicy<>(CAPACITY);
+    for (long key = 0; key < 3L * CAPACITY; ++key) {
+      clock.require(key * 7 % (2L * CAPACITY));
+      lru.require(key * 7 % (2L * CAPACITY));
+    }
+
+    Path file = Files.createTempFile("policy", ".snapshot");
+    try {
+      time("IndexedClockPolicy.save", file,
+           () -> clock.save(file, KeyCodec.LONGS));
+      time("IndexedClockPolicy.load", file,
+           () -> IndexedClockPolicy.load(file, KeyCodec.LONGS));
+      time("ClockPolicy.load", file,
+           () -> ClockPolicy.load(file, KeyCodec.LONGS));
+
+      time("HashLruPolicy.save", file, () -> lru.save(file, KeyCodec.LONGS));
+      time("HashLruPolicy.load", file,
+           () -> HashLruPolicy.load(file, KeyCodec.LONGS));
+      time("LruPolicy.load", file,
+           () -> LruPolicy.load(file, KeyCodec.LONGS));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Runs a step several times and reports the fastest.
+   *
+   * @param name what to call it
+   * @param file the snapshot file, whose size is reported
+   * @param step the step
+   * @throws IOException if the step fails
+   */
+  private static void time(String name, Path file, Step step)
+      throws IOException
+  {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < ROUNDS; ++i) {
+      long start = System.nanoTime();
+      step.run();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+
+    System.out.printf("%-24s %8.1f ms  %,12d bytes%n",
+                      name, best / 1e6, Files.size(file));
+  }
+}
@@ -0,0 +1,195 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The file format shared by the policies' {@code save} and {@code load}
+ * methods.
+ *
+ * <p>A snapshot is a header followed by a body, all big-endian:
+ *
+ * <ul>
+ *   <li>the magic number {@code 0x48573653} ("HW6S"),
+ *   <li>one byte for the kind of state, {@link #LRU} or {@link #CLOCK},
+ *   <li>the capacity and the size, as {@code int}s,
+ *   <li>for {@code CLOCK} only, the position of the hand, as an {@code int},
+ *   <li>the keys, from the front of the queue to the back, each as written
+ *       by the {@link KeyCodec}, and
+ *   <li>for {@code CLOCK} only, the reference bits, in the same order,
+ *       packed eight to a byte starting from the low bit.
+ * </ul>
+ *
+ * <p>The capacity may be at most {@link #MAX_CAPACITY}, the most that every
+ * policy here supports, and each key must take at least one byte. Loading
+ * checks the header against these limits and the length of the file
+ * before allocating anything, so that a corrupt file fails with an
+ * {@code IOException} rather than an attempt to allocate a huge policy.
+ *
+ * <p>Both LRU policies write the same kind of snapshot, as do both clock
+ * policies, so a snapshot saved by one can be loaded by the other.
+ */
+final class Snapshots {
+  private Snapshots() { }
+
+  // The first four bytes of every snapshot:
+  private static final int MAGIC = 0x48573653;
+
+  // The size of the I/O buffers:
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  // The length of the header, in bytes:
+  private static final int HEADER_LENGTH = 13;
+
+  /** The largest capacity a snapshot may record. */
+  static final int MAX_CAPACITY = 1 << 29;
+
+  /** The kind of a snapshot of LRU state. */
+  static final byte LRU = 'L';
+
+  /** The kind of a snapshot of clock state. */
+  static final byte CLOCK = 'C';
+
+  /**
+   * Creates a snapshot file and writes its header.
+   *
+   * @param file the file to write
+   * @param kind {@code LRU} or {@code CLOCK}
+   * @param capacity the capacity of the policy
+   * @param size the number of cached items
+   * @return a buffered stream for the rest of the snapshot
+   * @throws IOException if writing fails, or {@code capacity} is more than
+   *   {@link #MAX_CAPACITY}
+   */
+  static DataOutputStream create(Path file, byte kind, int capacity, int size)
+      throws IOException
+  {
+    if (capacity > MAX_CAPACITY) {
+      throw new IOException("capacity too large for a snapshot: " + capacity);
+    }
+
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    try {
+      out.writeInt(MAGIC);
+      out.writeByte(kind);
+      out.writeInt(capacity);
+      out.writeInt(size);
+      return out;
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens a snapshot file and checks its header.
+   *
+   * @param file the file to read
+   * @param kind the expected kind
+   * @param header receives the capacity and the size
+   * @return a buffered stream for the rest of the snapshot
+   * @throws IOException if reading fails, the header is wrong, or the file
+   *   is too short for the size it records
+   */
+  static DataInputStream open(Path file, byte kind, int[] header)
+      throws IOException
+  {
+    long length = Files.size(file);
+
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+    try {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("not a policy snapshot: " + file);
+      }
+      if (in.readByte() != kind) {
+        throw new IOException("wrong kind of policy snapshot: " + file);
+      }
+
+      header[0] = in.readInt();
+      header[1] = in.readInt();
+      if (header[0] < 1 || header[0] > MAX_CAPACITY
+          || header[1] < 0 || header[1] > header[0]
+          || minimumLength(kind, header[1]) > length) {
+        throw new IOException("corrupt policy snapshot: " + file);
+      }
+      return in;
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Computes the shortest a snapshot can be, given that each key takes at
+   * least one byte.
+   *
+   * @param kind {@code LRU} or {@code CLOCK}
+   * @param size the number of cached items
+   * @return the least possible length of the file, in bytes
+   */
+  private static long minimumLength(byte kind, int size) {
+    long result = HEADER_LENGTH + (long) size;
+    if (kind == CLOCK) {
+      result += 4 + ((size + 7L) >>> 3);
+    }
+    return result;
+  }
+
+  /**
+   * Checks that a snapshot has been read to its end.
+   *
+   * @param in the stream
+   * @param file the file, for the error message
+   * @throws IOException if there is more
+   */
+  static void expectEnd(DataInputStream in, Path file) throws IOException {
+    if (in.read() != -1) {
+      throw new IOException("corrupt policy snapshot: " + file);
+    }
+  }
+
+  /**
+   * Writes reference bits packed eight to a byte.
+   *
+   * @param out the stream
+   * @param bits the bits, in queue order
+   * @throws IOException if writing fails
+   */
+  static void writeBits(DataOutputStream out, boolean[] bits)
+      throws IOException
+  {
+    for (int i = 0; i < bits.length; i += 8) {
+      int b = 0;
+      for (int j = 0; j < 8 && i + j < bits.length; ++j) {
+        if (bits[i + j]) {
+          b |= 1 << j;
+        }
+      }
+      out.write(b);
+    }
+  }
+
+  /**
+   * Reads reference bits as written by {@link #writeBits}.
+   *
+   * @param in the stream
+   * @param n the number of bits
+   * @return the bits, in queue order
+   * @throws IOException if reading fails
+   */
+  static boolean[] readBits(DataInputStream in, int n) throws IOException {
+    byte[] packed = new byte[(n + 7) >>> 3];
+    in.readFully(packed);
+
+    boolean[] bits = new boolean[n];
+    for (int i = 0; i < n; ++i) {
+      bits[i] = (packed[i >>> 3] & (1 << (i & 7))) != 0;
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,246 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SnapshotsTest {
+  Path file;
+  Random random = new Random(13);
+
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("policy", ".snapshot");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Requires random items from both policies, checking that they evict
+   * the same ones.
+   */
+  private void assertSameBehavior(ReplacementPolicy<Integer> expected,
+                                  ReplacementPolicy<Integer> actual) {
+    assertEquals(expected.capacity(), actual.capacity());
+    assertEquals(expected.size(), actual.size());
+
+    for (int i = 0; i < 2000; ++i) {
+      Integer item = random.nextInt(60);
+      assertEquals(expected.require(item), actual.require(item));
+    }
+  }
+
+  /**
+   * Requires enough random items to fill a policy and wrap the clock hand.
+   */
+  private void warm(ReplacementPolicy<Integer> policy, int n) {
+    for (int i = 0; i < n; ++i) {
+      policy.require(random.nextInt(60));
+    }
+  }
+
+  @Test
+  public void testClock() throws IOException {
+    ClockPolicy<Integer> policy = new ClockPolicy<>(32);
+    warm(policy, 500);
+    policy.save(file, KeyCodec.INTEGERS);
+    assertSameBehavior(policy, ClockPolicy.load(file, KeyCodec.INTEGERS));
+  }
+
+  @Test
+  public void testClockPartlyFull() throws IOException {
+    ClockPolicy<Integer> policy = new ClockPolicy<>(32);
+    warm(policy, 10);
+    policy.save(file, KeyCodec.INTEGERS);
+    assertSameBehavior(policy, ClockPolicy.load(file, KeyCodec.INTEGERS));
+  }
+
+  @Test
+  public void testIndexedClock() throws IOException {
+    IndexedClockPolicy<Integer> policy = new IndexedClockPolicy<>(32);
+    warm(policy, 500);
+    policy.save(file, KeyCodec.INTEGERS);
+    assertSameBehavior(policy,
+                       IndexedClockPolicy.load(file, KeyCodec.INTEGERS));
+  }
+
+  @Test
+  public void testClockToIndexedClock() throws IOException {
+    ClockPolicy<Integer> policy = new ClockPolicy<>(32);
+    warm(policy, 500);
+    policy.save(file, KeyCodec.INTEGERS);
+    assertSameBehavior(policy,
+                       IndexedClockPolicy.load(file, KeyCodec.INTEGERS));
+  }
+
+  @Test
+  public void testLru() throws IOException {
+    LruPolicy<Integer> policy = new LruPolicy<>(32);
+    warm(policy, 500);
+    policy.save(file, KeyCodec.INTEGERS);
+    assertSameBehavior(policy, LruPolicy.load(file, KeyCodec.INTEGERS));
+  }
+
+  @Test
+  public void testHashLruToLru() throws IOException {
+    HashLruPolicy<Integer> policy = new HashLruPolicy<>(32);
+    warm(policy, 500);
+    policy.save(file, KeyCodec.INTEGERS);
+    assertSameBehavior(policy, LruPolicy.load(file, KeyCodec.INTEGERS));
+  }
+
+  @Test
+  public void testStrings() throws IOException {
+    HashLruPolicy<String> policy = new HashLruPolicy<>(3);
+    policy.require("a");
+    policy.require("b");
+    policy.require("c");
+    policy.require("a");
+    policy.save(file, KeyCodec.STRINGS);
+
+    HashLruPolicy<String> loaded = HashLruPolicy.load(file, KeyCodec.STRINGS);
+    assertEquals("b", loaded.require("d"));
+    assertEquals("c", loaded.require("e"));
+  }
+
+  @Test (expected = IOException.class)
+  public void testWrongKind() throws IOException {
+    new LruPolicy<Integer>(4).save(file, KeyCodec.INTEGERS);
+    ClockPolicy.load(file, KeyCodec.INTEGERS);
+  }
+
+  @Test (expected = IOException.class)
+  public void testNotASnapshot() throws IOException {
+    Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+    LruPolicy.load(file, KeyCodec.INTEGERS);
+  }
+
+  @Test (expected = IOException.class)
+  public void testTruncated() throws IOException {
+    ClockPolicy<Integer> policy = new ClockPolicy<>(8);
+    warm(policy, 50);
+    policy.save(file, KeyCodec.INTEGERS);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+    ClockPolicy.load(file, KeyCodec.INTEGERS);
+  }
+
+  /**
+   * Writes an LRU snapshot that holds 7 twice.
+   */
+  private void writeLruDuplicate() throws IOException {
+    try (DataOutputStream out =
+             Snapshots.create(file, Snapshots.LRU, 4, 2)) {
+      out.writeInt(7);
+      out.writeInt(7);
+    }
+  }
+
+  /**
+   * Writes a clock snapshot that holds 7 twice.
+   */
+  private void writeClockDuplicate() throws IOException {
+    try (DataOutputStream out =
+             Snapshots.create(file, Snapshots.CLOCK, 4, 3)) {
+      out.writeInt(1);
+      out.writeInt(7);
+      out.writeInt(8);
+      out.writeInt(7);
+      Snapshots.writeBits(out, new boolean[] { true, false, true });
+    }
+  }
+
+  /**
+   * Writes just the header of a snapshot.
+   */
+  private void writeHeader(byte kind, int capacity, int size)
+      throws IOException {
+    try (DataOutputStream out = new DataOutputStream(
+             Files.newOutputStream(file))) {
+      out.writeInt(0x48573653);
+      out.writeByte(kind);
+      out.writeInt(capacity);
+      out.writeInt(size);
+    }
+  }
+
+  /*
+   * A corrupt capacity would have each loader allocate a huge policy.
+   */
+  @Test
+  public void testHugeCapacity() throws IOException {
+    writeHeader(Snapshots.LRU, Integer.MAX_VALUE, 0);
+    assertLoadFails(() -> LruPolicy.load(file, KeyCodec.INTEGERS));
+    assertLoadFails(() -> HashLruPolicy.load(file, KeyCodec.INTEGERS));
+
+    writeHeader(Snapshots.CLOCK, Integer.MAX_VALUE, 0);
+    assertLoadFails(() -> ClockPolicy.load(file, KeyCodec.INTEGERS));
+    assertLoadFails(() -> IndexedClockPolicy.load(file, KeyCodec.INTEGERS));
+  }
+
+  /*
+   * A size too big for the file is caught before anything is allocated.
+   */
+  @Test
+  public void testSizeBeyondFile() throws IOException {
+    writeHeader(Snapshots.LRU, Snapshots.MAX_CAPACITY, 1 << 28);
+    assertLoadFails(() -> LruPolicy.load(file, KeyCodec.INTEGERS));
+    assertLoadFails(() -> HashLruPolicy.load(file, KeyCodec.INTEGERS));
+
+    writeHeader(Snapshots.CLOCK, Snapshots.MAX_CAPACITY, 1 << 28);
+    assertLoadFails(() -> ClockPolicy.load(file, KeyCodec.INTEGERS));
+    assertLoadFails(() -> IndexedClockPolicy.load(file, KeyCodec.INTEGERS));
+  }
+
+  /** Loads a snapshot from the test file. */
+  private interface Loader {
+    void load() throws IOException;
+  }
+
+  /**
+   * Checks that loading fails with an {@code IOException}.
+   */
+  private static void assertLoadFails(Loader loader) {
+    try {
+      loader.load();
+      fail("loaded a corrupt snapshot");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  @Test (expected = IOException.class)
+  public void testDuplicate() throws IOException {
+    writeLruDuplicate();
+    HashLruPolicy.load(file, KeyCodec.INTEGERS);
+  }
+
+  @Test (expected = IOException.class)
+  public void testDuplicateLru() throws IOException {
+    writeLruDuplicate();
+    LruPolicy.load(file, KeyCodec.INTEGERS);
+  }
+
+  @Test (expected = IOException.class)
+  public void testDuplicateClock() throws IOException {
+    writeClockDuplicate();
+    ClockPolicy.load(file, KeyCodec.INTEGERS);
+  }
+
+  @Test (expected = IOException.class)
+  public void testDuplicateIndexedClock() throws IOException {
+    writeClockDuplicate();
+    IndexedClockPolicy.load(file, KeyCodec.INTEGERS);
+  }
+}
@@ -0,0 +1,189 @@
+import java.util.function.IntFunction;
+
+/**
+ * A thread-safe replacement policy that divides the key space among several
+ * independent segments, each with its own policy and its own lock.
+ *
+ * <p>Each item belongs to exactly one segment, chosen by its hash code, and
+ * each segment manages an equal share of the total capacity using whatever
+ * single-threaded policy the client supplies (for example,
+ * {@link IndexedClockPolicy} or {@link HashLruPolicy}). Requests for items in
+ * different segments don't contend, so throughput scales with the number of
+ * segments rather than being limited by one global lock.
+ *
+ * <p>The price is that eviction order is only approximately global: a
+ * segment evicts its own least-valuable item when <em>it</em> is full, even
+ * if another segment holds an item that is less valuable still. With keys
+ * that hash evenly and enough items per segment, the difference is small.
+ *
+ * @param <K> keys for cached items
+ */
+public final class StripedPolicy<K> implements ReplacementPolicy<K> {
+  /** The largest number of segments supported. */
+  public static final int MAX_STRIPES = 1 << 16;
+
+  // The capacity of the cache:
+  private final int capacity;
+
+  // The segments; each is guarded by its own monitor:
+  private final ReplacementPolicy<K>[] segments;
+
+  // segments.length - 1, for reducing hashes to segment indices:
+  private final int mask;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - segments.length is a power of two
+   *  - the segment capacities sum to capacity
+   *  - every segment has capacity at least 1
+   *  - an item is only ever passed to segments[segmentFor(item)]
+   *  - each segment is only accessed while holding its monitor
+   */
+
+  /**
+   * Creates a new striped policy.
+   *
+   * @param cap the total capacity of the cache
+   * @param stripes the number of segments, rounded up to a power of two
+   *                (at most {@link #MAX_STRIPES})
+   * @param factory creates a new, unshared policy of the given capacity
+   *                for each segment
+   * @throws IllegalArgumentException {@code cap < 1}, {@code stripes} is out
+   *   of range, or {@code cap} is less than {@code stripes} rounded up
+   */
+  public StripedPolicy(int cap, int stripes,
+                       IntFunction<? extends ReplacementPolicy<K>> factory)
+  {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    if (stripes < 1 || stripes > MAX_STRIPES) {
+      throw new IllegalArgumentException("stripes must be 1 to " + MAX_STRIPES);
+    }
+
+    int n = Integer.highestOneBit(2 * stripes - 1);
+    if (cap < n) {
+      throw new IllegalArgumentException("capacity must cover every stripe");
+    }
+
+    // See ClockPolicy for why this cast is needed:
+    @SuppressWarnings("unchecked")
+    ReplacementPolicy<K>[] temp = (ReplacementPolicy<K>[])
+        new ReplacementPolicy<?>[n];
+
+    for (int i = 0; i < n; ++i) {
+      // Spread the remainder over the first few segments:
+      temp[i] = factory.apply(cap / n + (i < cap % n ? 1 : 0));
+    }
+
+    capacity = cap;
+    segments = temp;
+    mask     = n - 1;
+  }
+
+  /**
+   * Starts recording every segment's requests in {@code stats}, or stops
+   * recording if it is {@code null}. A {@link PolicyStats} may be updated
+   * from many threads at once, so the segments can share it.
+   *
+   * @param stats where to record, or {@code null}
+   */
+  @Override
+  public void recordStats(PolicyStats stats) {
+    for (ReplacementPolicy<K> segment : segments) {
+      synchronized (segment) {
+        segment.recordStats(stats);
+      }
+    }
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of items currently in the cache. While other threads
+   * are calling {@link #require(Object)} this is only a snapshot, since each
+   * segment is counted at a slightly different moment, but it never exceeds
+   * {@code capacity()}.
+   *
+   * @return number of items currently cached
+   */
+  @Override
+  public int size() {
+    int result = 0;
+    for (ReplacementPolicy<K> segment : segments) {
+      synchronized (segment) {
+        result += segment.size();
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean expires() {
+    for (ReplacementPolicy<K> segment : segments) {
+      synchronized (segment) {
+        if (segment.expires()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Informs the policy manager that a particular item is required. Safe to
+   * call from multiple threads at once. The evicted item, if any, comes from
+   * the same segment as {@code item}.
+   *
+   * @param item the required item (non-null)
+   * @return the evicted item or {@code null}
+   */
+  @Override
+  public K require(K item) {
+    ReplacementPolicy<K> segment = segments[segmentFor(item)];
+    synchronized (segment) {
+      return segment.require(item);
+    }
+  }
+
+  @Override
+  public K victim(K item) {
+    ReplacementPolicy<K> segment = segments[segmentFor(item)];
+    synchronized (segment) {
+      return segment.victim(item);
+    }
+  }
+
+  @Override
+  public boolean contains(K item) {
+    ReplacementPolicy<K> segment = segments[segmentFor(item)];
+    synchronized (segment) {
+      return segment.contains(item);
+    }
+  }
+
+  /**
+   * Returns the number of segments.
+   *
+   * @return the number of segments
+   */
+  public int stripes() {
+    return segments.length;
+  }
+
+  /**
+   * Chooses the segment for an item.
+   *
+   * @param item the item (non-null)
+   * @return the index of its segment
+   */
+  private int segmentFor(Object item) {
+    // Use the high bits, since the segment policies hash on the low ones:
+    int h = item.hashCode() * 0x9E3779B9;
+    return (h >>> 16) & mask;
+  }
+}
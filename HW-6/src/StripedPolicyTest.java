@@ -0,0 +1,97 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StripedPolicyTest {
+  @Test
+  public void testCapacity() {
+    StripedPolicy<Integer> policy = new StripedPolicy<>(10, 3, ClockPolicy::new);
+    assertEquals(10, policy.capacity());
+    assertEquals(4, policy.stripes());
+    assertEquals(0, policy.size());
+  }
+
+  /*
+   * With a single stripe, the striped policy is just a locked wrapper, so
+   * it must agree with the underlying policy exactly.
+   */
+  @Test
+  public void testOneStripe() {
+    ReplacementPolicy<Integer> expected = new HashLruPolicy<>(7);
+    ReplacementPolicy<Integer> actual =
+        new StripedPolicy<>(7, 1, HashLruPolicy::new);
+    Random random = new Random(2015);
+
+    for (int i = 0; i < 10000; ++i) {
+      Integer item = random.nextInt(20);
+      assertEquals(expected.require(item), actual.require(item));
+      assertEquals(expected.size(), actual.size());
+    }
+  }
+
+  @Test
+  public void testHitIsNotEvicted() {
+    ReplacementPolicy<String> policy =
+        new StripedPolicy<>(64, 8, IndexedClockPolicy::new);
+    assertNull(policy.require("a"));
+    assertNull(policy.require("a"));
+    assertEquals(1, policy.size());
+  }
+
+  /*
+   * Hammers the policy from several threads while another thread checks
+   * that the size never exceeds the capacity.
+   */
+  @Test
+  public void testStress() throws InterruptedException {
+    ReplacementPolicy<Integer> policy =
+        new StripedPolicy<>(1000, 16, IndexedClockPolicy::new);
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicBoolean overfull = new AtomicBoolean(false);
+
+    Thread checker = new Thread(() -> {
+      while (running.get()) {
+        if (policy.size() > policy.capacity()) {
+          overfull.set(true);
+        }
+      }
+    });
+    checker.start();
+
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < 8; ++t) {
+      Random random = new Random(t);
+      workers.add(new Thread(() -> {
+        for (int i = 0; i < 200000; ++i) {
+          policy.require(random.nextInt(4000));
+        }
+      }));
+    }
+
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    running.set(false);
+    checker.join();
+
+    assertFalse(overfull.get());
+    assertTrue(policy.size() <= policy.capacity());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testTooManyStripes() {
+    new StripedPolicy<Integer>(3, 4, ClockPolicy::new);
+  }
+}
@@ -0,0 +1,119 @@
+/**
+ * Wraps a {@link ReplacementPolicy} with a <a
+ * href="http://arxiv.org/abs/1512.00727">TinyLFU</a> admission filter, which
+ * keeps items that are seen only once from displacing more popular ones.
+ *
+ * <p>Every request is counted in a {@link FrequencySketch}. On a miss that
+ * would evict something, the filter asks the wrapped policy which item it
+ * would evict (see {@link ReplacementPolicy#victim(Object)}) and admits the
+ * new item only if it has been seen more often recently than that victim.
+ * Otherwise the wrapped policy isn't touched at all, and
+ * {@link #require(Object)} evicts nothing and returns {@code null}; the
+ * client can tell the item was declined because {@link #contains(Object)}
+ * is still false, and should not cache it. Under a skewed (<i>e.g.</i>,
+ * Zipfian)
+ * popularity distribution this keeps one-hit wonders out of the cache.
+ *
+ * <p>Misses that don't need to evict anything are always admitted, and hits
+ * are passed straight through, so the wrapped policy still decides recency.
+ *
+ * @param <K> keys for cached items
+ */
+public final class TinyLfuFilter<K> implements ReplacementPolicy<K> {
+  // The policy that manages the admitted items:
+  private final ReplacementPolicy<K> policy;
+
+  // Recent request frequencies:
+  private final FrequencySketch sketch;
+
+  // Where to record declined items, or null:
+  private PolicyStats stats = null;
+
+  /**
+   * Wraps a policy with an admission filter.
+   *
+   * @param policy the policy to wrap; the filter takes it over, and it
+   *               shouldn't be used directly afterward
+   */
+  public TinyLfuFilter(ReplacementPolicy<K> policy) {
+    this.policy = policy;
+    this.sketch = new FrequencySketch(policy.capacity());
+  }
+
+  /**
+   * Starts recording in {@code stats}, or stops recording if it is
+   * {@code null}. Requests the filter admits are recorded by the wrapped
+   * policy; a request it declines counts as a miss, and evicts nothing.
+   *
+   * @param stats where to record, or {@code null}
+   */
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+    policy.recordStats(stats);
+  }
+
+  @Override
+  public int capacity() {
+    return policy.capacity();
+  }
+
+  @Override
+  public int size() {
+    return policy.size();
+  }
+
+  @Override
+  public boolean expires() {
+    return policy.expires();
+  }
+
+  /**
+   * Informs the policy manager that a particular item is required. Returns
+   * the evicted item if the item was admitted and eviction was required to
+   * make room, or {@code null} otherwise, including when the filter
+   * declined to admit the item; {@link #contains(Object)} tells which.
+   *
+   * @param item the required item (non-null)
+   * @return the evicted item or {@code null}
+   */
+  @Override
+  public K require(K item) {
+    sketch.increment(item);
+
+    K victim = policy.victim(item);
+    if (victim != null && sketch.frequency(item) <= sketch.frequency(victim)) {
+      if (stats != null) {
+        stats.recordMiss();
+      }
+      return null;
+    }
+
+    return policy.require(item);
+  }
+
+  /**
+   * Returns the item that {@code require(item)} would evict, which is
+   * {@code null} if the filter would decline it. Since
+   * {@code require} counts {@code item} before deciding, this compares as
+   * though {@code item} had been seen once more than it has; that is only
+   * an estimate, because counting {@code item} can also raise the count of
+   * an item that shares a counter with it.
+   *
+   * @param item the item that might be required (non-null)
+   * @return the item that would be evicted, or {@code null}
+   */
+  @Override
+  public K victim(K item) {
+    K victim = policy.victim(item);
+    if (victim != null && sketch.frequency(item) < sketch.frequency(victim)) {
+      return null;
+    }
+    return victim;
+  }
+
+  @Override
+  public boolean contains(K item) {
+    return policy.contains(item);
+  }
+}
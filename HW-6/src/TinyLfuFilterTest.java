@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TinyLfuFilterTest {
+  @Test
+  public void testAdmitsWhileNotFull() {
+    ReplacementPolicy<Integer> policy = new TinyLfuFilter<>(new FifoPolicy<>(3));
+    assertNull(policy.require(1));
+    assertNull(policy.require(2));
+    assertNull(policy.require(3));
+    assertEquals(3, policy.size());
+    assertEquals(3, policy.capacity());
+  }
+
+  @Test
+  public void testRejectsOneHitWonder() {
+    ReplacementPolicy<Integer> policy = new TinyLfuFilter<>(new FifoPolicy<>(3));
+    for (int i = 0; i < 3; ++i) {
+      policy.require(1);
+      policy.require(2);
+      policy.require(3);
+    }
+
+    // 4 has been seen once and the FIFO victim, 1, three times:
+    assertNull(policy.victim(4));
+    assertNull(policy.require(4));
+    assertFalse(policy.contains(4));
+    assertEquals(3, policy.size());
+    assertNull(policy.require(1));
+
+    // Once 4 is more popular than 1, it gets in:
+    for (int i = 0; i < 3; ++i) {
+      policy.require(4);
+    }
+    assertEquals((Integer) 1, policy.require(4));
+    assertTrue(policy.contains(4));
+    assertNull(policy.require(4));
+  }
+
+  /*
+   * Under a skewed distribution, the filter should improve LRU's hit ratio.
+   */
+  @Test
+  public void testSkewedHitRatio() {
+    assertTrue(hits(new TinyLfuFilter<>(new HashLruPolicy<>(100)))
+                   > hits(new HashLruPolicy<>(100)));
+  }
+
+  /**
+   * Counts hits for a stream where half the requests go to a 50-item hot
+   * set and half to a large cold range.
+   *
+   * @param policy the policy to run
+   * @return the number of hits
+   */
+  private static int hits(ReplacementPolicy<Integer> policy) {
+    Random random = new Random(2015);
+    int hits = 0;
+    for (int i = 0; i < 100000; ++i) {
+      int item = random.nextBoolean()
+          ? random.nextInt(50)
+          : 50 + random.nextInt(100000);
+      boolean cached = policy.contains(item);
+      policy.require(item);
+      if (cached) {
+        ++hits;
+      }
+    }
+    return hits;
+  }
+
+  /*
+   * Checks that every policy's victim matches what require then evicts,
+   * even after asking about other items in between, and that contains
+   * tells hits from misses.
+   */
+  @Test
+  public void testVictimAgreesWithRequire() {
+    for (ReplacementPolicy<Integer> policy : everyPolicy()) {
+      Random random = new Random(2015);
+      for (int i = 0; i < 10000; ++i) {
+        policy.victim(random.nextInt(3 * policy.capacity()));
+
+        Integer item = random.nextInt(3 * policy.capacity());
+        boolean cached = policy.contains(item);
+        Integer victim = policy.victim(item);
+        if (cached) {
+          assertNull(victim);
+        }
+        assertEquals(victim, policy.require(item));
+        assertTrue(policy.contains(item));
+      }
+    }
+  }
+
+  /*
+   * Checks that the filter works over every policy: the cache stays within
+   * capacity, an item turned away leaves the policy alone, and the filter
+   * does turn some away.
+   */
+  @Test
+  public void testWrapsEveryPolicy() {
+    for (ReplacementPolicy<Integer> policy : everyPolicy()) {
+      ReplacementPolicy<Integer> filter = new TinyLfuFilter<>(policy);
+      Random random = new Random(2015);
+      int rejected = 0;
+      for (int i = 0; i < 10000; ++i) {
+        Integer item = random.nextInt(3 * filter.capacity());
+        int before = filter.size();
+        Integer evicted = filter.require(item);
+        if (!filter.contains(item)) {
+          assertNull(evicted);
+          assertEquals(before, filter.size());
+          ++rejected;
+        }
+        assertTrue(filter.size() <= filter.capacity());
+      }
+      assertTrue(rejected > 0);
+    }
+  }
+
+  /**
+   * Makes one of every policy in this directory, with room for a few dozen
+   * items, and none of them filtered.
+   *
+   * @return the policies
+   */
+  private static List<ReplacementPolicy<Integer>> everyPolicy() {
+    List<ReplacementPolicy<Integer>> policies = new ArrayList<>();
+    for (String name : new String[] { "fifo", "lru", "clock", "2q" }) {
+      policies.add(ReplacementPolicies.create(name, 20));
+    }
+    policies.add(new LruPolicy<>(20));
+    policies.add(new ClockPolicy<>(20));
+    policies.add(new IndexedClockPolicy<>(20));
+    policies.add(new IntClockPolicy(70));
+    policies.add(new ConcurrentClockPolicy<>(20));
+    policies.add(new ExpiringLruPolicy<>(20, (item, cause) -> { }));
+    policies.add(new RecordingPolicy<>(new TwoQueuePolicy<>(20),
+                                       new PolicyStats()));
+    policies.add(new StripedPolicy<>(20, 4, HashLruPolicy::new));
+    policies.add(new StripedPolicy<>(
+        20, 4, cap -> new ExpiringLruPolicy<>(cap, (item, cause) -> { })));
+    return policies;
+  }
+}
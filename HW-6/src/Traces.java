@@ -0,0 +1,405 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+/**
+ * Static factory methods for <em>access traces</em>: streams of keys to feed
+ * through a {@link ReplacementPolicy}, as {@link CacheSimulator} does.
+ *
+ * <p>Traces are {@link PrimitiveIterator.OfLong}s, so keys are never boxed
+ * until they reach the policy, and none of them holds more than a constant
+ * amount of state however long it is. The synthetic traces take a seed so
+ * that runs are repeatable.
+ *
+ * <p>Trace files come in two formats: text, with one decimal key per line,
+ * and binary, a sequence of big-endian 64-bit keys with no header. Binary
+ * traces are about three times smaller and much faster to read.
+ */
+public final class Traces {
+  private Traces() { }
+
+  /**
+   * A trace of keys drawn uniformly at random.
+   *
+   * @param length the number of keys in the trace
+   * @param keys the keys are drawn from {@code [0, keys)}
+   * @param seed the random seed
+   * @return the trace
+   */
+  public static PrimitiveIterator.OfLong uniform(long length, long keys,
+                                                 long seed) {
+    checkPositive(keys);
+    Random random = new Random(seed);
+    return generate(length, i -> (long) (random.nextDouble() * keys));
+  }
+
+  /**
+   * A trace of keys drawn from a Zipf distribution, in which key {@code k}
+   * has probability proportional to {@code 1 / (k + 1)^exponent}. Thus key
+   * 0 is the most popular, key 1 the next, and so on.
+   *
+   * @param length the number of keys in the trace
+   * @param keys the keys are drawn from {@code [0, keys)}
+   * @param exponent the skew of the distribution (positive)
+   * @param seed the random seed
+   * @return the trace
+   */
+  public static PrimitiveIterator.OfLong zipf(long length, long keys,
+                                              double exponent, long seed) {
+    checkPositive(keys);
+    if (!(exponent > 0)) {
+      throw new IllegalArgumentException("exponent must be positive");
+    }
+
+    ZipfSampler sampler = new ZipfSampler(keys, exponent, new Random(seed));
+    return generate(length, i -> sampler.sample() - 1);
+  }
+
+  /**
+   * A trace that visits {@code 0, 1, 2, ...} once each, like a sequential
+   * scan over a large table.
+   *
+   * @param length the number of keys in the trace
+   * @return the trace
+   */
+  public static PrimitiveIterator.OfLong scan(long length) {
+    return generate(length, i -> i);
+  }
+
+  /**
+   * A trace that cycles through {@code 0, 1, ..., keys - 1} over and over.
+   * This is the worst case for LRU when {@code keys} exceeds the capacity.
+   *
+   * @param length the number of keys in the trace
+   * @param keys the length of the loop
+   * @return the trace
+   */
+  public static PrimitiveIterator.OfLong loop(long length, long keys) {
+    checkPositive(keys);
+    return generate(length, i -> i % keys);
+  }
+
+  /**
+   * Streams a text trace file with one decimal key per line. Blank lines
+   * are skipped. I/O errors are rethrown as {@link UncheckedIOException}s
+   * when the trace is read.
+   *
+   * @param path the file to read
+   * @return the trace
+   * @throws IOException if the file can't be opened
+   */
+  public static PrimitiveIterator.OfLong textFile(Path path)
+      throws IOException
+  {
+    BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+
+    return new Source() {
+      @Override
+      boolean advance() throws IOException {
+        String line;
+        do {
+          line = in.readLine();
+          if (line == null) {
+            in.close();
+            return false;
+          }
+          line = line.trim();
+        } while (line.isEmpty());
+
+        next = Long.parseLong(line);
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Streams a binary trace file of big-endian 64-bit keys. I/O errors are
+   * rethrown as {@link UncheckedIOException}s when the trace is read.
+   *
+   * @param path the file to read
+   * @return the trace
+   * @throws IOException if the file can't be opened
+   */
+  public static PrimitiveIterator.OfLong binaryFile(Path path)
+      throws IOException
+  {
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+
+    return new Source() {
+      @Override
+      boolean advance() throws IOException {
+        try {
+          next = in.readLong();
+          return true;
+        } catch (EOFException e) {
+          in.close();
+          return false;
+        }
+      }
+    };
+  }
+
+  /**
+   * Writes a trace to a binary trace file, which is useful for converting
+   * text traces or freezing synthetic ones.
+   *
+   * @param trace the trace to write (consumed)
+   * @param path the file to write
+   * @return the number of keys written
+   * @throws IOException if the file can't be written
+   */
+  public static long writeBinary(PrimitiveIterator.OfLong trace, Path path)
+      throws IOException
+  {
+    long count = 0;
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+      while (trace.hasNext()) {
+        out.writeLong(trace.nextLong());
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Parses a trace specification, as accepted by {@link CacheSimulator}:
+   * {@code uniform:KEYS:LENGTH}, {@code zipf:KEYS:EXPONENT:LENGTH},
+   * {@code scan:LENGTH}, {@code loop:KEYS:LENGTH}, or else the path of a
+   * trace file, which is read as binary if its name ends in {@code .bin}
+   * and as text otherwise.
+   *
+   * @param spec the specification
+   * @param seed the seed for synthetic traces
+   * @return the trace
+   * @throws IllegalArgumentException if {@code spec} is malformed
+   * @throws IOException if the file can't be opened
+   */
+  public static PrimitiveIterator.OfLong parse(String spec, long seed)
+      throws IOException
+  {
+    String[] parts = spec.split(":");
+
+    try {
+      switch (parts[0]) {
+        case "uniform":
+          expectParts(parts, 3);
+          return uniform(Long.parseLong(parts[2]), Long.parseLong(parts[1]),
+                         seed);
+        case "zipf":
+          expectParts(parts, 4);
+          return zipf(Long.parseLong(parts[3]), Long.parseLong(parts[1]),
+                      Double.parseDouble(parts[2]), seed);
+        case "scan":
+          expectParts(parts, 2);
+          return scan(Long.parseLong(parts[1]));
+        case "loop":
+          expectParts(parts, 3);
+          return loop(Long.parseLong(parts[2]), Long.parseLong(parts[1]));
+        default:
+          break;
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("bad trace: " + spec, e);
+    }
+
+    Path path = Paths.get(spec);
+    return spec.endsWith(".bin") ? binaryFile(path) : textFile(path);
+  }
+
+  /**
+   * Checks that a trace specification has the right number of parts.
+   *
+   * @param parts the specification, split at colons
+   * @param n the expected number of parts
+   * @throws IllegalArgumentException if it doesn't
+   */
+  private static void expectParts(String[] parts, int n) {
+    if (parts.length != n) {
+      throw new IllegalArgumentException(
+          "bad trace: " + String.join(":", parts));
+    }
+  }
+
+  /**
+   * Checks that the number of distinct keys is positive.
+   *
+   * @param keys the number of keys
+   * @throws IllegalArgumentException if it isn't
+   */
+  private static void checkPositive(long keys) {
+    if (keys < 1) {
+      throw new IllegalArgumentException("keys must be positive");
+    }
+  }
+
+  /**
+   * Computes a key from its position in a trace.
+   */
+  private interface KeyFunction {
+    /**
+     * Computes the key at a position.
+     *
+     * @param index the position in the trace
+     * @return the key
+     */
+    long key(long index);
+  }
+
+  /**
+   * Makes a synthetic trace of the given length.
+   *
+   * @param length the number of keys
+   * @param f computes each key
+   * @return the trace
+   */
+  private static PrimitiveIterator.OfLong generate(long length,
+                                                   KeyFunction f) {
+    if (length < 0) {
+      throw new IllegalArgumentException("length must be non-negative");
+    }
+
+    return new PrimitiveIterator.OfLong() {
+      private long index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < length;
+      }
+
+      @Override
+      public long nextLong() {
+        if (index >= length) {
+          throw new NoSuchElementException();
+        }
+        return f.key(index++);
+      }
+    };
+  }
+
+  /**
+   * A trace read from a file. Subclasses implement {@link #advance()},
+   * which reads one key ahead into {@link #next}.
+   */
+  private abstract static class Source implements PrimitiveIterator.OfLong {
+    long next;
+    private boolean ready = false;
+    private boolean done = false;
+
+    /**
+     * Reads the next key into {@code next}.
+     *
+     * @return whether there was a key to read
+     * @throws IOException if reading fails
+     */
+    abstract boolean advance() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+      if (!ready && !done) {
+        try {
+          ready = advance();
+          done  = !ready;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return ready;
+    }
+
+    @Override
+    public long nextLong() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ready = false;
+      return next;
+    }
+  }
+
+  /**
+   * Draws from a Zipf distribution over {@code 1 .. n} in constant time and
+   * space, using the rejection-inversion method of Hörmann and Derflinger
+   * ("Rejection-inversion to generate variates from monotone discrete
+   * distributions", 1996).
+   */
+  private static final class ZipfSampler {
+    private final long n;
+    private final double exponent;
+    private final Random random;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    ZipfSampler(long n, double exponent, Random random) {
+      this.n        = n;
+      this.exponent = exponent;
+      this.random   = random;
+      hIntegralX1   = hIntegral(1.5) - 1;
+      hIntegralN    = hIntegral(n + 0.5);
+      s             = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    long sample() {
+      while (true) {
+        double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+        double x = hIntegralInverse(u);
+        long   k = (long) (x + 0.5);
+
+        if (k < 1) {
+          k = 1;
+        } else if (k > n) {
+          k = n;
+        }
+
+        if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+          return k;
+        }
+      }
+    }
+
+    private double h(double x) {
+      return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+      double logX = Math.log(x);
+      return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+      double t = x * (1 - exponent);
+      if (t < -1) {
+        t = -1;
+      }
+      return Math.exp(helper1(t) * x);
+    }
+
+    // log(1 + x) / x, accurate near 0:
+    private static double helper1(double x) {
+      return Math.abs(x) > 1e-8
+          ? Math.log1p(x) / x
+          : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    // (exp(x) - 1) / x, accurate near 0:
+    private static double helper2(double x) {
+      return Math.abs(x) > 1e-8
+          ? Math.expm1(x) / x
+          : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+  }
+}
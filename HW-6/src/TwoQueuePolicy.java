@@ -0,0 +1,213 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * A cache policy implementing the <a
+ * href="http://www.vldb.org/conf/1994/P439.PDF">2Q</a> algorithm, which,
+ * unlike LRU and clock, is not flushed by a single sequential scan.
+ *
+ * <p>The cache is split into two parts. New items enter a small FIFO queue,
+ * {@code in}, and an item that merely passes through it (as every item of a
+ * scan does) is evicted without disturbing anything else. When an item is
+ * evicted from {@code in} its key is remembered in a bounded <em>ghost</em>
+ * queue, {@code out}, that holds no cache space. Only an item that is
+ * required again while its ghost is remembered has shown that it is reused,
+ * and it is promoted into the main LRU queue, {@code main}. A scan can thus
+ * displace at most the {@code in} queue, never the hot set in {@code main}.
+ *
+ * <p>All operations run in expected <em>O</em>(1) time. The ghost queue
+ * holds at most {@code ghostCapacity} keys, so the memory it costs beyond the
+ * cache itself is bounded.
+ *
+ * <p><strong>Memory:</strong> one {@code LinkedHashMap} entry per cached
+ * item and per ghost. With the default tuning, on a 64-bit JVM with
+ * compressed references, that is about 75 bytes per unit of capacity, not
+ * counting the keys themselves.
+ *
+ * @param <K> keys for cached items
+ */
+public final class TwoQueuePolicy<K> implements ReplacementPolicy<K> {
+  // The capacity of the cache:
+  private final int capacity;
+
+  // The target size of in:
+  private final int inCapacity;
+
+  // The most ghosts that out may hold:
+  private final int ghostCapacity;
+
+  // Items seen once recently, oldest first:
+  private final LinkedHashSet<K> in = new LinkedHashSet<>();
+
+  // Ghosts of items recently evicted from in, oldest first:
+  private final LinkedHashSet<K> out = new LinkedHashSet<>();
+
+  // Items that have proved they are reused, least recently used first:
+  private final LinkedHashMap<K, Boolean> main =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  // Where to record hits, misses and evictions, or null:
+  private PolicyStats stats = null;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - 0 < inCapacity <= capacity
+   *  - 0 < ghostCapacity
+   *  - in.size() + main.size() <= capacity
+   *  - out.size() <= ghostCapacity
+   *  - in, out and main are pairwise disjoint
+   *
+   * REPRESENTATION NOTE:
+   *
+   * The cached items are exactly those in in and main; out holds only keys.
+   * Both LinkedHashSets are used as FIFO queues (iteration order is
+   * insertion order, and re-adding an element doesn't move it), and main is
+   * an access-ordered LinkedHashMap, so main.get moves a key to the back.
+   */
+
+  /**
+   * Creates a new 2Q policy with capacity {@code capacity}, using the
+   * recommended tuning: {@code in} targets a quarter of the capacity and
+   * the ghost queue remembers half as many keys as the capacity.
+   *
+   * @param cap the capacity of the cache
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public TwoQueuePolicy(int cap) {
+    this(cap, Math.max(1, cap / 4), Math.max(1, cap / 2));
+  }
+
+  /**
+   * Creates a new 2Q policy with the given capacity and tuning.
+   *
+   * @param cap the capacity of the cache
+   * @param inCap the target size of the queue for new items
+   * @param ghostCap the most evicted keys to remember
+   * @throws IllegalArgumentException {@code cap < 1}, {@code inCap} is not
+   *   in {@code 1 .. cap}, or {@code ghostCap < 1}
+   */
+  public TwoQueuePolicy(int cap, int inCap, int ghostCap) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    if (inCap < 1 || inCap > cap) {
+      throw new IllegalArgumentException("in capacity must be 1 to capacity");
+    }
+    if (ghostCap < 1) {
+      throw new IllegalArgumentException("ghost capacity must be at least 1");
+    }
+
+    capacity      = cap;
+    inCapacity    = inCap;
+    ghostCapacity = ghostCap;
+  }
+
+  @Override
+  public void recordStats(PolicyStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public int size() {
+    return in.size() + main.size();
+  }
+
+  @Override
+  public K require(K item) {
+    // A hit in main refreshes it; a hit in in changes nothing, so that a
+    // burst of references to a new item doesn't promote it.
+    if (main.get(item) != null || in.contains(item)) {
+      if (stats != null) {
+        stats.recordHit();
+      }
+      return null;
+    }
+
+    // It's a miss! We must check for a ghost before reclaiming, since
+    // reclaiming may push the oldest ghost out.
+
+    boolean reused  = out.remove(item);
+    K       evicted = size() == capacity ? reclaim() : null;
+
+    if (stats != null) {
+      stats.recordMiss();
+      if (evicted != null) {
+        stats.recordEviction();
+      }
+    }
+
+    if (reused) {
+      // We evicted it recently from in, so it's being reused:
+      main.put(item, Boolean.TRUE);
+    } else {
+      in.add(item);
+    }
+
+    return evicted;
+  }
+
+  @Override
+  public K victim(K item) {
+    if (size() < capacity || contains(item)) {
+      return null;
+    }
+
+    // The same choice as reclaim makes:
+    if (in.size() > inCapacity || main.isEmpty()) {
+      return in.iterator().next();
+    }
+
+    return main.keySet().iterator().next();
+  }
+
+  @Override
+  public boolean contains(K item) {
+    // Note that main.containsKey, unlike main.get, doesn't count as access.
+    return main.containsKey(item) || in.contains(item);
+  }
+
+  /**
+   * Evicts one item to make room. If {@code in} is over its target size, its
+   * oldest item goes and is remembered as a ghost; otherwise the least
+   * recently used item in {@code main} goes.
+   *
+   * <p><strong>PRECONDITION:</strong> the cache is full
+   *
+   * @return the evicted item
+   */
+  private K reclaim() {
+    if (in.size() > inCapacity || main.isEmpty()) {
+      K victim = removeFirst(in);
+
+      if (out.size() == ghostCapacity) {
+        removeFirst(out);
+      }
+      out.add(victim);
+
+      return victim;
+    }
+
+    return removeFirst(main.keySet());
+  }
+
+  /**
+   * Removes and returns the first element of a non-empty collection.
+   *
+   * @param elements the collection
+   * @param <E> the element type
+   * @return the former first element
+   */
+  private static <E> E removeFirst(Iterable<E> elements) {
+    Iterator<E> iterator = elements.iterator();
+    E result = iterator.next();
+    iterator.remove();
+    return result;
+  }
+}
@@ -0,0 +1,105 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TwoQueuePolicyTest {
+  /**
+   * Here's an example with capacity 4, where {@code in} targets 1 item and
+   * the ghost queue holds 2 keys. The comments on the right show the state
+   * as {@code in | main (LRU first) | ghosts} after each operation.
+   */
+  @Test
+  public void extendedExample() {
+    ReplacementPolicy<Integer> policy = new TwoQueuePolicy<>(4, 1, 2);
+
+    policy.require(1);                            // 1       |     |
+    policy.require(2);                            // 1 2     |     |
+    policy.require(3);                            // 1 2 3   |     |
+    assertNull(policy.require(1));                // 1 2 3   |     |
+    policy.require(4);                            // 1 2 3 4 |     |
+    assertEquals(4, policy.size());
+
+    // New items push out the oldest of in, leaving ghosts:
+    assertEquals((Integer) 1, policy.require(5)); // 2 3 4 5 |     | 1
+    assertEquals((Integer) 2, policy.require(6)); // 3 4 5 6 |     | 1 2
+
+    // Requiring a ghost promotes it to main:
+    assertEquals((Integer) 3, policy.require(1)); // 4 5 6   | 1   | 2 3
+    assertEquals((Integer) 4, policy.require(2)); // 5 6     | 1 2 | 3 4
+    assertNull(policy.require(1));                // 5 6     | 2 1 | 3 4
+    assertEquals(4, policy.size());
+
+    // While in is over its target, it still gives up items first:
+    assertEquals((Integer) 5, policy.require(7)); // 6 7     | 2 1 | 4 5
+    assertEquals((Integer) 6, policy.require(8)); // 7 8     | 2 1 | 5 6
+    assertEquals((Integer) 7, policy.require(9)); // 8 9     | 2 1 | 6 7
+    assertEquals((Integer) 8, policy.require(6)); // 9       | 2 1 6 | 7 8
+    // Now in is at its target, so main gives up its LRU item:
+    assertEquals((Integer) 2, policy.require(3)); // 9 3     | 1 6 | 7 8
+    assertEquals(4, policy.size());
+  }
+
+  /*
+   * Runs a trace where a hot set is used repeatedly and then a long
+   * sequential scan passes through. LRU loses the whole hot set to the
+   * scan; 2Q must keep it.
+   */
+  @Test
+  public void testScanResistance() {
+    assertEquals(0, hotHitsAfterScan(new HashLruPolicy<>(100)));
+    assertTrue(hotHitsAfterScan(new TwoQueuePolicy<>(100)) >= 45);
+  }
+
+  /**
+   * Warms up a policy with a 50-item hot set mixed with cold traffic, runs
+   * a 1000-item scan, and then counts how many of the hot items are still
+   * cached.
+   *
+   * @param policy the policy to test (capacity 100)
+   * @return the number of hot items that hit after the scan
+   */
+  private static int hotHitsAfterScan(ReplacementPolicy<Integer> policy) {
+    int cold = 1000;
+    for (int round = 0; round < 5; ++round) {
+      for (int hot = 0; hot < 50; ++hot) {
+        policy.require(hot);
+        policy.require(cold++);
+      }
+    }
+
+    for (int scan = 0; scan < 1000; ++scan) {
+      policy.require(100000 + scan);
+    }
+
+    int hits = 0;
+    for (int hot = 0; hot < 50; ++hot) {
+      if (policy.require(hot) == null) {
+        ++hits;
+      }
+    }
+    return hits;
+  }
+
+  @Test
+  public void testGhostsAreBounded() {
+    ReplacementPolicy<Integer> policy = new TwoQueuePolicy<>(10);
+    for (int i = 0; i < 100000; ++i) {
+      policy.require(i);
+      assertTrue(policy.size() <= policy.capacity());
+    }
+    // Key 0's ghost is long gone, so it comes back as a new item:
+    assertEquals((Integer) 99990, policy.require(0));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadPolicy() {
+    new TwoQueuePolicy<Integer>(0);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadInCapacity() {
+    new TwoQueuePolicy<Integer>(4, 5, 2);
+  }
+}
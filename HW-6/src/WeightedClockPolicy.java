@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A weighted cache policy implementing the <a
+ * href="http://en.wikipedia.org/wiki/Page_replacement_algorithm#Clock">clock
+ * algorithm</a>. When a required item doesn't fit, the hand sweeps on,
+ * evicting unreferenced items, until it does.
+ *
+ * <p>Since the number of items varies with their weights, the clock is a
+ * circular doubly-linked list rather than an array, with a hash index for
+ * finding hits. With every weight 1 this evicts exactly the same items as
+ * {@link ClockPolicy}. Each step of the hand either evicts an item or clears
+ * a reference bit set by an earlier request, so
+ * {@link #require(Object, long)} runs in amortized <em>O</em>(1) time per
+ * evicted item.
+ */
+public final class WeightedClockPolicy<K>
+    implements WeightedReplacementPolicy<K>
+{
+  // The capacity of the cache, as a total weight:
+  private final long capacity;
+
+  // The total weight of the cached items:
+  private long weight = 0;
+
+  // Maps each cached item to its node in the clock:
+  private final Map<K, Node<K>> index = new HashMap<>();
+
+  // The hand of the clock, or null if the cache is empty:
+  private Node<K> hand = null;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - capacity > 0
+   *  - 0 <= weight <= capacity, and weight is the sum of the nodes' weights
+   *  - the circular list through hand contains exactly the nodes in
+   *    index.values(), and hand == null iff index is empty
+   *
+   * REPRESENTATION NOTE:
+   *
+   * Starting from hand and following next gives the logical queue of
+   * ClockPolicy, so new items are linked in just before the hand.
+   */
+
+  /**
+   * Creates a new weighted clock policy.
+   *
+   * @param cap the capacity of the cache, as a total weight
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public WeightedClockPolicy(long cap) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+
+    capacity = cap;
+  }
+
+  @Override
+  public long capacity() {
+    return capacity;
+  }
+
+  @Override
+  public long weight() {
+    return weight;
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  @Override
+  public List<K> require(K item, long itemWeight) {
+    if (itemWeight < 1 || itemWeight > capacity) {
+      throw new IllegalArgumentException("weight must be 1 to capacity");
+    }
+
+    List<K> evicted = Collections.emptyList();
+    Node<K> node = index.get(item);
+
+    if (node != null) {
+      // It's a hit! Mark it referenced, and if it got heavier, make room
+      // without evicting it:
+      node.referenced = true;
+      weight += itemWeight - node.weight;
+      node.weight = itemWeight;
+
+      while (weight > capacity) {
+        evicted = evictOne(node, evicted);
+      }
+
+      return evicted;
+    }
+
+    // It's a miss! Make room, and then add it at the end of the queue.
+
+    while (weight + itemWeight > capacity) {
+      evicted = evictOne(null, evicted);
+    }
+
+    node = new Node<>(item, itemWeight);
+    index.put(item, node);
+    weight += itemWeight;
+
+    if (hand == null) {
+      node.prev = node;
+      node.next = node;
+      hand = node;
+    } else {
+      node.prev = hand.prev;
+      node.next = hand;
+      hand.prev.next = node;
+      hand.prev = node;
+    }
+
+    return evicted;
+  }
+
+  /**
+   * Advances the hand to the first unreferenced item other than
+   * {@code keep}, clearing the reference bits it passes over, and evicts
+   * that item.
+   *
+   * <p><strong>PRECONDITION:</strong> some item other than {@code keep} is
+   * cached
+   *
+   * @param keep an item not to evict, or {@code null}
+   * @param evicted the items evicted so far
+   * @return {@code evicted} with the evicted item added, which may be a new
+   *   list if {@code evicted} was empty
+   */
+  private List<K> evictOne(Node<K> keep, List<K> evicted) {
+    while (hand == keep || hand.referenced) {
+      if (hand != keep) {
+        hand.referenced = false;
+      }
+      hand = hand.next;
+    }
+
+    Node<K> victim = hand;
+    if (victim.next == victim) {
+      hand = null;
+    } else {
+      hand = victim.next;
+      victim.prev.next = victim.next;
+      victim.next.prev = victim.prev;
+    }
+
+    index.remove(victim.key);
+    weight -= victim.weight;
+
+    if (evicted.isEmpty()) {
+      evicted = new ArrayList<>();
+    }
+    evicted.add(victim.key);
+    return evicted;
+  }
+
+  /**
+   * A node in the circular list.
+   */
+  private static final class Node<K> {
+    final K key;
+    long weight;
+    boolean referenced = true;
+    Node<K> prev;
+    Node<K> next;
+
+    Node(K key, long weight) {
+      this.key = key;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A weighted cache policy implementing the <a
+ * href="http://en.wikipedia.org/wiki/Page_replacement_algorithm#Least_recently_used">least
+ * recently used</a> algorithm. When a required item doesn't fit, items are
+ * evicted from the least recently used end until it does.
+ *
+ * <p>The representation is that of {@link HashLruPolicy}, a hash index into
+ * an intrusive doubly-linked recency list, with each node also recording its
+ * item's weight. {@link #require(Object, long)} thus runs in expected
+ * <em>O</em>(1) time plus <em>O</em>(1) per evicted item.
+ */
+public final class WeightedLruPolicy<K> implements WeightedReplacementPolicy<K> {
+  // The capacity of the cache, as a total weight:
+  private final long capacity;
+
+  // The total weight of the cached items:
+  private long weight = 0;
+
+  // Maps each cached item to its node in the recency list:
+  private final Map<K, Node<K>> index = new HashMap<>();
+
+  // The sentinel of the circular recency list, as in HashLruPolicy:
+  private final Node<K> sentinel = new Node<>(null, 0);
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - capacity > 0
+   *  - 0 <= weight <= capacity, and weight is the sum of the nodes' weights
+   *  - the recency list contains exactly the nodes in index.values(),
+   *    least recently used first
+   */
+
+  /**
+   * Creates a new weighted LRU policy.
+   *
+   * @param cap the capacity of the cache, as a total weight
+   * @throws IllegalArgumentException {@code cap < 1}
+   */
+  public WeightedLruPolicy(long cap) {
+    if (cap < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+
+    capacity = cap;
+    sentinel.prev = sentinel;
+    sentinel.next = sentinel;
+  }
+
+  @Override
+  public long capacity() {
+    return capacity;
+  }
+
+  @Override
+  public long weight() {
+    return weight;
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  @Override
+  public List<K> require(K item, long itemWeight) {
+    if (itemWeight < 1 || itemWeight > capacity) {
+      throw new IllegalArgumentException("weight must be 1 to capacity");
+    }
+
+    Node<K> node = index.get(item);
+
+    if (node != null) {
+      // It's a hit! Move it to the most recently used end, and account
+      // for any change in its weight:
+      node.unlink();
+      weight += itemWeight - node.weight;
+      node.weight = itemWeight;
+    } else {
+      node = new Node<>(item, itemWeight);
+      index.put(item, node);
+      weight += itemWeight;
+    }
+
+    node.linkBefore(sentinel);
+
+    // Since item is now at the most recently used end and fits by itself,
+    // we run out of excess weight before we reach it:
+    List<K> evicted = Collections.emptyList();
+    while (weight > capacity) {
+      Node<K> victim = sentinel.next;
+      victim.unlink();
+      index.remove(victim.key);
+      weight -= victim.weight;
+
+      if (evicted.isEmpty()) {
+        evicted = new ArrayList<>();
+      }
+      evicted.add(victim.key);
+    }
+
+    return evicted;
+  }
+
+  /**
+   * A node in the doubly-linked recency list.
+   */
+  private static final class Node<K> {
+    final K key;
+    long weight;
+    Node<K> prev;
+    Node<K> next;
+
+    Node(K key, long weight) {
+      this.key = key;
+      this.weight = weight;
+    }
+
+    /**
+     * Removes this node from the list it is in.
+     */
+    void unlink() {
+      prev.next = next;
+      next.prev = prev;
+    }
+
+    /**
+     * Inserts this node into a list immediately before {@code other}.
+     *
+     * @param other the node to insert before
+     */
+    void linkBefore(Node<K> other) {
+      prev = other.prev;
+      next = other;
+      other.prev.next = this;
+      other.prev = this;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WeightedLruPolicyTest {
+  WeightedReplacementPolicy<String> policy = new WeightedLruPolicy<>(10);
+
+  @Test
+  public void testEmpty() {
+    assertEquals(10, policy.capacity());
+    assertEquals(0, policy.weight());
+    assertEquals(0, policy.size());
+  }
+
+  @Test
+  public void testFill() {
+    assertEquals(Collections.emptyList(), policy.require("a", 3));
+    assertEquals(Collections.emptyList(), policy.require("b", 3));
+    assertEquals(Collections.emptyList(), policy.require("c", 4));
+    assertEquals(10, policy.weight());
+    assertEquals(3, policy.size());
+  }
+
+  @Test
+  public void testHeavyItemEvictsSeveral() {
+    policy.require("a", 3);
+    policy.require("b", 3);
+    policy.require("c", 4);
+    assertEquals(Arrays.asList("a", "b"), policy.require("d", 6));
+    assertEquals(10, policy.weight());
+    assertEquals(2, policy.size());
+  }
+
+  @Test
+  public void testHitChangesWeight() {
+    policy.require("a", 3);
+    policy.require("b", 3);
+    policy.require("c", 4);
+    // "b" grows, which pushes out "a" but never "b" itself:
+    assertEquals(Arrays.asList("a"), policy.require("b", 6));
+    assertEquals(10, policy.weight());
+    assertEquals(Collections.emptyList(), policy.require("c", 1));
+    assertEquals(7, policy.weight());
+  }
+
+  @Test
+  public void testWholeCapacity() {
+    policy.require("a", 3);
+    policy.require("b", 3);
+    assertEquals(Arrays.asList("a", "b"), policy.require("c", 10));
+    assertEquals(Arrays.asList("c"), policy.require("d", 1));
+    assertEquals(1, policy.size());
+  }
+
+  /*
+   * With every weight 1, this must agree with HashLruPolicy.
+   */
+  @Test
+  public void testAgreesWithUnweighted() {
+    Random random = new Random(2015);
+    ReplacementPolicy<Integer> expected = new HashLruPolicy<>(16);
+    WeightedReplacementPolicy<Integer> actual = new WeightedLruPolicy<>(16);
+
+    for (int i = 0; i < 10000; ++i) {
+      Integer item = random.nextInt(40);
+      Integer victim = expected.require(item);
+      List<Integer> evicted = actual.require(item, 1);
+      assertEquals(victim == null ? Collections.emptyList()
+                       : Collections.singletonList(victim),
+                   evicted);
+    }
+  }
+
+  @Test
+  public void testRandomWeights() {
+    Random random = new Random(2015);
+    WeightedReplacementPolicy<Integer> big = new WeightedLruPolicy<>(1000);
+
+    for (int i = 0; i < 10000; ++i) {
+      Integer item = random.nextInt(100);
+      assertFalse(big.require(item, 1 + random.nextInt(200)).contains(item));
+      assertTrue(big.weight() <= big.capacity());
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testTooHeavy() {
+    policy.require("a", 11);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBadPolicy() {
+    new WeightedLruPolicy<String>(0);
+  }
+}
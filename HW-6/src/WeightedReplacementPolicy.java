@@ -0,0 +1,52 @@
+import java.util.List;
+
+/**
+ * A replacement policy for a cache whose capacity is a total weight, such as
+ * a number of bytes, rather than a number of items. Each item has its own
+ * weight, and bringing in one heavy item may require evicting several light
+ * ones.
+ *
+ * <p>Items are compared using {@link Object#equals(Object)}.
+ *
+ * @param <K> keys for cached items
+ * @see ReplacementPolicy
+ */
+public interface WeightedReplacementPolicy<K> {
+  /**
+   * Informs the policy manager that a particular item, with the given
+   * weight, is required and must be brought into the cache if not already
+   * there. If it is already there, its weight is updated to {@code weight}.
+   * Returns the items evicted to make room, in the order they were evicted;
+   * {@code item} itself is never evicted.
+   *
+   * <p>Must run in amortized <em>O</em>(1) time per evicted item.
+   *
+   * @param item the required item (non-null)
+   * @param weight the weight of the item ({@code 1 .. capacity()})
+   * @return the evicted items (possibly empty)
+   * @throws IllegalArgumentException if {@code weight} is out of range
+   */
+  public abstract List<K> require(K item, long weight);
+
+  /**
+   * Returns the capacity of the cache, as a total weight.
+   *
+   * @return the capacity
+   */
+  public abstract long capacity();
+
+  /**
+   * Returns the total weight of the items currently in the cache. Note that
+   * it should always be the case that {@code weight() ≤ capacity()}.
+   *
+   * @return the total weight of the cached items
+   */
+  public abstract long weight();
+
+  /**
+   * Returns the number of items currently in the cache.
+   *
+   * @return number of items currently cached
+   */
+  public abstract int size();
+}
@@ -0,0 +1,571 @@
+package connect_n.ai;
+
+import connect_n.model.Model;
+import connect_n.model.Player;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * A computer opponent for Connect-N. It searches the game tree by negamax
+ * with alpha-beta pruning, trying the center columns first, and deepens the
+ * search one move at a time until its time budget runs out or it finds
+ * the game's outcome. Positions already searched are remembered in a
+ * transposition table of fixed size, keyed by Zobrist hashes of the grid.
+ *
+ * <p>The search plays moves on the caller's model with
+ * {@link Model#move(Player, int)} and takes them back with
+ * {@link Model#undo()}, so it allocates nothing per position. The model
+ * ends up exactly as it started: moves the caller had undone are put back
+ * so that they can still be {@linkplain Model#redo() redone}. It works
+ * with any {@link Model}, and is fastest on a
+ * {@link connect_n.model.BitboardModel}.
+ *
+ * <p>Past the search horizon, positions are scored by how near the center
+ * each player's tokens are, which is crude but cheap to keep up to date.
+ *
+ * <p>An instance keeps its table between searches, so it plays better if
+ * used for a whole game. It isn't safe to use from several threads at once.
+ */
+public final class AlphaBetaPlayer {
+  /** The default time budget per move, in milliseconds. */
+  public static final long DEFAULT_BUDGET_MILLIS = 1000;
+
+  /** The default transposition table size, as a power of two. */
+  public static final int DEFAULT_TABLE_BITS = 20;
+
+  // The score of a win on the very next move; a win n moves later scores
+  // WIN - n + 1, so quicker wins and slower losses are preferred:
+  private static final int WIN = 1 << 30;
+
+  // Scores at least this far from zero are known wins or losses:
+  private static final int DECIDED = WIN / 2;
+
+  // The deepest search, limited by the size of a table entry's depth:
+  private static final int MAX_DEPTH = Byte.MAX_VALUE;
+
+  // How many nodes to visit between checks of the clock:
+  private static final int CHECK_INTERVAL = 1 << 10;
+
+  // The kinds of scores in the table:
+  private static final byte EXACT = 1;
+  private static final byte LOWER = 2;
+  private static final byte UPPER = 3;
+
+  private final long budgetNanos;
+
+  // The transposition table, as parallel arrays indexed by the low bits of
+  // the hash; an entry with depth 0 is empty:
+  private final int    tableMask;
+  private final long[] tableKeys;
+  private final int[]  tableScores;
+  private final int[]  tableMoves;
+  private final byte[] tableDepths;
+  private final byte[] tableKinds;
+
+  // The grid shape the table and keys below are for:
+  private int width;
+  private int height;
+  private int goal;
+
+  // A random key for each player in each cell, at (x * height + y) * 2 +
+  // player.ordinal():
+  private long[] zobrist;
+
+  // The columns in the order to try them, center first:
+  private int[] order;
+
+  // How much a token in each column is worth to its player:
+  private int[] weights;
+
+  // The state of the search in progress:
+  private Model model;
+  private long hash;
+  private int material;    // White's weights minus Red's
+  private long nodes;
+  private long deadline;
+  private boolean mayStop;
+  private boolean stopped;
+  private int rootMove;
+
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - budgetNanos > 0
+   *
+   *  - tableKeys, tableScores, tableMoves, tableDepths and tableKinds all
+   *    have length tableMask + 1, which is a power of two
+   *
+   *  - if zobrist != null, then it, order and weights were made for a
+   *    width x height grid, and every entry in the table is for a position
+   *    of a game of that shape and goal
+   *
+   * REPRESENTATION NOTE:
+   *
+   * During a search, hash is the XOR of the zobrist keys of every token on
+   * model's grid, and material the sum of White's token weights less Red's;
+   * both are updated as moves are made and taken back. Which player is to
+   * move is implied by the grid, so it needs no key of its own.
+   *
+   * Scores are from the point of view of the player to move. Win and loss
+   * scores count moves from the root of the search, so they're stored in
+   * the table counting moves from the position instead, and converted back
+   * when read.
+   */
+
+  /**
+   * Constructs a player with the default time budget and table size.
+   */
+  public AlphaBetaPlayer() {
+    this(DEFAULT_BUDGET_MILLIS, DEFAULT_TABLE_BITS);
+  }
+
+  /**
+   * Constructs a player with the given time budget and table size. The
+   * table takes 18 bytes per entry, so the default of 2<sup>20</sup>
+   * entries takes 18 MB.
+   *
+   * @param budgetMillis how long to think per move, in milliseconds
+   *   (positive)
+   * @param tableBits the base-2 logarithm of the number of table entries
+   *   (1 .. 26)
+   * @throws IllegalArgumentException if either argument is out of range
+   */
+  public AlphaBetaPlayer(long budgetMillis, int tableBits) {
+    if (budgetMillis < 1) {
+      throw new IllegalArgumentException("budget must be positive");
+    }
+    if (tableBits < 1 || tableBits > 26) {
+      throw new IllegalArgumentException("table bits must be 1 to 26");
+    }
+
+    budgetNanos = budgetMillis * 1000000;
+
+    int size = 1 << tableBits;
+    tableMask   = size - 1;
+    tableKeys   = new long[size];
+    tableScores = new int[size];
+    tableMoves  = new int[size];
+    tableDepths = new byte[size];
+    tableKinds  = new byte[size];
+  }
+
+  /**
+   * Chooses a move for the player whose turn it is.
+   *
+   * @param model the game (not over)
+   * @return the column to play in
+   * @throws IllegalStateException if the game is over
+   */
+  public int chooseMove(Model model) {
+    return search(model).column();
+  }
+
+  /**
+   * Searches for the best move for the player whose turn it is, and reports
+   * how the search went.
+   *
+   * @param model the game (not over)
+   * @return the result of the search
+   * @throws IllegalStateException if the game is over
+   */
+  public Result search(Model model) {
+    if (model.isGameOver()) {
+      throw new IllegalStateException("the game is over");
+    }
+
+    long start = System.nanoTime();
+
+    // The search's own moves would wipe out any moves the caller could
+    // still redo, so we note them now and put them back afterward:
+    int[] redoable = redoable(model);
+
+    begin(model);
+    deadline = start + budgetNanos;
+
+    int remaining = width * height - model.getMoveCount();
+    int maxDepth  = Math.min(remaining, MAX_DEPTH);
+
+    int bestMove  = firstLegalMove();
+    int bestScore = 0;
+    int completed = 0;
+
+    try {
+      for (int depth = 1; depth <= maxDepth; ++depth) {
+        // Always finish depth 1, so there's a considered move to return:
+        mayStop = depth > 1;
+
+        int score = negamax(depth, -WIN - 1, WIN + 1, 0);
+        if (stopped) {
+          break;
+        }
+
+        bestMove  = rootMove;
+        bestScore = score;
+        completed = depth;
+
+        if (Math.abs(score) >= DECIDED || System.nanoTime() >= deadline) {
+          break;
+        }
+      }
+    } finally {
+      this.model = null;
+      restoreRedo(model, redoable);
+    }
+
+    boolean solved = completed == remaining || Math.abs(bestScore) >= DECIDED;
+    return new Result(bestMove, bestScore, completed, solved, nodes,
+                      System.nanoTime() - start);
+  }
+
+  /**
+   * Finds the moves that could be redone on a model, by redoing them all
+   * and then undoing them again, which leaves the model as it was.
+   *
+   * @param model the model
+   * @return the columns of the moves, in the order they would be redone
+   */
+  private static int[] redoable(Model model) {
+    int count = 0;
+    while (model.canRedo()) {
+      model.redo();
+      ++count;
+    }
+
+    int[] columns = new int[count];
+    for (int i = count - 1; i >= 0; --i) {
+      columns[i] = model.undo();
+    }
+    return columns;
+  }
+
+  /**
+   * Makes moves redoable again after other moves have been played and
+   * taken back, by playing them and then undoing them.
+   *
+   * @param model the model, as it was when {@link #redoable(Model)} was
+   *              called
+   * @param columns the columns returned by {@code redoable}
+   */
+  private static void restoreRedo(Model model, int[] columns) {
+    for (int column : columns) {
+      model.move(model.getNextPlayer(), column);
+    }
+    for (int i = 0; i < columns.length; ++i) {
+      model.undo();
+    }
+  }
+
+  /**
+   * Sets up the search state for a model, remaking the keys and clearing
+   * the table if the grid has a different shape than last time.
+   *
+   * @param model the model to search
+   */
+  private void begin(Model model) {
+    if (zobrist == null || model.getWidth() != width
+            || model.getHeight() != height || model.getGoal() != goal) {
+      width  = model.getWidth();
+      height = model.getHeight();
+      goal   = model.getGoal();
+      makeKeys();
+      Arrays.fill(tableDepths, (byte) 0);
+    }
+
+    this.model = model;
+    hash       = 0;
+    material   = 0;
+    nodes      = 0;
+    stopped    = false;
+
+    for (int x = 0; x < width; ++x) {
+      for (int y = 0; y < model.getColumnSize(x); ++y) {
+        Player player = model.getPlayerAt(x, y);
+        hash ^= key(x, y, player);
+        material += player == Player.White ? weights[x] : -weights[x];
+      }
+    }
+  }
+
+  /**
+   * Makes the Zobrist keys, move order and weights for the current shape.
+   * The keys come from a fixed seed, so searches are repeatable.
+   */
+  private void makeKeys() {
+    SplittableRandom random = new SplittableRandom(25);
+    zobrist = new long[width * height * 2];
+    for (int i = 0; i < zobrist.length; ++i) {
+      zobrist[i] = random.nextLong();
+    }
+
+    // Center first, breaking ties to the left:
+    double center = (width - 1) / 2.0;
+    Integer[] columns = new Integer[width];
+    for (int x = 0; x < width; ++x) {
+      columns[x] = x;
+    }
+    Arrays.sort(columns, Comparator
+        .comparingDouble((Integer x) -> Math.abs(x - center))
+        .thenComparingInt(x -> x));
+
+    order = new int[width];
+    for (int i = 0; i < width; ++i) {
+      order[i] = columns[i];
+    }
+
+    weights = new int[width];
+    for (int x = 0; x < width; ++x) {
+      weights[x] = Math.min(x, width - 1 - x);
+    }
+  }
+
+  /**
+   * Scores the position for the player to move by searching {@code depth}
+   * moves ahead, and records the best move in {@code rootMove} if this is
+   * the root.
+   *
+   * @param depth how many more moves to search (positive at the root)
+   * @param alpha the score the player to move is already assured of
+   * @param beta the score the opponent is already assured of holding the
+   *   player to move to
+   * @param ply how many moves from the root this position is
+   * @return the score, which is exact only if it's between alpha and beta
+   */
+  private int negamax(int depth, int alpha, int beta, int ply) {
+    if ((++nodes & (CHECK_INTERVAL - 1)) == 0 && mayStop
+            && System.nanoTime() >= deadline) {
+      stopped = true;
+    }
+    if (stopped) {
+      return 0;
+    }
+
+    Player me = model.getNextPlayer();
+    if (depth == 0) {
+      return me == Player.White ? material : -material;
+    }
+
+    int alphaBefore = alpha;
+    int slot   = (int) hash & tableMask;
+    int ttMove = -1;
+
+    if (tableDepths[slot] > 0 && tableKeys[slot] == hash) {
+      ttMove = tableMoves[slot];
+
+      // At the root we need a move, not just a score:
+      if (tableDepths[slot] >= depth && ply > 0) {
+        int score = fromTable(tableScores[slot], ply);
+        switch (tableKinds[slot]) {
+          case EXACT: return score;
+          case LOWER: alpha = Math.max(alpha, score); break;
+          case UPPER: beta = Math.min(beta, score); break;
+          default: throw new AssertionError(tableKinds[slot]);
+        }
+        if (alpha >= beta) {
+          return score;
+        }
+      }
+    }
+
+    int best     = -WIN - 1;
+    int bestMove = -1;
+
+    // Try the table's move first, then the rest center first:
+    for (int i = -1; i < width; ++i) {
+      int x = i < 0 ? ttMove : order[i];
+      if (x < 0 || (i >= 0 && x == ttMove) || model.isColumnFull(x)) {
+        continue;
+      }
+
+      int  y   = model.move(me, x);
+      long key = key(x, y, me);
+      int  w   = me == Player.White ? weights[x] : -weights[x];
+      hash     ^= key;
+      material += w;
+
+      int score;
+      switch (model.getStatus()) {
+        case Won:       score = WIN - ply - 1; break;
+        case Stalemate: score = 0; break;
+        default:        score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+      }
+
+      model.undo();
+      hash     ^= key;
+      material -= w;
+
+      if (stopped) {
+        return 0;
+      }
+
+      if (score > best) {
+        best     = score;
+        bestMove = x;
+      }
+      if (score > alpha) {
+        alpha = score;
+      }
+      if (alpha >= beta) {
+        break;
+      }
+    }
+
+    byte kind = best <= alphaBefore ? UPPER : best >= beta ? LOWER : EXACT;
+    tableKeys[slot]   = hash;
+    tableScores[slot] = toTable(best, ply);
+    tableMoves[slot]  = bestMove;
+    tableDepths[slot] = (byte) depth;
+    tableKinds[slot]  = kind;
+
+    if (ply == 0) {
+      rootMove = bestMove;
+    }
+    return best;
+  }
+
+  /**
+   * Converts a score counted from the root to one counted from the
+   * position, for the table.
+   */
+  private static int toTable(int score, int ply) {
+    if (score >= DECIDED) {
+      return score + ply;
+    } else if (score <= -DECIDED) {
+      return score - ply;
+    } else {
+      return score;
+    }
+  }
+
+  /**
+   * Converts a score from the table to one counted from the root.
+   */
+  private static int fromTable(int score, int ply) {
+    if (score >= DECIDED) {
+      return score - ply;
+    } else if (score <= -DECIDED) {
+      return score + ply;
+    } else {
+      return score;
+    }
+  }
+
+  private long key(int x, int y, Player player) {
+    return zobrist[(x * height + y) * 2 + player.ordinal()];
+  }
+
+  private int firstLegalMove() {
+    for (int x : order) {
+      if (!model.isColumnFull(x)) {
+        return x;
+      }
+    }
+    throw new AssertionError("no legal moves in a game in progress");
+  }
+
+  /**
+   * The outcome of a search.
+   */
+  public static final class Result {
+    private final int column;
+    private final int score;
+    private final int depth;
+    private final boolean solved;
+    private final long nodes;
+    private final long nanos;
+
+    Result(int column, int score, int depth, boolean solved, long nodes,
+           long nanos) {
+      this.column = column;
+      this.score = score;
+      this.depth = depth;
+      this.solved = solved;
+      this.nodes = nodes;
+      this.nanos = nanos;
+    }
+
+    /**
+     * The column chosen.
+     *
+     * @return the column
+     */
+    public int column() {
+      return column;
+    }
+
+    /**
+     * The score of the chosen move for the player to move: positive is
+     * good, and scores of at least half of {@code 2^30} are forced wins (and
+     * their negations forced losses).
+     *
+     * @return the score
+     */
+    public int score() {
+      return score;
+    }
+
+    /**
+     * How many moves ahead the last complete search looked.
+     *
+     * @return the depth
+     */
+    public int depth() {
+      return depth;
+    }
+
+    /**
+     * Whether the search found the outcome of the game with best play: a
+     * forced win or loss, or a search to the end of the game.
+     *
+     * @return whether the position is solved
+     */
+    public boolean solved() {
+      return solved;
+    }
+
+    /**
+     * Whether the score is a forced win for the player to move.
+     *
+     * @return whether the player to move can force a win
+     */
+    public boolean isWin() {
+      return score >= DECIDED;
+    }
+
+    /**
+     * Whether the score is a forced loss for the player to move.
+     *
+     * @return whether the opponent can force a win
+     */
+    public boolean isLoss() {
+      return score <= -DECIDED;
+    }
+
+    /**
+     * How many positions the search visited, including ones cut short by
+     * the clock.
+     *
+     * @return the number of nodes
+     */
+    public long nodes() {
+      return nodes;
+    }
+
+    /**
+     * How long the search took.
+     *
+     * @return the time in nanoseconds
+     */
+    public long nanos() {
+      return nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("column %d, score %d, depth %d%s, %d nodes in"
+                               + " %.3f s", column, score, depth,
+                           solved ? " (solved)" : "", nodes, nanos / 1e9);
+    }
+  }
+}
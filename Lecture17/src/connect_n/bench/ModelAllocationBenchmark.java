@@ -0,0 +1,97 @@
+package connect_n.bench;
+
+import connect_n.model.Model;
+import connect_n.model.ModelImpl;
+import connect_n.model.Player;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Measures the time and bytes allocated per move over random games, for
+ * {@link ModelImpl} and for whatever {@link Model#builder()} picks. Run it
+ * with {@code java connect_n.bench.ModelAllocationBenchmark}; it needs a
+ * HotSpot JVM, which can report the bytes allocated by a thread.
+ *
+ * <p>Models are built a batch at a time before the clock starts, so the
+ * figures cover only {@code move} and the checks it does, not
+ * construction. No one asks for the winning positions.
+ *
+ * <p>The "fill" lines instead fill the grid one column at a time from the
+ * left, on a grid too short for a line to form, so every game goes all the
+ * way to stalemate; that's where a per-move cost that grows with the width
+ * would show.
+ */
+public final class ModelAllocationBenchmark {
+  private static final int BATCH   = 100;
+  private static final int BATCHES = 20;
+
+  private ModelAllocationBenchmark() { }
+
+  public static void main(String[] args) {
+    for (int pass = 0; pass < 2; ++pass) {
+      run("ModelImpl 7x6", false, () -> ModelImpl.builder().build());
+      run("default 7x6", false, Model::connectFour);
+      run("ModelImpl 40x30/5", false, () -> ModelImpl.builder()
+          .width(40).height(30).goal(5).build());
+      run("fill 10x3/4", true, () -> ModelImpl.builder()
+          .width(10).height(3).goal(4).build());
+      run("fill 1000x3/4", true, () -> ModelImpl.builder()
+          .width(1000).height(3).goal(4).build());
+    }
+  }
+
+  /**
+   * Plays games to the end on freshly built models and prints the time and
+   * bytes allocated per move.
+   *
+   * @param name the name to report
+   * @param fill whether to fill columns from the left rather than play
+   *   randomly
+   * @param factory builds the models
+   */
+  private static void run(String name, boolean fill,
+                          Supplier<Model> factory) {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+
+    Random random = new Random(22);
+    Model[] models = new Model[BATCH];
+    long moves = 0;
+    long bytes = 0;
+    long nanos = 0;
+
+    for (int batch = 0; batch < BATCHES; ++batch) {
+      for (int i = 0; i < BATCH; ++i) {
+        models[i] = factory.get();
+      }
+
+      long bytesBefore = threads.getThreadAllocatedBytes(thread);
+      long start       = System.nanoTime();
+
+      for (Model model : models) {
+        int width = model.getWidth();
+        int next  = 0;
+        while (!model.isGameOver()) {
+          if (fill && model.isColumnFull(next)) {
+            ++next;
+          }
+          int column = fill ? next : random.nextInt(width);
+          if (!model.isColumnFull(column)) {
+            Player who = model.getNextPlayer();
+            model.move(who, column);
+            ++moves;
+          }
+        }
+      }
+
+      nanos += System.nanoTime() - start;
+      bytes += threads.getThreadAllocatedBytes(thread) - bytesBefore;
+    }
+
+    System.out.printf("%-19s %7.1f ns/move %8.2f bytes/move%n",
+                      name, (double) nanos / moves, (double) bytes / moves);
+  }
+}
@@ -0,0 +1,60 @@
+package connect_n.bench;
+
+import connect_n.ai.AlphaBetaPlayer;
+import connect_n.model.Model;
+import connect_n.model.ModelImpl;
+
+/**
+ * Measures the speed and depth of {@link AlphaBetaPlayer} on the default
+ * Connect Four grid. Run it with {@code java connect_n.bench.SearchBenchmark
+ * [budget-millis]}; the budget defaults to 5000.
+ *
+ * <p>It searches the empty grid, and then the positions after a fixed
+ * opening of 8, 16 and 24 moves, each with a fresh player so that no
+ * table entries carry over. For each it prints the move chosen, the score,
+ * the depth completed, whether that solved the position, and the nodes
+ * searched per second. Last, it searches the empty grid on a
+ * {@link ModelImpl}, for comparison with the {@code BitboardModel} that
+ * {@link Model#connectFour()} returns.
+ */
+public final class SearchBenchmark {
+  // A random opening in which neither player wins or lets the other win
+  // on the next move, by column:
+  private static final int[] OPENING = {
+      6, 3, 6, 3, 0, 2, 4, 3, 3, 6, 6, 2, 3, 2, 2, 4,
+      2, 2, 3, 0, 6, 4, 6, 1,
+  };
+
+  private SearchBenchmark() { }
+
+  public static void main(String[] args) {
+    long budget = args.length > 0 ? Long.parseLong(args[0]) : 5000;
+
+    for (int moves = 0; moves <= OPENING.length; moves += 8) {
+      Model model = Model.connectFour();
+      for (int i = 0; i < moves; ++i) {
+        model.move(model.getNextPlayer(), OPENING[i]);
+      }
+
+      run("after " + moves + " moves", model, budget);
+    }
+
+    run("ModelImpl, empty", ModelImpl.builder().build(), budget);
+  }
+
+  /**
+   * Searches a position with a fresh player and prints the result.
+   *
+   * @param name the name to report
+   * @param model the position (game not over)
+   * @param budget the time budget in milliseconds
+   */
+  private static void run(String name, Model model, long budget) {
+    AlphaBetaPlayer player =
+        new AlphaBetaPlayer(budget, AlphaBetaPlayer.DEFAULT_TABLE_BITS);
+    AlphaBetaPlayer.Result result = player.search(model);
+
+    System.out.printf("%-16s %s, %.0f nodes/s%n", name + ":", result,
+                      result.nodes() / (result.nanos() / 1e9));
+  }
+}
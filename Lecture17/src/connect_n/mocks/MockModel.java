@@ -32,6 +32,8 @@ public class MockModel implements Model {
   Player nextPlayer;
   Player winner;
   Set<Position> winningPositions;
+  int moveCount;
+  boolean canRedo;
 
   /**
    * These tables specify the results for the getPlayerAt and getColumnSize
@@ -41,8 +43,8 @@ public class MockModel implements Model {
   Map<Integer, Integer> columnSizeTable = new HashMap<>();
 
   /**
-   * The script of expected moves and results, along with a sequence of field
-   * update actions after each move.
+   * The script of expected moves, undos and redos and their results, along
+   * with a sequence of field update actions after each.
    */
   MoveScript moveScript = new MoveScript();
 
@@ -159,6 +161,22 @@ public class MockModel implements Model {
     return this;
   }
 
+  @Override
+  public int getMoveCount() {
+    return moveCount;
+  }
+
+  /**
+   * Sets the move count for subsequent calls to {@link #getMoveCount()}.
+   *
+   * @param moveCount the new move count
+   * @return {@code this}, for method chaining
+   */
+  public MockModel setMoveCount(int moveCount) {
+    this.moveCount = moveCount;
+    return this;
+  }
+
   @Override
   public Set<Position> getWinningPositions() {
     return winningPositions;
@@ -198,6 +216,33 @@ public class MockModel implements Model {
     return moveScript.move(who, where);
   }
 
+  @Override
+  public int undo() {
+    return moveScript.undo();
+  }
+
+  @Override
+  public int redo() {
+    return moveScript.redo();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return canRedo;
+  }
+
+  /**
+   * Sets whether there is a move to redo, for subsequent calls to
+   * {@link #canRedo()}.
+   *
+   * @param canRedo the new result
+   * @return {@code this}, for method chaining
+   */
+  public MockModel setCanRedo(boolean canRedo) {
+    this.canRedo = canRedo;
+    return this;
+  }
+
   /**
    * Asserts that the move script is empty, meaning that the client has made
    * all the moves that we expect.
@@ -208,17 +253,18 @@ public class MockModel implements Model {
 
   /**
    * Interface for specifying the results of calls to
-   * {@link #move(Player, int)} in the script. In particular, when we specify
-   * an expected move, the {@link #onMove(Player, int)} method returns an
-   * {@link IntReply} object that we use to provide the result value for that
-   * expected call to {@code move}.
+   * {@link #move(Player, int)}, {@link #undo()} and {@link #redo()} in the
+   * script. In particular, when we specify an expected move, the
+   * {@link #onMove(Player, int)} method returns an {@link IntReply} object
+   * that we use to provide the result value for that expected call to
+   * {@code move}, and likewise for {@link #onUndo()} and {@link #onRedo()}.
    */
   public interface IntReply {
     /**
      * Receives the result that the script should return for a particular
-     * expected call to {@link #move(Player, int)}.
+     * expected call.
      *
-     * @param reply the value to return from {@code move}
+     * @param reply the value to return from the call
      * @return the model, for further method chaining.
      */
     MockModel reply(int reply);
@@ -244,8 +290,38 @@ public class MockModel implements Model {
   }
 
   /**
-   * Chains an action to be executed as part of the last move in the move
-   * script. We use this to update the state of the mock model after each
+   * Adds an expected undo to the end of the move script, as
+   * {@link #onMove(Player, int)} adds a move. The reply is the column that
+   * {@link #undo()} should return.
+   *
+   * @return an object for setting the result that the mock model should
+   * return from the undo
+   */
+  public IntReply onUndo() {
+    return result -> {
+      moveScript.add(Call.UNDO, null, 0, result);
+      return this;
+    };
+  }
+
+  /**
+   * Adds an expected redo to the end of the move script, as
+   * {@link #onMove(Player, int)} adds a move. The reply is the column height
+   * that {@link #redo()} should return.
+   *
+   * @return an object for setting the result that the mock model should
+   * return from the redo
+   */
+  public IntReply onRedo() {
+    return result -> {
+      moveScript.add(Call.REDO, null, 0, result);
+      return this;
+    };
+  }
+
+  /**
+   * Chains an action to be executed as part of the last move (or undo or
+   * redo) in the move script. We use this to update the state of the mock model after each
    * move, so that subsequent calls to getters from the client under test
    * return the right values. If this method is called multiple times without
    * a call to {@link #onMove(Player, int)} in between then all of the
@@ -263,6 +339,11 @@ public class MockModel implements Model {
     return this;
   }
 
+  /**
+   * The model methods that the move script can expect.
+   */
+  private enum Call { MOVE, UNDO, REDO }
+
   /**
    * The representation of the move script, which scripts the mock's
    * interaction with the client under test.
@@ -281,7 +362,29 @@ public class MockModel implements Model {
      * @throws AssertionError if the parameters are not what the script expects
      */
     int move(Player who, int where) {
-      return script.remove().move(who, where);
+      return script.remove().run(Call.MOVE, who, where);
+    }
+
+    /**
+     * Simulates the model's handling of an undo based on the first entry in
+     * the move script, which must be an expected undo.
+     *
+     * @return the scripted result for the expected undo
+     * @throws AssertionError if the script expects something else
+     */
+    int undo() {
+      return script.remove().run(Call.UNDO, null, 0);
+    }
+
+    /**
+     * Simulates the model's handling of a redo based on the first entry in
+     * the move script, which must be an expected redo.
+     *
+     * @return the scripted result for the expected redo
+     * @throws AssertionError if the script expects something else
+     */
+    int redo() {
+      return script.remove().run(Call.REDO, null, 0);
     }
 
     /**
@@ -310,7 +413,21 @@ public class MockModel implements Model {
      * @return {@code this}, for method chaining
      */
     MoveScript add(Player who, int where, int result) {
-      script.addLast(new MoveCommand(who, where, result));
+      return add(Call.MOVE, who, where, result);
+    }
+
+    /**
+     * Adds an expected call to the move script, with its expected
+     * parameters (ignored for an undo or redo) and its result.
+     *
+     * @param call the expected method
+     * @param who the expected player
+     * @param where the expected column
+     * @param result the result to return
+     * @return {@code this}, for method chaining
+     */
+    MoveScript add(Call call, Player who, int where, int result) {
+      script.addLast(new MoveCommand(call, who, where, result));
       return this;
     }
 
@@ -325,9 +442,10 @@ public class MockModel implements Model {
     }
 
     /**
-     * Represents each expected move and its result.
+     * Represents each expected move, undo or redo and its result.
      */
     class MoveCommand {
+      Call call;
       Player who;
       int where;
       int result;
@@ -335,24 +453,29 @@ public class MockModel implements Model {
       // The actions to execute when this move is simulated.
       List<Action> actions = new ArrayList<>();
 
-      MoveCommand(Player who, int where, int result) {
+      MoveCommand(Call call, Player who, int where, int result) {
+        this.call = call;
         this.who = who;
         this.where = where;
         this.result = result;
       }
 
       /**
-       * Simulates the specified move by checking the actual parameters
-       * against the expected parameters specified when this {@code
+       * Simulates the specified call by checking the actual method and
+       * parameters against the expected ones specified when this {@code
        * MoveCommand} was constructed.
        *
+       * @param call the method called by the client under test
        * @param who the player provided by the client under test
        * @param where the column provided by the client under test
        * @return the result to return to the client
        */
-      int move(Player who, int where) {
-        assertEquals(this.who, who);
-        assertEquals(this.where, where);
+      int run(Call call, Player who, int where) {
+        assertEquals(this.call, call);
+        if (call == Call.MOVE) {
+          assertEquals(this.who, who);
+          assertEquals(this.where, where);
+        }
 
         for (Action action : actions) {
           action.execute();
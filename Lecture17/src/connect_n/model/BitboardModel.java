@@ -0,0 +1,430 @@
+package connect_n.model;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Implementation of a Connect-N game model that keeps each player's tokens
+ * in a {@code long} bitboard, for grids small enough to fit. Checking for a
+ * line after a move takes a few shifts and ANDs per direction, and moving
+ * allocates nothing.
+ *
+ * <p>Bit {@code x * (height + 1) + y} of a board stands for the cell in
+ * column {@code x}, row {@code y}. Each column thus has one spare bit above
+ * its top row, which is always clear and keeps lines from running off the
+ * top of one column into the bottom of the next. That layout needs
+ * {@code (height + 1) * width <= 64}. {@link Model#builder()} returns a
+ * {@code BitboardModel} for grids that fit and a {@link ModelImpl} for the
+ * rest.
+ */
+public final class BitboardModel implements Model {
+  /*
+   * CLASS INVARIANTS:
+   *
+   *  - width > 0
+   *
+   *  - height > 0
+   *
+   *  - goal > 1
+   *
+   *  - (height + 1) * width <= 64
+   *
+   *  - boards[0] & boards[1] == 0, and neither board has a bit set outside
+   *    the grid (in particular, no spare bit is ever set)
+   *
+   *  - for every column x, the bits set in column x of either board are
+   *    exactly rows 0 .. columnSizes[x] - 1
+   *
+   *  - moveCount is the number of bits set in both boards together
+   *
+   *  - moveCount <= historySize <= width * height, history[0 .. moveCount)
+   *    are the columns of the moves played, in order, and
+   *    history[moveCount .. historySize) are the columns of the moves
+   *    undone since, most recently undone first
+   *
+   *  - status != null
+   *
+   *     - if status == Playing, then neither board has a line of goal and
+   *       the grid isn't full
+   *
+   *     - if status == Stalemate, then neither board has a line of goal and
+   *       the grid *is* full
+   *
+   *     - if status == Won, then the board of player turn has a line of goal
+   *       through (lastX, lastY) in direction DIRECTIONS[winDirection]
+   *
+   *  - if winningPositions != null then status == Won and winningPositions
+   *    is the whole line described above
+   *
+   *  - turn != null
+   */
+
+  private final int width;
+  private final int height;
+  private final int goal;
+
+  // Each player's tokens, indexed by Player.ordinal():
+  private final long[] boards = new long[2];
+
+  // The number of tokens in each column:
+  private final int[] columnSizes;
+
+  // The number of tokens in the grid:
+  private int moveCount;
+
+  // The column of every move, for undo and redo:
+  private final int[] history;
+  private int historySize;
+
+  private Status status;
+  private Player turn;    // if the status is Won then turn is the winner
+
+  // Where the most recent move was played, and if it won, which entry of
+  // DIRECTIONS its line runs in:
+  private int lastX;
+  private int lastY;
+  private int winDirection;
+
+  // Built from the above when first asked for:
+  private Set<Position> winningPositions;
+
+  /**
+   * Constructs a new game model.
+   *
+   * @param width the width of the grid (positive)
+   * @param height the height of the grid (positive)
+   * @param goal the goal line length ({@code > 1})
+   * @throws IllegalArgumentException if the grid doesn't
+   *   {@linkplain #fits(int, int) fit}
+   */
+  BitboardModel(int width, int height, int goal) {
+    if (!fits(width, height)) {
+      throw new IllegalArgumentException("grid too large for a bitboard");
+    }
+
+    this.width = width;
+    this.height = height;
+    this.goal = goal;
+
+    status = Status.Playing;
+    turn = Player.White;
+
+    columnSizes = new int[width];
+    history = new int[width * height];
+  }
+
+  /**
+   * Determines whether a grid is small enough for a {@code BitboardModel}.
+   *
+   * @param width the width of the grid (positive)
+   * @param height the height of the grid (positive)
+   * @return whether {@code (height + 1) * width <= 64}
+   */
+  static boolean fits(int width, int height) {
+    return (long) (height + 1) * width <= Long.SIZE;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public int getGoal() {
+    return goal;
+  }
+
+  @Override
+  public Status getStatus() {
+    return status;
+  }
+
+  @Override
+  public Player getNextPlayer() {
+    if (isGameOver()) {
+      throw new IllegalStateException("the game is over");
+    }
+
+    return turn;
+  }
+
+  @Override
+  public Player getWinner() {
+    if (getStatus() != Status.Won) {
+      throw new IllegalStateException("the game isn't over");
+    }
+
+    return turn;
+  }
+
+  @Override
+  public Set<Position> getWinningPositions() {
+    if (getStatus() != Status.Won) {
+      throw new IllegalStateException("the game isn't over");
+    }
+
+    if (winningPositions == null) {
+      int dx = DIRECTIONS[winDirection][0];
+      int dy = DIRECTIONS[winDirection][1];
+
+      Set<Position> result = new HashSet<>();
+      collectLine(result, dx, dy);
+      collectLine(result, -dx, -dy);
+      winningPositions = result;
+    }
+
+    return winningPositions;
+  }
+
+  @Override
+  public Player getPlayerAt(int x, int y) {
+    ensureBounds(x, y);
+
+    long bit = bitAt(x, y);
+    if ((boards[Player.White.ordinal()] & bit) != 0) {
+      return Player.White;
+    } else if ((boards[Player.Red.ordinal()] & bit) != 0) {
+      return Player.Red;
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public int getColumnSize(int which) {
+    // every column has a row 0, so this effectively checks the column:
+    ensureBounds(which, 0);
+
+    return columnSizes[which];
+  }
+
+  @Override
+  public int getMoveCount() {
+    return moveCount;
+  }
+
+  @Override
+  public int move(Player who, int where) {
+    if (status != Status.Playing) {
+      throw new IllegalStateException("game over");
+    }
+
+    if (who != turn) {
+      throw new IllegalStateException("out of turn");
+    }
+
+    // every column has a row 0, so this effectively checks the column:
+    ensureBounds(where, 0);
+
+    if (isColumnFull(where)) {
+      throw new IllegalStateException("attempt to play in full column");
+    }
+
+    // A new move replaces any that were undone:
+    historySize = moveCount;
+    return play(where);
+  }
+
+  @Override
+  public int undo() {
+    if (moveCount == 0) {
+      throw new IllegalStateException("no moves to undo");
+    }
+
+    int where = history[--moveCount];
+    long bit = bitAt(where, --columnSizes[where]);
+
+    // Whatever the move did, the game was in progress before it and it was
+    // the turn of the player who made it:
+    turn = (boards[Player.White.ordinal()] & bit) != 0
+        ? Player.White
+        : Player.Red;
+    boards[turn.ordinal()] &= ~bit;
+    status = Status.Playing;
+    winningPositions = null;
+
+    return where;
+  }
+
+  @Override
+  public int redo() {
+    if (!canRedo()) {
+      throw new IllegalStateException("no moves to redo");
+    }
+
+    return play(history[moveCount]);
+  }
+
+  @Override
+  public boolean canRedo() {
+    return historySize > moveCount;
+  }
+
+  /**
+   * Plays a move that is known to be legal for the player whose turn it is,
+   * records it in the history, and updates the game state.
+   *
+   * @param where which column to play in
+   * @return the height of the column before playing
+   */
+  private int play(int where) {
+    history[moveCount] = where;
+
+    int row = columnSizes[where]++;
+    boards[turn.ordinal()] |= bitAt(where, row);
+    ++moveCount;
+    historySize = Math.max(historySize, moveCount);
+
+    lastX = where;
+    lastY = row;
+
+    if (!checkForWinner() && !checkForStalemate()) {
+      turn = turn.other();
+    }
+
+    return row;
+  }
+
+  /** Offsets specifying the directions in which lines may be made. */
+  private static final int[][] DIRECTIONS =
+      new int[][] { {  0,  1 },  // Up and down
+                    {  1,  0 },  // Left and right
+                    {  1,  1 },  // Up-right and down-left
+                    {  1, -1 },  // Up-left and down-right
+      };
+
+  /**
+   * Checks whether the player who just moved has made a line, and if so
+   * updates the state to reflect this. Any line on the mover's board must
+   * be new, and so must run through the most recent move.
+   *
+   * @return whether the game is over
+   */
+  private boolean checkForWinner() {
+    long board = boards[turn.ordinal()];
+
+    for (int d = 0; d < DIRECTIONS.length; ++d) {
+      if (hasLine(board, shiftFor(DIRECTIONS[d]))) {
+        status = Status.Won;
+        winDirection = d;
+        winningPositions = null;
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Determines whether a board has {@code goal} tokens in a row in the
+   * direction that a bit moves when shifted left by {@code shift}.
+   *
+   * <p>After {@code run &= run >>> (k * shift)}, a bit of {@code run} that
+   * stood for a line of {@code length} stands for a line of
+   * {@code length + k}, provided {@code k <= length}. So the length roughly
+   * doubles on each step, and {@code goal} takes about lg(goal) steps.
+   *
+   * @param board the board
+   * @param shift the distance between neighboring bits of a line
+   * @return whether there is a line
+   */
+  private boolean hasLine(long board, int shift) {
+    // The two ends of the line would be more than 64 bits apart:
+    if ((long) (goal - 1) * shift >= Long.SIZE) {
+      return false;
+    }
+
+    long run = board;
+    int length = 1;
+
+    while (length < goal && run != 0) {
+      int step = Math.min(length, goal - length);
+      run &= run >>> (step * shift);
+      length += step;
+    }
+
+    return run != 0;
+  }
+
+  /**
+   * Adds to {@code result} the positions of the winner's tokens starting at
+   * the most recent move and stepping by (dx, dy) until the line ends.
+   *
+   * @param result the set to add to
+   * @param dx step in the x direction
+   * @param dy step in the y direction
+   */
+  private void collectLine(Set<Position> result, int dx, int dy) {
+    long board = boards[turn.ordinal()];
+
+    for (int x = lastX, y = lastY;
+         areInBounds(x, y) && (board & bitAt(x, y)) != 0;
+         x += dx, y += dy) {
+      result.add(new Position(x, y));
+    }
+  }
+
+  /**
+   * Sets the game state to stalemate if the grid is full with no winner.
+   *
+   * @return whether the game is over
+   */
+  private boolean checkForStalemate() {
+    if (moveCount < width * height) {
+      return false;
+    }
+
+    status = Status.Stalemate;
+    return true;
+  }
+
+  /**
+   * Finds the shift that moves a bit one step in a direction.
+   *
+   * @param direction the x and y offsets, with x offset 0 or 1
+   * @return the shift
+   */
+  private int shiftFor(int[] direction) {
+    return direction[0] * (height + 1) + direction[1];
+  }
+
+  /**
+   * Returns the bit standing for a cell.
+   *
+   * @param x the column, 0-based from left
+   * @param y the row, 0-based from bottom
+   * @return the bit
+   */
+  private long bitAt(int x, int y) {
+    return 1L << (x * (height + 1) + y);
+  }
+
+  /**
+   * Ensures that the coordinates are in bounds for this game.
+   *
+   * @param x the column, 0-based from left
+   * @param y the row, 0-based from bottom
+   * @throws IndexOutOfBoundsException if (x, y) are out of bounds
+   */
+  private void ensureBounds(int x, int y) {
+    if (!areInBounds(x, y)) {
+      throw new IndexOutOfBoundsException("coordinates are out of bounds");
+    }
+  }
+
+  /**
+   * Checks whether the coordinates are in bounds for this game.
+   *
+   * @param x the column, 0-based from left
+   * @param y the row, 0-based from bottom
+   * @return whether (x, y) are in bounds
+   */
+  private boolean areInBounds(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+}
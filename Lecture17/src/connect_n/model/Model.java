@@ -45,6 +45,13 @@ public interface Model {
         .build();
   }
 
+  /**
+   * Constructs a builder for configuring and then creating a game model. The
+   * model built is a {@link BitboardModel} if the grid is small enough for
+   * one, and a {@link ModelImpl} otherwise.
+   *
+   * @return the new builder
+   */
   static Builder builder() {
     return new ModelImpl.Builder();
   }
@@ -157,6 +164,14 @@ public interface Model {
    */
   int getColumnSize(int which);
 
+  /**
+   * Gets the number of moves played so far, which is also the number of
+   * tokens in the grid.
+   *
+   * @return the number of moves ({@code 0 <= n <= width * height})
+   */
+  int getMoveCount();
+
   /**
    * Plays a move. Given the player (whose turn it must be) and the column
    * number (zero-based from the left), attempts to add that player to that
@@ -174,6 +189,39 @@ public interface Model {
    */
   int move(Player who, int where);
 
+  /**
+   * Takes back the most recent move, restoring the game to exactly the state
+   * it was in before that move: the grid, the status, whose turn it is and
+   * the move count. The move can then be {@linkplain #redo() redone}, until
+   * some other move is played.
+   *
+   * <p>Together with {@link #move(Player, int)}, this lets search code play
+   * out a line in place and back out of it again, rather than copying the
+   * model for every position it looks at.
+   *
+   * @return the column that the move was played in
+   * @throws IllegalStateException if no moves have been played
+   */
+  int undo();
+
+  /**
+   * Plays again the move most recently taken back by {@link #undo()}.
+   *
+   * @return the height of the column before playing, as for
+   *   {@link #move(Player, int)}
+   * @throws IllegalStateException if {@code !canRedo()}
+   */
+  int redo();
+
+  /**
+   * Determines whether there is an undone move to {@linkplain #redo() redo}.
+   * Undone moves can be redone, most recent first, until another move is
+   * played.
+   *
+   * @return whether {@link #redo()} would succeed
+   */
+  boolean canRedo();
+
   /**
    * Builds a {@link Model}, allowing the client to configure several
    * parameters. This is an instance of the <em>builder pattern</em>.
@@ -22,6 +22,13 @@ public final class ModelImpl implements Model {
    *
    *  - all the elements of the elements of columns are non-null
    *
+   *  - moveCount is the sum of the sizes of the columns
+   *
+   *  - moveCount <= historySize <= history.length, history[0 .. moveCount)
+   *    are the columns of the moves played, in order, and
+   *    history[moveCount .. historySize) are the columns of the moves
+   *    undone since, most recently undone first
+   *
    *  - status != null
    *
    *     - if status == Playing, then winningPositions == null and
@@ -30,8 +37,12 @@ public final class ModelImpl implements Model {
    *     - if status == Stalemate, then winningPositions == null and
    *       the grid *is* full
    *
-   *     - if status == Won, then winningPositions.size() >= goal, the
-   *       positions form a line, and that line belongs to player {@code turn}
+   *     - if status == Won, then player {@code turn} has a line of at
+   *       least goal through (lastX, lastY) in direction
+   *       DIRECTIONS[winDirection]
+   *
+   *  - if winningPositions != null, then status == Won and winningPositions
+   *    is the whole line described above
    *
    *  - turn != null
    */
@@ -40,13 +51,28 @@ public final class ModelImpl implements Model {
   private final int height;
   private final int goal;
 
+  // Built when first asked for, from the winning move and direction:
   private Set<Position> winningPositions;
 
   private Status status;
   private Player turn;    // if the status is Won then turn is the winner
 
+  // Where the winning move was played, and which entry of DIRECTIONS its
+  // line runs in:
+  private int lastX;
+  private int lastY;
+  private int winDirection;
+
   private final List<List<Player>> columns;
 
+  // The number of tokens in all the columns together, so that checking for
+  // a full grid doesn't have to look at every column:
+  private int moveCount;
+
+  // The column of every move, for undo and redo:
+  private int[] history = new int[16];
+  private int historySize;
+
   private ModelImpl(int w, int h, int g, String... ps)
   {
     width = w;
@@ -66,11 +92,14 @@ public final class ModelImpl implements Model {
    * Constructs a builder for configuring and then creating a game connect_n.model
    * instance. Defaults to a game of Connect Four with players named â€œWhiteâ€
    * and â€œRedâ€.
+   * Unlike {@link Model#builder()}, which returns a {@link BitboardModel}
+   * whenever the grid is small enough, this builder always creates a
+   * {@code ModelImpl}.
    *
    * @return the new builder
    */
-  static Builder builder() {
-    return new Builder();
+  public static Model.Builder builder() {
+    return new Builder(false);
   }
 
   @Override
@@ -118,6 +147,16 @@ public final class ModelImpl implements Model {
       throw new IllegalStateException("the game isn't over");
     }
 
+    if (winningPositions == null) {
+      int dx = DIRECTIONS[winDirection][0];
+      int dy = DIRECTIONS[winDirection][1];
+
+      Set<Position> result = new HashSet<>();
+      collectLine(result, dx, dy);
+      collectLine(result, -dx, -dy);
+      winningPositions = result;
+    }
+
     return winningPositions;
   }
   @Override
@@ -141,6 +180,11 @@ public final class ModelImpl implements Model {
     return columns.get(which).size();
   }
 
+  @Override
+  public int getMoveCount() {
+    return moveCount;
+  }
+
   @Override
   public int move(Player who, int where) {
     if (status != Status.Playing) {
@@ -158,12 +202,64 @@ public final class ModelImpl implements Model {
       throw new IllegalStateException("attempt to play in full column");
     }
 
+    // A new move replaces any that were undone:
+    historySize = moveCount;
+    return play(where);
+  }
+
+  @Override
+  public int undo() {
+    if (moveCount == 0) {
+      throw new IllegalStateException("no moves to undo");
+    }
+
+    int where = history[--moveCount];
+    List<Player> column = columns.get(where);
+
+    // Whatever the move did, the game was in progress before it and it was
+    // the turn of the player who made it:
+    turn = column.remove(column.size() - 1);
+    status = Status.Playing;
+    winningPositions = null;
+
+    return where;
+  }
+
+  @Override
+  public int redo() {
+    if (!canRedo()) {
+      throw new IllegalStateException("no moves to redo");
+    }
+
+    return play(history[moveCount]);
+  }
+
+  @Override
+  public boolean canRedo() {
+    return historySize > moveCount;
+  }
+
+  /**
+   * Plays a move that is known to be legal for the player whose turn it is,
+   * records it in the history, and updates the game state.
+   *
+   * @param where which column to play in
+   * @return the height of the column before playing
+   */
+  private int play(int where) {
+    if (moveCount == history.length) {
+      history = Arrays.copyOf(history, 2 * history.length);
+    }
+    history[moveCount] = where;
+
     /* The column list is only long enough to contain the tokens played
      * thus far, so it's possible that a valid row is above the filled
      * portion of the column. */
     List<Player> column = columns.get(where);
     int row = column.size();
-    column.add(who);
+    column.add(turn);
+    ++moveCount;
+    historySize = Math.max(historySize, moveCount);
 
     if (!checkForWinner(where, row) && !checkForStalemate()) {
       turn = turn.other();
@@ -173,7 +269,7 @@ public final class ModelImpl implements Model {
   }
 
   /** Offsets specifying the directions in which lines may be made. */
-  private static int[][] DIRECTIONS =
+  private static final int[][] DIRECTIONS =
       new int[][] { {  0,  1 },  // Up and down
                     {  1,  0 },  // Left and right
                     {  1,  1 },  // Up-right and down-left
@@ -190,21 +286,25 @@ public final class ModelImpl implements Model {
    * @return whether the game is over
    */
   private boolean checkForWinner(int x, int y) {
-    for (int[] dir : DIRECTIONS) {
-      int dx = dir[0];
-      int dy = dir[1];
+    for (int d = 0; d < DIRECTIONS.length; ++d) {
+      int dx = DIRECTIONS[d][0];
+      int dy = DIRECTIONS[d][1];
 
       // We count in the forward direction using the pair of offsets and the
-      // backward direction by using their opposites.
-      Set<Position> positions = lookInDirection(x, y, dx, dy);
-      positions.addAll(lookInDirection(x, y, -dx, -dy));
-
-      // Counting both directions and the current move, if we find a line
-      // longer than goal then the game is won! (We need to subtract 1 so
-      // that we don't double-count the current move.)
-      if (positions.size() >= goal) {
+      // backward direction by using their opposites. Each count includes
+      // the current move, so we subtract 1 so as not to count it twice.
+      int length = lookInDirection(x, y, dx, dy)
+                   + lookInDirection(x, y, -dx, -dy) - 1;
+
+      // If we find a line at least as long as goal then the game is won!
+      // The positions are left for getWinningPositions to find, since most
+      // callers never ask.
+      if (length >= goal) {
         status = Status.Won;
-        winningPositions = positions;
+        lastX = x;
+        lastY = y;
+        winDirection = d;
+        winningPositions = null;
         return true;
       }
     }
@@ -223,27 +323,49 @@ public final class ModelImpl implements Model {
    * @param dy step in the y direction
    * @return the length of the line in the given direction
    */
-  private Set<Position> lookInDirection(int x, int y, int dx, int dy) {
-    Set<Position> result = new HashSet<>();
-
-    Player player = getPlayerAt(x, y);
+  private int lookInDirection(int x, int y, int dx, int dy) {
+    Player player = playerAt(x, y);
 
     // There should always be a token at (x, y) when this method is called
     assert(player != null);
 
-    while (areInBounds(x, y)) {
-      // Important that player is the receiver here, since getPlayerAt may
-      // return null
-      if (player.equals(getPlayerAt(x, y))) {
-        result.add(new Position(x, y));
-        x += dx;
-        y += dy;
-      } else {
-        break;
-      }
+    int count = 0;
+    while (areInBounds(x, y) && playerAt(x, y) == player) {
+      ++count;
+      x += dx;
+      y += dy;
+    }
+
+    return count;
+  }
+
+  /**
+   * Adds to {@code result} the positions of the winner's line starting at
+   * the winning move and stepping by (dx, dy) until the line ends.
+   *
+   * @param result the set to add to
+   * @param dx step in the x direction
+   * @param dy step in the y direction
+   */
+  private void collectLine(Set<Position> result, int dx, int dy) {
+    for (int x = lastX, y = lastY;
+         areInBounds(x, y) && playerAt(x, y) == turn;
+         x += dx, y += dy) {
+      result.add(new Position(x, y));
     }
+  }
 
-    return result;
+  /**
+   * Gets the player at in-bounds coordinates, or {@code null}, like
+   * {@link #getPlayerAt(int, int)} but without checking the bounds again.
+   *
+   * @param x the column, 0-based from left (in bounds)
+   * @param y the row, 0-based from bottom (in bounds)
+   * @return the player in the given position, or {@code null}
+   */
+  private Player playerAt(int x, int y) {
+    List<Player> column = columns.get(x);
+    return y < column.size() ? column.get(y) : null;
   }
 
   /**
@@ -252,10 +374,8 @@ public final class ModelImpl implements Model {
    * @return whether the game is over
    */
   private boolean checkForStalemate() {
-    for (List<?> column : columns) {
-      if (column.size() < getHeight()) {
-        return false;
-      }
+    if (moveCount < (long) width * height) {
+      return false;
     }
 
     status = Status.Stalemate;
@@ -302,8 +422,23 @@ public final class ModelImpl implements Model {
     private int height = DEFAULT_HEIGHT;
     private int goal = DEFAULT_GOAL;
 
+    // Whether to build a BitboardModel when the grid fits one:
+    private final boolean bitboards;
+
+    Builder() {
+      this(true);
+    }
+
+    Builder(boolean bitboards) {
+      this.bitboards = bitboards;
+    }
+
     @Override
     public Model build() {
+      if (bitboards && BitboardModel.fits(width, height)) {
+        return new BitboardModel(width, height, goal);
+      }
+
       return new ModelImpl(width, height, goal);
     }
 
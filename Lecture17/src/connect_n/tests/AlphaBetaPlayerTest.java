@@ -0,0 +1,198 @@
+package connect_n.tests;
+
+import connect_n.ai.AlphaBetaPlayer;
+import connect_n.model.Model;
+import connect_n.model.ModelImpl;
+import connect_n.model.Player;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AlphaBetaPlayer}.
+ */
+public class AlphaBetaPlayerTest {
+  AlphaBetaPlayer player = new AlphaBetaPlayer(200, 16);
+
+  Model connect4 = Model.connectFour();
+
+  @Test
+  public void testTakesWin() {
+    play(connect4, 0, 0, 1, 1, 2, 2);
+
+    AlphaBetaPlayer.Result result = player.search(connect4);
+    assertEquals(3, result.column());
+    assertTrue(result.isWin());
+    assertTrue(result.solved());
+    assertEquals(1, result.depth());
+  }
+
+  @Test
+  public void testBlocksLoss() {
+    play(connect4, 0, 0, 1, 1, 2);
+    assertEquals(3, player.chooseMove(connect4));
+  }
+
+  @Test
+  public void testLeavesModelAsFound() {
+    play(connect4, 3, 3, 2, 4);
+    String before = describe(connect4);
+
+    player.search(connect4);
+    assertEquals(before, describe(connect4));
+    assertEquals(4, connect4.getMoveCount());
+    assertEquals(Player.White, connect4.getNextPlayer());
+  }
+
+  @Test
+  public void testKeepsRedoHistory() {
+    play(connect4, 3, 3, 2, 4, 5, 1);
+    connect4.undo();
+    connect4.undo();
+    String before = describe(connect4);
+
+    player.search(connect4);
+    assertEquals(before, describe(connect4));
+    assertTrue(connect4.canRedo());
+
+    // The undone moves come back, in order:
+    connect4.redo();
+    connect4.redo();
+    assertFalse(connect4.canRedo());
+    assertEquals(6, connect4.getMoveCount());
+    assertEquals(Player.White, connect4.getPlayerAt(5, 0));
+    assertEquals(Player.Red, connect4.getPlayerAt(1, 0));
+  }
+
+  @Test
+  public void testCenterFirst() {
+    // With nothing to find in the first few moves, the center wins out:
+    AlphaBetaPlayer quick = new AlphaBetaPlayer(1, 10);
+    assertEquals(3, quick.chooseMove(connect4));
+  }
+
+  @Test
+  public void testTimeBudget() {
+    AlphaBetaPlayer quick = new AlphaBetaPlayer(50, 16);
+    AlphaBetaPlayer.Result result = quick.search(connect4);
+
+    assertTrue(result.depth() >= 1);
+    assertFalse(result.solved());
+    assertTrue(result.nanos() < 2000000000L);
+  }
+
+  @Test
+  public void testAgreesWithExhaustiveSearch() {
+    Random random = new Random(25);
+    int[][] shapes = { { 3, 4, 3 }, { 4, 3, 3 }, { 4, 4, 4 }, { 2, 5, 3 } };
+
+    for (int[] shape : shapes) {
+      for (int game = 0; game < 12; ++game) {
+        Model model = ModelImpl.builder()
+            .width(shape[0]).height(shape[1]).goal(shape[2]).build();
+
+        // Start from a few random moves in, so the positions differ:
+        for (int i = 0; i < game % 4 && !model.isGameOver(); ++i) {
+          int column = random.nextInt(model.getWidth());
+          if (!model.isColumnFull(column)) {
+            model.move(model.getNextPlayer(), column);
+          }
+        }
+        if (model.isGameOver()) {
+          continue;
+        }
+
+        AlphaBetaPlayer.Result result =
+            new AlphaBetaPlayer(60000, 16).search(model);
+        assertTrue(result.solved());
+
+        int expected = solve(model, new HashMap<>());
+        int actual   = result.isWin() ? 1 : result.isLoss() ? -1 : 0;
+        assertEquals(expected, actual);
+        assertEquals(actual, Integer.signum(result.score()));
+
+        // The chosen move must achieve that outcome:
+        model.move(model.getNextPlayer(), result.column());
+        int after = model.getStatus() == Model.Status.Won ? 1
+            : model.getStatus() == Model.Status.Stalemate ? 0
+            : -solve(model, new HashMap<>());
+        assertEquals(expected, after);
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testGameOver() {
+    play(connect4, 0, 1, 0, 1, 0, 1, 0);
+    player.chooseMove(connect4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadBudget() {
+    new AlphaBetaPlayer(0, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadTableSize() {
+    new AlphaBetaPlayer(10, 27);
+  }
+
+  private static void play(Model model, int... columns) {
+    for (int column : columns) {
+      model.move(model.getNextPlayer(), column);
+    }
+  }
+
+  /**
+   * Finds the outcome of a game with best play by plain negamax, with no
+   * pruning or ordering to go wrong.
+   *
+   * @param model the game (in progress)
+   * @param memo outcomes of positions already solved
+   * @return 1 if the player to move wins, -1 if they lose, or 0 for a draw
+   */
+  private static int solve(Model model, Map<String, Integer> memo) {
+    String position = describe(model);
+    Integer known = memo.get(position);
+    if (known != null) {
+      return known;
+    }
+
+    int best = -1;
+    for (int x = 0; x < model.getWidth() && best < 1; ++x) {
+      if (model.isColumnFull(x)) {
+        continue;
+      }
+
+      model.move(model.getNextPlayer(), x);
+      int score;
+      switch (model.getStatus()) {
+        case Won:       score = 1; break;
+        case Stalemate: score = 0; break;
+        default:        score = -solve(model, memo);
+      }
+      model.undo();
+
+      best = Math.max(best, score);
+    }
+
+    memo.put(position, best);
+    return best;
+  }
+
+  private static String describe(Model model) {
+    StringBuilder result = new StringBuilder();
+    for (int x = 0; x < model.getWidth(); ++x) {
+      for (int y = 0; y < model.getHeight(); ++y) {
+        Player player = model.getPlayerAt(x, y);
+        result.append(player == null ? '.' : player.name().charAt(0));
+      }
+      result.append('|');
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,91 @@
+package connect_n.tests;
+
+import connect_n.model.BitboardModel;
+import connect_n.model.Model;
+import connect_n.model.ModelImpl;
+import connect_n.model.Player;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BitboardModel}. The inherited tests run against it
+ * because {@link Model#builder()} chooses it for small grids; the tests here
+ * check that choice and play random games against {@link ModelImpl}.
+ */
+public class BitboardModelTest extends ModelTest {
+  @Test
+  public void testBuilderChoosesBitboard() {
+    assertTrue(connect4 instanceof BitboardModel);
+    assertTrue(connect3 instanceof BitboardModel);
+    assertTrue(Model.connectN(8, 7, 4) instanceof BitboardModel);
+    assertTrue(Model.connectN(1, 63, 4) instanceof BitboardModel);
+    assertTrue(Model.connectN(32, 1, 4) instanceof BitboardModel);
+  }
+
+  @Test
+  public void testBuilderFallsBack() {
+    assertTrue(Model.connectN(8, 8, 4) instanceof ModelImpl);
+    assertTrue(Model.connectN(1, 64, 4) instanceof ModelImpl);
+    assertTrue(Model.connectN(33, 1, 4) instanceof ModelImpl);
+  }
+
+  @Test
+  public void testWinningPositions() {
+    connect4.move(White, 0);
+    connect4.move(Red, 0);
+    connect4.move(White, 1);
+    connect4.move(Red, 1);
+    connect4.move(White, 3);
+    connect4.move(Red, 3);
+    connect4.move(White, 4);
+    connect4.move(Red, 4);
+    connect4.move(White, 2);
+
+    assertEquals(White, connect4.getWinner());
+    assertEquals(5, connect4.getWinningPositions().size());
+  }
+
+  @Test
+  public void testAgreesWithModelImpl() {
+    Random random = new Random(21);
+    int[][] shapes = { { 7, 6, 4 }, { 2, 3, 3 }, { 8, 7, 5 }, { 1, 63, 4 },
+                       { 32, 1, 3 }, { 4, 4, 4 }, { 5, 5, 6 }, { 3, 9, 2 } };
+
+    for (int[] shape : shapes) {
+      for (int game = 0; game < 200; ++game) {
+        Model expected = ModelImpl.builder()
+            .width(shape[0]).height(shape[1]).goal(shape[2]).build();
+        Model actual = Model.connectN(shape[0], shape[1], shape[2]);
+        assertTrue(actual instanceof BitboardModel);
+
+        while (!expected.isGameOver()) {
+          int column = random.nextInt(expected.getWidth());
+          if (expected.isColumnFull(column)) {
+            continue;
+          }
+
+          Player who = expected.getNextPlayer();
+          assertEquals(who, actual.getNextPlayer());
+          assertEquals(expected.move(who, column), actual.move(who, column));
+          assertEquals(expected.getStatus(), actual.getStatus());
+        }
+
+        if (expected.getStatus() == Model.Status.Won) {
+          assertEquals(expected.getWinner(), actual.getWinner());
+          assertEquals(expected.getWinningPositions(),
+                       actual.getWinningPositions());
+        }
+
+        for (int x = 0; x < expected.getWidth(); ++x) {
+          assertEquals(expected.getColumnSize(x), actual.getColumnSize(x));
+          for (int y = 0; y < expected.getHeight(); ++y) {
+            assertEquals(expected.getPlayerAt(x, y), actual.getPlayerAt(x, y));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package connect_n.tests;
+
+import connect_n.mocks.MockModel;
+import org.junit.Test;
+
+import static connect_n.model.Player.Red;
+import static connect_n.model.Player.White;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the mock model follows its script, including undos and redos.
+ */
+public class MockModelTest {
+  MockModel model = new MockModel(2, 3, 3);
+
+  @Test
+  public void testUndoRedo() {
+    model
+        .onMove(Red, 1).reply(0).and(() -> model.setMoveCount(1))
+        .onUndo().reply(1).and(() -> model.setCanRedo(true).setMoveCount(0))
+        .onRedo().reply(0).and(() -> model.setCanRedo(false).setMoveCount(1))
+        .onMove(White, 0).reply(0);
+
+    assertEquals(0, model.move(Red, 1));
+    assertEquals(1, model.getMoveCount());
+    assertFalse(model.canRedo());
+    assertEquals(1, model.undo());
+    assertEquals(0, model.getMoveCount());
+    assertTrue(model.canRedo());
+    assertEquals(0, model.redo());
+    assertEquals(1, model.getMoveCount());
+    assertFalse(model.canRedo());
+    assertEquals(0, model.move(White, 0));
+    model.assertFinished();
+  }
+
+  @Test (expected = AssertionError.class)
+  public void testUnexpectedUndo() {
+    model.onMove(Red, 0).reply(0);
+    model.undo();
+  }
+
+  @Test (expected = AssertionError.class)
+  public void testUnexpectedMove() {
+    model.onRedo().reply(0);
+    model.move(Red, 0);
+  }
+}
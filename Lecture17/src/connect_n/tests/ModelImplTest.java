@@ -0,0 +1,15 @@
+package connect_n.tests;
+
+import connect_n.model.Model;
+import connect_n.model.ModelImpl;
+
+/**
+ * Runs the {@link ModelTest} suite against {@link ModelImpl}, which
+ * {@link Model#builder()} only returns for large grids.
+ */
+public class ModelImplTest extends ModelTest {
+  @Override
+  protected Model.Builder builder() {
+    return ModelImpl.builder();
+  }
+}
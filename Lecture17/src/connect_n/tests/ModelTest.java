@@ -5,22 +5,39 @@ import org.junit.Test;
 import connect_n.model.Model;
 import connect_n.model.Player;
 import connect_n.model.ModelImpl;
+import connect_n.model.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
 /**
- * Unit tests for the model implementation.
+ * Unit tests for the model implementation. Subclasses rerun these tests
+ * against particular implementations by overriding {@link #builder()}.
  */
 public class ModelTest {
   public static final Player White = Player.White;
   public static final Player Red   = Player.Red;
 
-  Model connect4 = Model.connectFour();
+  Model connect4 = builder().build();
 
-  Model connect3 = Model.builder()
+  Model connect3 = builder()
       .width(2).height(3).goal(3)
       .build();
 
+  /**
+   * Constructs a builder for the models under test.
+   *
+   * @return the builder
+   */
+  protected Model.Builder builder() {
+    return Model.builder();
+  }
+
   @Test
   public void testDefaults() {
     assertEquals(7, Model.DEFAULT_WIDTH);
@@ -158,6 +175,31 @@ public class ModelTest {
     assertEquals(White, connect4.getWinner());
   }
 
+  @Test
+  public void testGetWinningPositions_horizontal_4() {
+    testMove_winHorizontal_4();
+    assertEquals(new HashSet<>(Arrays.asList(new Position(1, 0),
+                                             new Position(2, 0),
+                                             new Position(3, 0),
+                                             new Position(4, 0))),
+                 connect4.getWinningPositions());
+  }
+
+  @Test
+  public void testGetWinningPositions_diagonal_4() {
+    testMove_winDiagonal_4();
+    assertEquals(new HashSet<>(Arrays.asList(new Position(0, 0),
+                                             new Position(1, 1),
+                                             new Position(2, 2),
+                                             new Position(3, 3))),
+                 connect4.getWinningPositions());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testGetWinningPositions_exn4() {
+    connect4.getWinningPositions();
+  }
+
   @Test
   public void testMove_winVertical_4() {
     assertEquals(0, connect4.move(White, 2));
@@ -224,6 +266,172 @@ public class ModelTest {
     assertEquals(ModelImpl.Status.Stalemate, connect3.getStatus());
   }
 
+  @Test
+  public void testGetMoveCount_3() {
+    assertEquals(0, connect3.getMoveCount());
+    fourMoves_3();
+    assertEquals(4, connect3.getMoveCount());
+    connect3.move(White, 1);
+    connect3.move(Red, 0);
+    assertEquals(6, connect3.getMoveCount());
+  }
+
+  @Test
+  public void testMove_stalemateWide() {
+    // Filling each column in turn alternates the players along every row
+    // and never makes a diagonal longer than the height:
+    Model wide = builder().width(1000).height(3).goal(4).build();
+    for (int x = 0; x < wide.getWidth(); ++x) {
+      for (int y = 0; y < wide.getHeight(); ++y) {
+        assertFalse(wide.isGameOver());
+        wide.move(wide.getNextPlayer(), x);
+      }
+    }
+
+    assertEquals(3000, wide.getMoveCount());
+    assertEquals(Model.Status.Stalemate, wide.getStatus());
+  }
+
+  @Test
+  public void testUndo() {
+    connect4.move(White, 2);
+    connect4.move(Red, 3);
+    assertEquals(3, connect4.undo());
+    assertEquals(1, connect4.getMoveCount());
+    assertEquals(Red, connect4.getNextPlayer());
+    assertNull(connect4.getPlayerAt(3, 0));
+    assertTrue(connect4.canRedo());
+
+    assertEquals(2, connect4.undo());
+    assertEquals(0, connect4.getMoveCount());
+    assertEquals(White, connect4.getNextPlayer());
+    assertEquals(0, connect4.getColumnSize(2));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUndo_empty() {
+    connect4.undo();
+  }
+
+  @Test
+  public void testUndo_win() {
+    testMove_winHorizontal_4();
+    assertEquals(3, connect4.undo());
+    assertEquals(Model.Status.Playing, connect4.getStatus());
+    assertEquals(White, connect4.getNextPlayer());
+
+    // Block the line this time:
+    connect4.move(White, 0);
+    assertEquals(2, connect4.move(Red, 2));
+    assertFalse(connect4.isGameOver());
+    assertFalse(connect4.canRedo());
+  }
+
+  @Test
+  public void testUndo_stalemate() {
+    testMove_stalemate_3();
+    assertEquals(0, connect3.undo());
+    assertEquals(Model.Status.Playing, connect3.getStatus());
+    assertEquals(Red, connect3.getNextPlayer());
+    assertEquals(5, connect3.getMoveCount());
+  }
+
+  @Test
+  public void testRedo() {
+    testMove_winDiagonal_4();
+    for (int i = 0; i < 5; ++i) {
+      connect4.undo();
+    }
+
+    for (int i = 0; i < 4; ++i) {
+      connect4.redo();
+    }
+    assertFalse(connect4.isGameOver());
+    assertEquals(1, connect4.redo());
+    assertEquals(White, connect4.getWinner());
+    assertEquals(4, connect4.getWinningPositions().size());
+    assertFalse(connect4.canRedo());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRedo_afterMove() {
+    connect4.move(White, 2);
+    connect4.undo();
+    connect4.move(White, 3);
+    connect4.redo();
+  }
+
+  @Test
+  public void testUndoRedo_againstReplay() {
+    Random random = new Random(24);
+    int[][] shapes = { { 7, 6, 4 }, { 2, 3, 3 }, { 9, 8, 4 }, { 5, 4, 3 } };
+
+    for (int[] shape : shapes) {
+      Model model = builder()
+          .width(shape[0]).height(shape[1]).goal(shape[2]).build();
+      List<Integer> played = new ArrayList<>();
+      List<Integer> undone = new ArrayList<>();
+
+      for (int step = 0; step < 3000; ++step) {
+        int choice = random.nextInt(5);
+
+        if (choice < 2 && !played.isEmpty()) {
+          int column = played.remove(played.size() - 1);
+          assertEquals(column, model.undo());
+          undone.add(column);
+        } else if (choice == 2 && !undone.isEmpty()) {
+          int column = undone.remove(undone.size() - 1);
+          model.redo();
+          played.add(column);
+        } else if (!model.isGameOver()) {
+          int column = random.nextInt(model.getWidth());
+          if (!model.isColumnFull(column)) {
+            model.move(model.getNextPlayer(), column);
+            played.add(column);
+            undone.clear();
+          }
+        }
+
+        assertEquals(!undone.isEmpty(), model.canRedo());
+        assertSameGame(replay(shape, played), model);
+      }
+    }
+  }
+
+  private Model replay(int[] shape, List<Integer> moves) {
+    Model result = builder()
+        .width(shape[0]).height(shape[1]).goal(shape[2]).build();
+    for (int column : moves) {
+      result.move(result.getNextPlayer(), column);
+    }
+    return result;
+  }
+
+  private static void assertSameGame(Model expected, Model actual) {
+    assertEquals(expected.getStatus(), actual.getStatus());
+    assertEquals(expected.getMoveCount(), actual.getMoveCount());
+
+    switch (expected.getStatus()) {
+      case Playing:
+        assertEquals(expected.getNextPlayer(), actual.getNextPlayer());
+        break;
+      case Won:
+        assertEquals(expected.getWinner(), actual.getWinner());
+        assertEquals(expected.getWinningPositions(),
+                     actual.getWinningPositions());
+        break;
+      default:
+        break;
+    }
+
+    for (int x = 0; x < expected.getWidth(); ++x) {
+      assertEquals(expected.getColumnSize(x), actual.getColumnSize(x));
+      for (int y = 0; y < expected.getHeight(); ++y) {
+        assertEquals(expected.getPlayerAt(x, y), actual.getPlayerAt(x, y));
+      }
+    }
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testMove_gameOver_3() {
     testMove_stalemate_3();